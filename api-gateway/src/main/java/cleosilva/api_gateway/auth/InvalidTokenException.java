@@ -0,0 +1,20 @@
+package cleosilva.api_gateway.auth;
+
+/** Token rejeitado. {@code expired} distingue o token vencido (o cliente deve renovar) do inválido. */
+public class InvalidTokenException extends RuntimeException {
+
+    private final boolean expired;
+
+    public InvalidTokenException(String message) {
+        this(message, false);
+    }
+
+    public InvalidTokenException(String message, boolean expired) {
+        super(message);
+        this.expired = expired;
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+}
@@ -0,0 +1,156 @@
+package cleosilva.api_gateway.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Verificação de JWT compacto (JWS) assinado com HS256 ou RS256, só com a JCA. O algoritmo do cabeçalho
+ * precisa ter uma chave configurada para ele: {@code none} e qualquer outro são rejeitados, e a chave RSA
+ * nunca é usada como segredo HMAC. {@code exp} é obrigatório; {@code nbf}, se vier, também é verificado.
+ */
+public class JwtVerifier {
+
+    private static final String HS256 = "HS256";
+    private static final String RS256 = "RS256";
+    private static final int MIN_HMAC_SECRET_BYTES = 32;
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec hmacKey;
+    private final PublicKey rsaKey;
+    private final Clock clock;
+    private final Duration clockSkew;
+    // Mac não é thread-safe; um por thread evita o getInstance a cada verificação
+    private final ThreadLocal<Mac> macs;
+
+    public JwtVerifier(ObjectMapper objectMapper, String hmacSecret, String rsaPublicKey, Clock clock, Duration clockSkew) {
+        if (isBlank(hmacSecret) && isBlank(rsaPublicKey)) {
+            throw new IllegalArgumentException("JWT mode needs an HMAC secret or an RSA public key");
+        }
+        this.objectMapper = objectMapper;
+        this.hmacKey = isBlank(hmacSecret) ? null : hmacKey(hmacSecret);
+        this.rsaKey = isBlank(rsaPublicKey) ? null : rsaKey(rsaPublicKey);
+        this.clock = clock;
+        this.clockSkew = clockSkew;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(hmacKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public VerifiedToken verify(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (first <= 0 || second < 0 || token.indexOf('.', second + 1) >= 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        JsonNode header = json(token.substring(0, first));
+        byte[] signingInput = token.substring(0, second).getBytes(StandardCharsets.US_ASCII);
+        byte[] signature = decode(token.substring(second + 1));
+
+        String algorithm = header.path("alg").asText();
+        boolean valid = switch (algorithm) {
+            case HS256 -> hmacKey != null && verifyHmac(signingInput, signature);
+            case RS256 -> rsaKey != null && verifyRsa(signingInput, signature);
+            default -> throw new InvalidTokenException("Unsupported algorithm: " + algorithm);
+        };
+        if (!valid) {
+            throw new InvalidTokenException("Invalid signature");
+        }
+
+        JsonNode claims = json(token.substring(first + 1, second));
+        JsonNode exp = claims.get("exp");
+        if (exp == null || !exp.canConvertToLong()) {
+            throw new InvalidTokenException("Token without exp");
+        }
+        Instant now = clock.instant();
+        Instant expiresAt = Instant.ofEpochSecond(exp.asLong());
+        if (!now.isBefore(expiresAt.plus(clockSkew))) {
+            throw new InvalidTokenException("Token expired", true);
+        }
+        JsonNode nbf = claims.get("nbf");
+        if (nbf != null && nbf.canConvertToLong() && now.plus(clockSkew).isBefore(Instant.ofEpochSecond(nbf.asLong()))) {
+            throw new InvalidTokenException("Token not yet valid");
+        }
+        JsonNode subject = claims.get("sub");
+        return new VerifiedToken(subject == null ? null : subject.asText(), expiresAt);
+    }
+
+    // Comparação em tempo constante: o tempo não revela quantos bytes da assinatura estavam certos
+    private boolean verifyHmac(byte[] signingInput, byte[] signature) {
+        Mac mac = macs.get();
+        return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+    }
+
+    private boolean verifyRsa(byte[] signingInput, byte[] signature) {
+        try {
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(rsaKey);
+            verifier.update(signingInput);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private JsonNode json(String part) {
+        try {
+            JsonNode node = objectMapper.readTree(decode(part));
+            if (node == null || !node.isObject()) {
+                throw new InvalidTokenException("Malformed token");
+            }
+            return node;
+        } catch (IOException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+    }
+
+    private static byte[] decode(String part) {
+        try {
+            return Base64.getUrlDecoder().decode(part);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+    }
+
+    private static SecretKeySpec hmacKey(String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_HMAC_SECRET_BYTES) {
+            throw new IllegalArgumentException("HMAC secret must have at least " + MIN_HMAC_SECRET_BYTES + " bytes");
+        }
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    // Aceita o PEM (BEGIN PUBLIC KEY) ou só o base64 do X.509
+    private static PublicKey rsaKey(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "").replaceAll("\\s", "");
+        try {
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid RSA public key", e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
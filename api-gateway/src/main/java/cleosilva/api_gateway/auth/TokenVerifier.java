@@ -0,0 +1,142 @@
+package cleosilva.api_gateway.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifica o bearer token conforme {@code authentication.mode}:
+ * <ul>
+ *   <li>{@code static}: um único token compartilhado ({@code authentication.token});</li>
+ *   <li>{@code jwt}: JWT assinado por cliente (HS256 e/ou RS256), ver {@link JwtVerifier}.</li>
+ * </ul>
+ * No modo jwt os tokens já verificados ficam num cache limitado, indexado pelo SHA-256 do token (o token em si
+ * não é guardado), e cada entrada vence junto com o {@code exp} do token: um acerto custa um hash, não uma
+ * verificação de assinatura. Tokens rejeitados não entram no cache, para que tokens inválidos não expulsem os
+ * válidos. As estatísticas do cache saem em {@code gateway.auth.tokens}.
+ */
+@Component
+public class TokenVerifier {
+
+    private final boolean jwtMode;
+    private final byte[] staticTokenDigest;
+    private final JwtVerifier jwtVerifier;
+    private final Clock clock;
+    private final Cache<Digest, VerifiedToken> verified;
+    private final AtomicLong verifications = new AtomicLong();
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    public TokenVerifier(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${authentication.mode:static}") String mode,
+                         @Value("${authentication.token:}") String staticToken,
+                         @Value("${authentication.jwt.hmac-secret:}") String hmacSecret,
+                         @Value("${authentication.jwt.rsa-public-key:}") String rsaPublicKey,
+                         @Value("${authentication.jwt.clock-skew:PT30S}") Duration clockSkew,
+                         @Value("${authentication.jwt.cache.max-size:100000}") long cacheMaxSize) {
+        this(objectMapper, mode, staticToken, hmacSecret, rsaPublicKey, clockSkew, cacheMaxSize,
+                Clock.systemUTC(), Ticker.systemTicker());
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "gateway.auth.tokens");
+    }
+
+    TokenVerifier(ObjectMapper objectMapper, String mode, String staticToken, String hmacSecret, String rsaPublicKey,
+                  Duration clockSkew, long cacheMaxSize, Clock clock, Ticker ticker) {
+        this.jwtMode = switch (mode) {
+            case "jwt" -> true;
+            case "static" -> false;
+            default -> throw new IllegalArgumentException("Unknown authentication mode: " + mode);
+        };
+        if (!jwtMode && (staticToken == null || staticToken.isEmpty())) {
+            throw new IllegalArgumentException("Static mode needs authentication.token");
+        }
+        this.staticTokenDigest = jwtMode ? null : sha256(staticToken);
+        this.jwtVerifier = jwtMode ? new JwtVerifier(objectMapper, hmacSecret, rsaPublicKey, clock, clockSkew) : null;
+        this.clock = clock;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpires(clock))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /** Token verificado, ou {@link InvalidTokenException}. */
+    public VerifiedToken verify(String token) {
+        if (!jwtMode) {
+            // Os dois lados têm 32 bytes: nem o conteúdo nem o tamanho do token afetam o tempo da comparação
+            if (!MessageDigest.isEqual(sha256(token), staticTokenDigest)) {
+                throw new InvalidTokenException("Invalid token");
+            }
+            return new VerifiedToken(null, null);
+        }
+        Digest digest = new Digest(sha256(token));
+        VerifiedToken cached = verified.getIfPresent(digest);
+        if (cached != null && clock.millis() < cached.expiresAt().toEpochMilli()) {
+            return cached;
+        }
+        verifications.incrementAndGet();
+        VerifiedToken checked = jwtVerifier.verify(token);
+        verified.put(digest, checked);
+        return checked;
+    }
+
+    /** Verificações de assinatura feitas (faltas no cache) desde a subida. */
+    long verifications() {
+        return verifications.get();
+    }
+
+    private byte[] sha256(String token) {
+        return sha256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Digest(byte[] bytes) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Digest digest && Arrays.equals(bytes, digest.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(bytes);
+        }
+    }
+
+    private record UntilTokenExpires(Clock clock) implements Expiry<Digest, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(Digest key, VerifiedToken token, long currentTime) {
+            return Math.max(0, Duration.between(clock.instant(), token.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Digest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Digest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package cleosilva.api_gateway.auth;
+
+import java.time.Instant;
+
+/** Token já verificado: o cliente ({@code sub}, null no modo de token único) e até quando vale. */
+public record VerifiedToken(String subject, Instant expiresAt) {}
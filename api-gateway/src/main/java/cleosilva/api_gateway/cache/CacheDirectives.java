@@ -0,0 +1,57 @@
+package cleosilva.api_gateway.cache;
+
+import java.util.List;
+
+/**
+ * Diretivas de {@code Cache-Control} que o cache do gateway respeita. Idades ausentes ficam em -1; diretivas
+ * desconhecidas são ignoradas. Valem tanto para a requisição ({@code no-store}, {@code no-cache},
+ * {@code max-age=0}) quanto para a resposta.
+ */
+public record CacheDirectives(boolean noStore, boolean noCache, boolean privateOnly, long maxAge, long sharedMaxAge) {
+
+    private static final CacheDirectives NONE = new CacheDirectives(false, false, false, -1, -1);
+
+    public static CacheDirectives parse(List<String> headerValues) {
+        if (headerValues == null || headerValues.isEmpty()) {
+            return NONE;
+        }
+        boolean noStore = false;
+        boolean noCache = false;
+        boolean privateOnly = false;
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String value : headerValues) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().split("=", 2);
+                String name = parts[0].trim().toLowerCase();
+                switch (name) {
+                    case "no-store" -> noStore = true;
+                    // no-cache="campo" restringe só o campo; tratado como no-cache inteiro, que é mais seguro
+                    case "no-cache" -> noCache = true;
+                    case "private" -> privateOnly = true;
+                    case "max-age" -> maxAge = seconds(parts);
+                    case "s-maxage" -> sharedMaxAge = seconds(parts);
+                    default -> { }
+                }
+            }
+        }
+        return new CacheDirectives(noStore, noCache, privateOnly, maxAge, sharedMaxAge);
+    }
+
+    /** Idade máxima para um cache compartilhado: {@code s-maxage} tem precedência sobre {@code max-age}. */
+    public long sharedAge() {
+        return sharedMaxAge >= 0 ? sharedMaxAge : maxAge;
+    }
+
+    // Valor inválido vale 0: na dúvida, revalida
+    private static long seconds(String[] parts) {
+        if (parts.length < 2) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(parts[1].trim().replace("\"", "")));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package cleosilva.api_gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Resposta 200 guardada pelo gateway. O corpo é o próprio array recebido do upstream: um acerto só o
+ * embrulha num {@code DataBuffer}, sem cópia. Instantes em nanos do {@code Ticker} do cache.
+ *
+ * @param freshUntil   até quando é servida sem consultar o upstream
+ * @param retainUntil  até quando fica guardada; depois de {@code freshUntil}, só para revalidar pela ETag
+ */
+public record CachedResponse(HttpHeaders headers, byte[] body, String etag, long storedAt, long freshUntil,
+                             long retainUntil) {
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /** Bytes aproximados que a entrada ocupa, usados no orçamento de memória. */
+    public int weight() {
+        int size = 128 + body.length;
+        for (var header : headers.entrySet()) {
+            size += header.getKey().length();
+            for (String value : header.getValue()) {
+                size += value.length();
+            }
+        }
+        return size;
+    }
+
+    /** Mesma resposta confirmada pelo upstream (304), com nova validade. */
+    public CachedResponse revalidated(long now, long freshNanos, long retentionNanos) {
+        return new CachedResponse(headers, body, etag, now, now + freshNanos, now + freshNanos + retentionNanos);
+    }
+}
@@ -0,0 +1,8 @@
+package cleosilva.api_gateway.cache;
+
+/**
+ * Chave de uma resposta em cache. {@code accept} entra porque o catálogo negocia o formato (JSON ou NDJSON)
+ * sem mandar {@code Vary: Accept}; {@code gzip} separa as variantes de {@code Vary: Accept-Encoding};
+ * {@code subject} só é preenchido nas rotas com {@code per-subject}, vazio nas compartilhadas.
+ */
+public record ResponseCacheKey(String path, String query, String accept, boolean gzip, String subject) {}
@@ -0,0 +1,10 @@
+package cleosilva.api_gateway.cache;
+
+import java.time.Duration;
+
+/**
+ * Cache de uma rota: {@code ttl} é a validade máxima (o upstream pode encurtá-la com {@code max-age} ou
+ * {@code s-maxage}); com {@code perSubject} a chave inclui o {@code sub} do token, e só então respostas
+ * {@code private} são guardadas.
+ */
+public record RouteCachePolicy(Duration ttl, boolean perSubject) {}
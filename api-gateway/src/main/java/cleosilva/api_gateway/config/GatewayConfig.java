@@ -1,5 +1,8 @@
 package cleosilva.api_gateway.config;
 
+import cleosilva.api_gateway.filter.RateLimitFilter;
+import cleosilva.api_gateway.filter.RequestCoalescingFilter;
+import cleosilva.api_gateway.filter.ResponseCacheFilter;
 import cleosilva.api_gateway.filter.TokenValidationFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.route.RouteLocator;
@@ -18,6 +21,15 @@ public class GatewayConfig {
     @Autowired
     private TokenValidationFilter tokenValidationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private ResponseCacheFilter responseCacheFilter;
+
+    @Autowired
+    private RequestCoalescingFilter requestCoalescingFilter;
+
     // Desabilita o filtro de segurança padrão do Spring Security para permitir o filtro customizado
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
@@ -38,10 +50,12 @@ public class GatewayConfig {
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
         return builder.routes()
                 .route("products-catalog-route", r -> r.path("/products/**")
-                        .filters(f -> f.filter(tokenValidationFilter))
+                        .filters(f -> f.filter(tokenValidationFilter).filter(rateLimitFilter)
+                                .filter(responseCacheFilter).filter(requestCoalescingFilter))
                         .uri("lb://PRODUCTS-CATALOG"))
                 .route("order-simulator-route", r -> r.path("/orders/**")
-                        .filters(f -> f.filter(tokenValidationFilter))
+                        .filters(f -> f.filter(tokenValidationFilter).filter(rateLimitFilter)
+                                .filter(responseCacheFilter).filter(requestCoalescingFilter))
                         .uri("lb://ORDER-SIMULATOR"))
                 .build();
     }
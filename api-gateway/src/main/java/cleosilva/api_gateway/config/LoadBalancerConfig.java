@@ -0,0 +1,12 @@
+package cleosilva.api_gateway.config;
+
+import cleosilva.load_balancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// As rotas lb:// escolhem a instância por latência (EWMA) e pendentes, não por round-robin;
+// loadbalancing.latency-aware.enabled=false volta ao padrão
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,56 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.load_balancer.InstanceLoadTracker;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * O {@code ReactiveLoadBalancerClientFilter} avisa os lifecycles no sucesso e no erro, mas não quando o cliente
+ * cancela a requisição. Sem este filtro cada cancelamento ficaria contado para sempre como pendente na instância
+ * escolhida, e o balanceador por latência passaria a evitá-la sem motivo.
+ */
+@Component
+public class LoadBalancerCancellationFilter implements GlobalFilter, Ordered {
+
+    private final LoadBalancerClientFactory clientFactory;
+
+    public LoadBalancerCancellationFilter(LoadBalancerClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !"lb".equals(url.getScheme())) {
+            return chain.filter(exchange);
+        }
+        // Mesmo id que o filtro de load balancer usa para achar o contexto do serviço
+        String serviceId = url.getHost();
+        return chain.filter(exchange).doOnCancel(() -> {
+            Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            if (chosen == null || !chosen.hasServer()) {
+                return;
+            }
+            InstanceLoadTracker tracker = clientFactory.getInstance(serviceId, InstanceLoadTracker.class);
+            if (tracker != null) {
+                tracker.release(chosen.getServer());
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
@@ -0,0 +1,114 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.ratelimit.RateLimit;
+import cleosilva.api_gateway.ratelimit.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de requisições local (sem Redis), por cliente e por rota. O cliente é o {@code sub} do token
+ * verificado pelo {@link TokenValidationFilter} ou, sem ele, o IP de origem; por isso este filtro vem depois
+ * do de token. Cada par cliente/rota tem um {@link TokenBucket}, atualizado por CAS.
+ * <p>
+ * Os baldes ficam num mapa limitado a {@code max-clients}, e quem fica {@code idle-timeout} sem requisições sai
+ * dele. Um cliente que volta depois disso, ou que é expulso pelo limite de tamanho, recomeça com o balde cheio.
+ * Acima do limite a resposta é 429 com {@code Retry-After}; as aceitas levam {@value #REMAINING_HEADER}.
+ * Limites por rota em {@code gateway.rate-limit.routes.<id da rota>}; as demais usam o padrão.
+ */
+@Component
+public class RateLimitFilter implements GatewayFilter {
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final boolean enabled;
+    private final RateLimit defaultLimit;
+    private final Map<String, RateLimit> routeLimits;
+    private final Ticker ticker;
+    private final Cache<BucketKey, TokenBucket> buckets;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public RateLimitFilter(Environment environment,
+                           MeterRegistry meterRegistry,
+                           @Value("${gateway.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${gateway.rate-limit.capacity:100}") int capacity,
+                           @Value("${gateway.rate-limit.replenish-rate:50}") double replenishRate,
+                           @Value("${gateway.rate-limit.max-clients:100000}") long maxClients,
+                           @Value("${gateway.rate-limit.idle-timeout:PT10M}") Duration idleTimeout) {
+        this(enabled, new RateLimit(capacity, replenishRate),
+                Binder.get(environment)
+                        .bind("gateway.rate-limit.routes", Bindable.mapOf(String.class, RateLimit.class))
+                        .orElse(Map.of()),
+                maxClients, idleTimeout, Ticker.systemTicker(), meterRegistry);
+    }
+
+    RateLimitFilter(boolean enabled, RateLimit defaultLimit, Map<String, RateLimit> routeLimits, long maxClients,
+                    Duration idleTimeout, Ticker ticker, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.defaultLimit = defaultLimit;
+        this.routeLimits = Map.copyOf(routeLimits);
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route == null ? "" : route.getId();
+        RateLimit limit = routeLimits.getOrDefault(routeId, defaultLimit);
+
+        long now = ticker.read();
+        TokenBucket bucket = buckets.get(new BucketKey(routeId, TokenValidationFilter.clientOf(exchange)),
+                key -> new TokenBucket(limit.capacity(), limit.replenishRate(), now));
+        long result = bucket.tryAcquire(now);
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        if (result >= 0) {
+            headers.set(REMAINING_HEADER, Long.toString(result));
+            return chain.filter(exchange);
+        }
+        meterRegistry.counter("gateway.ratelimit.rejected", "route", routeId).increment();
+        // Retry-After é em segundos inteiros: arredonda para cima, nunca 0
+        long retryAfter = Math.max(1, (-result + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        headers.set(REMAINING_HEADER, "0");
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        return exchange.getResponse().setComplete();
+    }
+
+    /** Clientes com balde ativo (aproximado: entradas vencidas podem ainda não ter sido removidas). */
+    long trackedClients() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private record BucketKey(String routeId, String client) {}
+}
@@ -0,0 +1,312 @@
+package cleosilva.api_gateway.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-flight para GETs idênticos e simultâneos: o primeiro (líder) vai ao upstream; os que chegam enquanto
+ * ele está em andamento (seguidores) esperam e recebem a mesma resposta, sem outra chamada. Só vale para as
+ * rotas listadas em {@code gateway.coalescing.routes}. Fica depois do {@link ResponseCacheFilter}: o cache
+ * resolve o que já tem, este filtro junta as faltas simultâneas.
+ * <p>
+ * Requisições são idênticas com o mesmo caminho, query, {@code Accept}, {@code Accept-Encoding} e
+ * {@code If-None-Match} (e o mesmo {@code sub}, nas rotas {@code per-subject}). Não entram: requisições
+ * condicionais do próprio cliente ou com {@code Range}, e as que pedem {@code no-cache}/{@code no-store}. A
+ * revalidação de uma entrada vencida do cache entra: quando o TTL de uma chave disputada vence, os clientes
+ * simultâneos dividem uma única consulta condicional, e cada um recebe do seu cache o corpo confirmado pelo 304.
+ * <p>
+ * Salvaguardas:
+ * <ul>
+ *   <li>O líder recebe a resposta em streaming enquanto ela é copiada. Se o corpo passa de
+ *   {@code max-body-bytes}, a cópia é descartada e os seguidores fazem cada um sua própria chamada.</li>
+ *   <li>Se o líder é cancelado (o cliente dele desistiu), os seguidores voltam a disputar a liderança; um deles
+ *   refaz a chamada pelos demais.</li>
+ *   <li>Erro na chamada do líder (upstream fora, timeout) é repassado aos seguidores: tentar de novo ao mesmo
+ *   tempo seria justamente a rajada que o filtro evita. Respostas de erro HTTP são compartilhadas como
+ *   qualquer outra.</li>
+ *   <li>Respostas com {@code Set-Cookie} não são compartilhadas.</li>
+ * </ul>
+ * Métricas: {@code gateway.coalescing.requests{role=leader|follower|bypass}}, {@code gateway.coalescing.ratio}
+ * (fração das requisições coalescíveis atendidas como seguidor), {@code gateway.coalescing.fanout}
+ * (seguidores por líder) e {@code gateway.coalescing.fallbacks{reason}}.
+ */
+@Component
+public class RequestCoalescingFilter implements GatewayFilter {
+
+    private final boolean enabled;
+    private final Map<String, CoalescedRoute> routes;
+    private final int maxBodyBytes;
+    private final Map<FlightKey, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong followers = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary fanout;
+
+    /** Rota coalescida; com {@code perSubject} só se juntam requisições do mesmo {@code sub}. */
+    public record CoalescedRoute(boolean perSubject) {}
+
+    @Autowired
+    public RequestCoalescingFilter(Environment environment,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gateway.coalescing.enabled:true}") boolean enabled,
+                                   @Value("${gateway.coalescing.max-body-bytes:1048576}") int maxBodyBytes) {
+        this(enabled,
+                Binder.get(environment)
+                        .bind("gateway.coalescing.routes", Bindable.mapOf(String.class, CoalescedRoute.class))
+                        .orElse(Map.of()),
+                maxBodyBytes, meterRegistry);
+    }
+
+    RequestCoalescingFilter(boolean enabled, Map<String, CoalescedRoute> routes, int maxBodyBytes,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.routes = Map.copyOf(routes);
+        this.maxBodyBytes = maxBodyBytes;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.coalescing.ratio", this, RequestCoalescingFilter::coalescingRatio)
+                .description("Share of coalescible requests served as followers")
+                .register(meterRegistry);
+        this.fanout = DistributionSummary.builder("gateway.coalescing.fanout")
+                .description("Followers served per upstream call")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        CoalescedRoute coalesced = route == null ? null : routes.get(route.getId());
+        if (!enabled || coalesced == null) {
+            return chain.filter(exchange);
+        }
+        if (!coalescible(exchange)) {
+            count("bypass");
+            return chain.filter(exchange);
+        }
+        return join(keyOf(exchange, coalesced), exchange, chain);
+    }
+
+    /** Chamadas ao upstream em andamento que aceitam seguidores. */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    double coalescingRatio() {
+        long followed = followers.get();
+        long total = leaders.get() + followed;
+        return total == 0 ? 0 : (double) followed / total;
+    }
+
+    private Mono<Void> join(FlightKey key, ServerWebExchange exchange, GatewayFilterChain chain) {
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            existing.followers.incrementAndGet();
+            return existing.outcome.asMono().flatMap(outcome -> switch (outcome) {
+                case Shared shared -> {
+                    followers.incrementAndGet();
+                    count("follower");
+                    yield write(exchange.getResponse(), shared);
+                }
+                // O líder desistiu: quem chegar primeiro assume a chamada pelos outros
+                case Abandoned abandoned -> join(key, exchange, chain);
+                case NotShareable notShareable -> chain.filter(exchange);
+            });
+        }
+
+        leaders.incrementAndGet();
+        count("leader");
+        LeaderResponse response = new LeaderResponse(exchange.getResponse(), key, flight);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doOnError(error -> {
+                    inFlight.remove(key, flight);
+                    if (flight.outcome.tryEmitError(error).isSuccess()) {
+                        fanout.record(flight.followers.get());
+                    }
+                })
+                .doOnCancel(() -> release(key, flight, new Abandoned()))
+                // Terminou sem escrever resposta (não deveria acontecer): os seguidores seguem sozinhos
+                .doFinally(signal -> release(key, flight, new NotShareable("no_response")));
+    }
+
+    // Tira a chamada do mapa antes de entregar o resultado: quem chegar depois disso começa outra
+    private void release(FlightKey key, Flight flight, Outcome outcome) {
+        inFlight.remove(key, flight);
+        if (!flight.outcome.tryEmitValue(outcome).isSuccess()) {
+            return;
+        }
+        int waiting = flight.followers.get();
+        fanout.record(waiting);
+        if (waiting > 0 && !(outcome instanceof Shared)) {
+            String reason = outcome instanceof NotShareable notShareable ? notShareable.reason() : "leader_cancelled";
+            meterRegistry.counter("gateway.coalescing.fallbacks", "reason", reason).increment(waiting);
+        }
+    }
+
+    private void count(String role) {
+        meterRegistry.counter("gateway.coalescing.requests", "role", role).increment();
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, Shared shared) {
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        // O que este exchange já tem (ex.: X-RateLimit-Remaining do próprio cliente) prevalece sobre o do líder
+        shared.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        if (shared.body().length == 0) {
+            return response.setComplete();
+        }
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static boolean coalescible(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return false;
+        }
+        HttpHeaders headers = request.getHeaders();
+        // O If-None-Match posto pelo cache é igual para todos os clientes da entrada; o do cliente, não
+        boolean cacheRevalidation = exchange.getAttribute(ResponseCacheFilter.REVALIDATING_ETAG_ATTRIBUTE) != null;
+        if ((headers.containsKey(HttpHeaders.IF_NONE_MATCH) && !cacheRevalidation)
+                || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE) || headers.containsKey(HttpHeaders.RANGE)) {
+            return false;
+        }
+        List<String> cacheControl = headers.get(HttpHeaders.CACHE_CONTROL);
+        return cacheControl == null || cacheControl.stream().noneMatch(value -> value.contains("no-cache") || value.contains("no-store"));
+    }
+
+    private static FlightKey keyOf(ServerWebExchange exchange, CoalescedRoute route) {
+        ServerHttpRequest request = exchange.getRequest();
+        String subject = "";
+        if (route.perSubject()) {
+            String verified = exchange.getAttribute(TokenValidationFilter.AUTH_SUBJECT_ATTRIBUTE);
+            subject = verified == null ? "" : verified;
+        }
+        HttpHeaders headers = request.getHeaders();
+        return new FlightKey(request.getPath().value(), String.valueOf(request.getURI().getRawQuery()),
+                String.valueOf(headers.getFirst(HttpHeaders.ACCEPT)), String.valueOf(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)),
+                String.valueOf(headers.getFirst(HttpHeaders.IF_NONE_MATCH)), subject);
+    }
+
+    /**
+     * Resposta do líder: passa ao cliente dele em streaming e, ao terminar, é entregue aos seguidores.
+     */
+    private final class LeaderResponse extends ServerHttpResponseDecorator {
+
+        private final FlightKey key;
+        private final Flight flight;
+
+        private LeaderResponse(ServerHttpResponse delegate, FlightKey key, Flight flight) {
+            super(delegate);
+            this.key = key;
+            this.flight = flight;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                release(key, flight, new NotShareable("set_cookie"));
+                return super.writeWith(body);
+            }
+            if (getHeaders().getContentLength() > maxBodyBytes) {
+                release(key, flight, new NotShareable("too_large"));
+                return super.writeWith(body);
+            }
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders headers = ResponseCacheFilter.replayableHeaders(getHeaders());
+            Copy copy = new Copy();
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(copy::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = copy.bytes();
+                        release(key, flight, bytes == null ? new NotShareable("too_large") : new Shared(status, headers, bytes));
+                    }));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            release(key, flight, getHeaders().containsKey(HttpHeaders.SET_COOKIE)
+                    ? new NotShareable("set_cookie")
+                    : new Shared(getStatusCode(), ResponseCacheFilter.replayableHeaders(getHeaders()), new byte[0]));
+            return super.setComplete();
+        }
+
+        /**
+         * Cópia do corpo enquanto ele passa. Ao passar de max-body-bytes desiste e libera os seguidores na hora,
+         * em vez de deixá-los esperando o fim de um corpo que não vão receber.
+         */
+        private final class Copy {
+            private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            void append(DataBuffer buffer) {
+                if (out == null) {
+                    return;
+                }
+                int count = buffer.readableByteCount();
+                if (out.size() + count > maxBodyBytes) {
+                    out = null;
+                    release(key, flight, new NotShareable("too_large"));
+                    return;
+                }
+                byte[] chunk = new byte[count];
+                int position = buffer.readPosition();
+                buffer.read(chunk);
+                buffer.readPosition(position);
+                out.writeBytes(chunk);
+            }
+
+            byte[] bytes() {
+                return out == null ? null : out.toByteArray();
+            }
+        }
+    }
+
+    private record FlightKey(String path, String query, String accept, String acceptEncoding, String ifNoneMatch,
+                             String subject) {}
+
+    private static final class Flight {
+        private final Sinks.One<Outcome> outcome = Sinks.one();
+        private final AtomicInteger followers = new AtomicInteger();
+    }
+
+    private sealed interface Outcome permits Shared, Abandoned, NotShareable {}
+
+    private record Shared(HttpStatusCode status, HttpHeaders headers, byte[] body) implements Outcome {}
+
+    private record Abandoned() implements Outcome {}
+
+    private record NotShareable(String reason) implements Outcome {}
+}
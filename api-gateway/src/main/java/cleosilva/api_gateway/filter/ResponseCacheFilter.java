@@ -0,0 +1,418 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.cache.CacheDirectives;
+import cleosilva.api_gateway.cache.CachedResponse;
+import cleosilva.api_gateway.cache.ResponseCacheKey;
+import cleosilva.api_gateway.cache.RouteCachePolicy;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de respostas GET no gateway, para as rotas listadas em {@code gateway.response-cache.routes}.
+ * <ul>
+ *   <li>Orçamento em bytes ({@code max-bytes}), não em entradas; corpos acima de {@code max-entry-bytes}
+ *   passam direto, sem cópia.</li>
+ *   <li>{@code Cache-Control} da resposta: {@code no-store} não é guardado, {@code private} só em rota
+ *   {@code per-subject}, {@code s-maxage}/{@code max-age} encurtam o TTL da rota e {@code no-cache} obriga a
+ *   revalidar a cada uso. Respostas com {@code Set-Cookie} ou com {@code Vary} além de
+ *   {@code Accept-Encoding} não são guardadas.</li>
+ *   <li>Da requisição: {@code no-store} ignora o cache; {@code no-cache} ou {@code max-age=0} forçam a
+ *   revalidação.</li>
+ *   <li>Vencida a entrada, se ela tem ETag fica mais {@code stale-retention} guardada: a próxima requisição vai
+ *   ao upstream com {@code If-None-Match} e um 304 renova a entrada sem trafegar o corpo.</li>
+ *   <li>POST/PUT/PATCH/DELETE bem-sucedidos removem as entradas do mesmo caminho, da coleção acima dele e as
+ *   consultas com query string sob a coleção (busca, páginas). Os caminhos de {@code read-only-paths} (como
+ *   {@code POST /products/batch}, uma leitura por POST) não invalidam nada.</li>
+ * </ul>
+ * O cabeçalho {@value #CACHE_STATUS_HEADER} diz se a resposta veio do cache ({@code HIT}), foi confirmada pelo
+ * upstream ({@code REVALIDATED}) ou buscada ({@code MISS}); contagens em {@code gateway.response.cache.requests}.
+ */
+@Component
+public class ResponseCacheFilter implements GatewayFilter {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    /**
+     * Atributo da exchange com a ETag que o gateway está revalidando. O {@code If-None-Match} encaminhado foi
+     * posto pelo cache, não pelo cliente: o {@link RequestCoalescingFilter} junta essas consultas.
+     */
+    public static final String REVALIDATING_ETAG_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".revalidating";
+
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "transfer-encoding", "te",
+            "trailer", "upgrade", "proxy-authenticate", "proxy-authorization", HttpHeaders.SET_COOKIE.toLowerCase());
+
+    private final boolean enabled;
+    private final Map<String, RouteCachePolicy> routes;
+    private final Set<String> readOnlyPaths;
+    private final int maxEntryBytes;
+    private final long staleRetentionNanos;
+    private final Ticker ticker;
+    private final Cache<ResponseCacheKey, CachedResponse> cache;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ResponseCacheFilter(Environment environment,
+                               MeterRegistry meterRegistry,
+                               @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                               @Value("${gateway.response-cache.max-entry-bytes:1048576}") int maxEntryBytes,
+                               @Value("${gateway.response-cache.stale-retention:PT10M}") Duration staleRetention,
+                               @Value("${gateway.response-cache.read-only-paths:}") Set<String> readOnlyPaths) {
+        this(enabled,
+                Binder.get(environment)
+                        .bind("gateway.response-cache.routes", Bindable.mapOf(String.class, RouteCachePolicy.class))
+                        .orElse(Map.of()),
+                readOnlyPaths, maxBytes, maxEntryBytes, staleRetention, Ticker.systemTicker(), meterRegistry);
+    }
+
+    ResponseCacheFilter(boolean enabled, Map<String, RouteCachePolicy> routes, Set<String> readOnlyPaths, long maxBytes,
+                        int maxEntryBytes, Duration staleRetention, Ticker ticker, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.routes = Map.copyOf(routes);
+        this.readOnlyPaths = Set.copyOf(readOnlyPaths);
+        this.maxEntryBytes = maxEntryBytes;
+        this.staleRetentionNanos = staleRetention.toNanos();
+        this.ticker = ticker;
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((ResponseCacheKey key, CachedResponse response) -> response.weight())
+                .expireAfter(new UntilRetained())
+                .ticker(ticker)
+                .build();
+        Gauge.builder("gateway.response.cache.bytes", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Approximate bytes held by the gateway response cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        RouteCachePolicy policy = route == null ? null : routes.get(route.getId());
+        if (!enabled || policy == null) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            if (HttpMethod.HEAD.equals(request.getMethod()) || HttpMethod.OPTIONS.equals(request.getMethod())) {
+                return chain.filter(exchange);
+            }
+            return chain.filter(exchange).then(Mono.fromRunnable(() -> invalidateAfterWrite(exchange)));
+        }
+
+        CacheDirectives requested = CacheDirectives.parse(request.getHeaders().get(HttpHeaders.CACHE_CONTROL));
+        if (requested.noStore()) {
+            count("bypass");
+            return chain.filter(exchange);
+        }
+        ResponseCacheKey key = keyOf(exchange, policy);
+        String clientIfNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        boolean clientRevalidates = requested.noCache() || requested.maxAge() == 0
+                || "no-cache".equalsIgnoreCase(request.getHeaders().getFirst(HttpHeaders.PRAGMA));
+
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null && cached.isFresh(ticker.read()) && !clientRevalidates) {
+            count("hit");
+            return writeCached(exchange.getResponse(), cached, clientIfNoneMatch, "HIT");
+        }
+
+        // Com ETag guardada, o upstream é consultado condicionalmente; sem ela, a requisição segue como veio
+        CachedResponse validated = cached != null && cached.etag() != null ? cached : null;
+        ServerWebExchange forwarded = exchange;
+        if (validated != null) {
+            ServerHttpRequest conditional = request.mutate()
+                    .headers(headers -> {
+                        headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+                        headers.setIfNoneMatch(validated.etag());
+                    })
+                    .build();
+            forwarded = exchange.mutate().request(conditional).build();
+            forwarded.getAttributes().put(REVALIDATING_ETAG_ATTRIBUTE, validated.etag());
+        }
+        CachingResponse response = new CachingResponse(exchange.getResponse(), key, policy, validated, clientIfNoneMatch);
+        return chain.filter(forwarded.mutate().response(response).build());
+    }
+
+    /** Bytes ocupados pelas entradas, depois de aplicar as remoções pendentes. */
+    long weightedSize() {
+        cache.cleanUp();
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    private Mono<Void> writeCached(ServerHttpResponse response, CachedResponse cached, String clientIfNoneMatch,
+                                   String cacheStatus) {
+        HttpHeaders headers = response.getHeaders();
+        headers.clear();
+        headers.putAll(cached.headers());
+        headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        headers.set(HttpHeaders.AGE, Long.toString(TimeUnit.NANOSECONDS.toSeconds(ticker.read() - cached.storedAt())));
+        if (etagMatches(clientIfNoneMatch, cached.etag())) {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    // RFC 9111, 4.4: uma escrita bem-sucedida invalida o recurso e, aqui, também a coleção que o lista e as
+    // consultas feitas sobre ela (busca, páginas), que são as entradas com query string sob a coleção
+    private void invalidateAfterWrite(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        String path = exchange.getRequest().getPath().value();
+        if (status == null || !status.is2xxSuccessful() || readOnlyPaths.contains(path)) {
+            return;
+        }
+        String parent = path.lastIndexOf('/') > 0 ? path.substring(0, path.lastIndexOf('/')) : path;
+        String views = parent + "/";
+        cache.asMap().keySet().removeIf(key -> key.path().equals(path) || key.path().equals(parent)
+                || (key.query() != null && key.path().startsWith(views)));
+    }
+
+    private ResponseCacheKey keyOf(ServerWebExchange exchange, RouteCachePolicy policy) {
+        ServerHttpRequest request = exchange.getRequest();
+        String subject = "";
+        if (policy.perSubject()) {
+            String verified = exchange.getAttribute(TokenValidationFilter.AUTH_SUBJECT_ATTRIBUTE);
+            subject = verified == null ? "" : verified;
+        }
+        String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+        return new ResponseCacheKey(request.getPath().value(), request.getURI().getRawQuery(), accept == null ? "" : accept,
+                acceptsGzip(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING)), subject);
+    }
+
+    /**
+     * Validade da resposta em nanos, ou -1 se ela não pode ser guardada. Validade 0 (revalidar sempre) só
+     * faz sentido com ETag.
+     */
+    private long freshness(HttpHeaders headers, RouteCachePolicy policy) {
+        CacheDirectives directives = CacheDirectives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+        if (directives.noStore() || (directives.privateOnly() && !policy.perSubject())
+                || headers.containsKey(HttpHeaders.SET_COOKIE) || !cacheableVary(headers.getVary())) {
+            return -1;
+        }
+        long fresh = policy.ttl().toNanos();
+        if (directives.sharedAge() >= 0) {
+            fresh = Math.min(fresh, TimeUnit.SECONDS.toNanos(directives.sharedAge()));
+        }
+        if (directives.noCache()) {
+            fresh = 0;
+        }
+        return fresh == 0 && headers.getETag() == null ? -1 : fresh;
+    }
+
+    private static boolean cacheableVary(List<String> vary) {
+        for (String header : vary) {
+            if (!header.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cabeçalhos do upstream que podem ser repetidos para outro cliente: sem hop-by-hop nem {@code Set-Cookie}. */
+    static HttpHeaders replayableHeaders(HttpHeaders upstream) {
+        HttpHeaders stored = new HttpHeaders();
+        upstream.forEach((name, values) -> {
+            if (!HOP_BY_HOP.contains(name.toLowerCase()) && !name.equalsIgnoreCase(CACHE_STATUS_HEADER)) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(stored);
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("gateway.response.cache.requests", "result", result).increment();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                return !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
+    // Comparação fraca, como pede o If-None-Match
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String target = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resposta do upstream a caminho do cliente. Um 200 guardável é copiado enquanto passa (o cliente recebe
+     * em streaming, sem esperar o corpo inteiro) e guardado quando termina; um 304 à consulta condicional do
+     * gateway vira a entrada guardada, renovada.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ResponseCacheKey key;
+        private final RouteCachePolicy policy;
+        private final CachedResponse validated;
+        private final String clientIfNoneMatch;
+
+        private CachingResponse(ServerHttpResponse delegate, ResponseCacheKey key, RouteCachePolicy policy,
+                                CachedResponse validated, String clientIfNoneMatch) {
+            super(delegate);
+            this.key = key;
+            this.policy = policy;
+            this.validated = validated;
+            this.clientIfNoneMatch = clientIfNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (validated != null && HttpStatus.NOT_MODIFIED.equals(status)) {
+                return Flux.from(body).doOnNext(DataBufferUtils::release).then(Mono.defer(this::serveRevalidated));
+            }
+            if (!HttpStatus.OK.equals(status)) {
+                forgetIfGone(status);
+                return super.writeWith(body);
+            }
+            count("miss");
+            long fresh = freshness(getHeaders(), policy);
+            if (fresh < 0 || getHeaders().getContentLength() > maxEntryBytes) {
+                return super.writeWith(body);
+            }
+            getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+            HttpHeaders headers = replayableHeaders(getHeaders());
+            String etag = getHeaders().getETag();
+            Capture capture = new Capture();
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = capture.bytes();
+                        if (bytes != null) {
+                            long now = ticker.read();
+                            cache.put(key, new CachedResponse(headers, bytes, etag, now, now + fresh,
+                                    now + fresh + (etag == null ? 0 : staleRetentionNanos)));
+                        }
+                    }));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            if (validated != null && HttpStatus.NOT_MODIFIED.equals(getStatusCode())) {
+                return serveRevalidated();
+            }
+            forgetIfGone(getStatusCode());
+            return super.setComplete();
+        }
+
+        private Mono<Void> serveRevalidated() {
+            count("revalidated");
+            // Um 304 pode trazer Cache-Control novo; sem ele vale o da resposta guardada
+            HttpHeaders directives = getHeaders().containsKey(HttpHeaders.CACHE_CONTROL) ? getHeaders() : validated.headers();
+            long fresh = freshness(directives, policy);
+            CachedResponse renewed = validated.revalidated(ticker.read(), Math.max(fresh, 0), staleRetentionNanos);
+            cache.put(key, renewed);
+            return writeCached(getDelegate(), renewed, clientIfNoneMatch, "REVALIDATED");
+        }
+
+        private void forgetIfGone(HttpStatusCode status) {
+            if (HttpStatus.NOT_FOUND.equals(status) || HttpStatus.GONE.equals(status)) {
+                cache.invalidate(key);
+            }
+        }
+
+        // Cópia do corpo enquanto ele passa; desiste (null) se passar de max-entry-bytes
+        private final class Capture {
+            private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            void append(DataBuffer buffer) {
+                if (out == null) {
+                    return;
+                }
+                int count = buffer.readableByteCount();
+                if (out.size() + count > maxEntryBytes) {
+                    out = null;
+                    return;
+                }
+                byte[] chunk = new byte[count];
+                int position = buffer.readPosition();
+                buffer.read(chunk);
+                buffer.readPosition(position);
+                out.writeBytes(chunk);
+            }
+
+            byte[] bytes() {
+                return out == null ? null : out.toByteArray();
+            }
+        }
+    }
+
+    private static final class UntilRetained implements Expiry<ResponseCacheKey, CachedResponse> {
+        @Override
+        public long expireAfterCreate(ResponseCacheKey key, CachedResponse response, long currentTime) {
+            return Math.max(0, response.retainUntil() - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(ResponseCacheKey key, CachedResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ResponseCacheKey key, CachedResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,30 +1,42 @@
 package cleosilva.api_gateway.filter;
 
-import org.springframework.beans.factory.annotation.Value;
+import cleosilva.api_gateway.auth.InvalidTokenException;
+import cleosilva.api_gateway.auth.TokenVerifier;
+import cleosilva.api_gateway.auth.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.core.env.Environment; // Importe esta classe
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.net.InetSocketAddress;
+
 @Component
 public class TokenValidationFilter implements GatewayFilter {
 
+    /** Atributo da exchange com o {@code sub} do token verificado (ausente no modo de token único). */
+    public static final String AUTH_SUBJECT_ATTRIBUTE = TokenValidationFilter.class.getName() + ".subject";
+
+    /**
+     * Cabeçalho com a identidade do cliente repassado aos serviços. Atrás do gateway o endereço remoto que eles
+     * veem é o do próprio gateway; o catálogo usa este cabeçalho para fixar no primário as leituras de quem
+     * acabou de escrever. Um valor vindo do cliente é sempre sobrescrito.
+     */
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final Logger log = LoggerFactory.getLogger(TokenValidationFilter.class);
+
     private static final String AUTH_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
-    @Value("${authentication.token}")
-    private String validToken;
-
-    // INJEÇÃO DO ENVIRONMENT PARA DEBUG
-    private final Environment environment;
+    private final TokenVerifier tokenVerifier;
 
-    // CONSTRUTOR PARA INJETAR ENVIRONMENT
-    public TokenValidationFilter(Environment environment) {
-        this.environment = environment;
+    public TokenValidationFilter(TokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
     }
 
     @Override
@@ -33,29 +45,48 @@ public class TokenValidationFilter implements GatewayFilter {
         ServerHttpRequest request = exchange.getRequest();
 
         if (isPublicEndpoint(request.getURI().getPath())) {
-            System.out.println("DEBUG: Endpoint público (" + request.getURI().getPath() + "). Permissão concedida.");
             return chain.filter(exchange);
         }
 
         String authHeader = request.getHeaders().getFirst(AUTH_HEADER);
 
         if(authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            System.out.println("DEBUG: Token ausente ou prefixo incorreto. Retornando 401.");
+            log.debug("Missing bearer token for {}", request.getURI().getPath());
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
 
         String token = authHeader.substring(BEARER_PREFIX.length());
 
-        if (!validToken.equals(token)) {
-            exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+        VerifiedToken verified;
+        try {
+            verified = tokenVerifier.verify(token);
+        } catch (InvalidTokenException e) {
+            log.debug("Rejected token for {}: {}", request.getURI().getPath(), e.getMessage());
+            // Vencido: 401, o cliente deve obter outro token; inválido: 403
+            exchange.getResponse().setStatusCode(e.isExpired() ? HttpStatus.UNAUTHORIZED : HttpStatus.FORBIDDEN);
             return exchange.getResponse().setComplete();
         }
 
-        return chain.filter(exchange);
+        if (verified.subject() != null) {
+            exchange.getAttributes().put(AUTH_SUBJECT_ATTRIBUTE, verified.subject());
+        }
+        String client = clientOf(exchange);
+        ServerHttpRequest forwarded = request.mutate().headers(headers -> headers.set(CLIENT_ID_HEADER, client)).build();
+        return chain.filter(exchange.mutate().request(forwarded).build());
+    }
+
+    /** O {@code sub} do token verificado ou, sem ele, o endereço remoto do cliente. */
+    static String clientOf(ServerWebExchange exchange) {
+        String subject = exchange.getAttribute(AUTH_SUBJECT_ATTRIBUTE);
+        if (subject != null) {
+            return subject;
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return remote == null ? "unknown" : remote.getAddress() == null ? remote.getHostString() : remote.getAddress().getHostAddress();
     }
 
     private boolean isPublicEndpoint(String path) {
         return path.contains("/actuator/health");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,4 @@
+package cleosilva.api_gateway.ratelimit;
+
+/** Limite de uma rota: rajada de até {@code capacity} requisições, repostas a {@code replenishRate} por segundo. */
+public record RateLimit(int capacity, double replenishRate) {}
@@ -0,0 +1,45 @@
+package cleosilva.api_gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock, no formato GCRA: em vez de tokens e último reabastecimento, o estado é um único
+ * {@code long}, o instante teórico de chegada (TAT) da próxima requisição. Cada requisição avança o TAT em
+ * um intervalo de emissão ({@code 1 / replenishRate}); ela é aceita enquanto o TAT não passa de
+ * {@code capacity} intervalos à frente de agora. Equivale a um balde de {@code capacity} tokens reposto a
+ * {@code replenishRate} por segundo, e a atualização é um único CAS, sem alocação.
+ */
+public final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, double replenishRate, long nowNanos) {
+        if (capacity < 1 || replenishRate <= 0) {
+            throw new IllegalArgumentException("Capacity and replenish rate must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, Math.round(1_000_000_000d / replenishRate));
+        this.burstNanos = emissionIntervalNanos * capacity;
+        // Começa cheio
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Tenta consumir um token. Aceita: devolve os tokens que sobraram (&ge; 0). Negada: devolve o negativo
+     * dos nanos até haver um token.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + emissionIntervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return -(ahead - burstNanos);
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return (burstNanos - ahead) / emissionIntervalNanos;
+            }
+        }
+    }
+}
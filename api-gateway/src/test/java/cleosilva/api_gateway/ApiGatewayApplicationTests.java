@@ -1,5 +1,6 @@
 package cleosilva.api_gateway;
 
+import cleosilva.load_balancer.LatencyAwareLoadBalancer;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,11 +9,14 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.http.HttpStatus;
 
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient
 @ActiveProfiles("test")
@@ -21,6 +25,9 @@ class ApiGatewayApplicationTests {
 	@Autowired
 	private WebTestClient webClient;
 
+	@Autowired
+	private LoadBalancerClientFactory loadBalancerClientFactory;
+
 	private static final String VALID_TOKEN = "supersecrettoken123";
 	private static final String AUTH_HEADER = "Authorization";
 	private static final String BEARER_PREFIX = "Bearer ";
@@ -73,6 +80,11 @@ class ApiGatewayApplicationTests {
 				.expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE); // Mudar para 503
 	}
 
+	@Test
+	@DisplayName("Should balance lb:// routes with the latency-aware load balancer")
+	void lbRoutes_shouldUseLatencyAwareLoadBalancer() {
+		assertInstanceOf(LatencyAwareLoadBalancer.class, loadBalancerClientFactory.getInstance("PRODUCTS-CATALOG"));
+	}
 
 }
 
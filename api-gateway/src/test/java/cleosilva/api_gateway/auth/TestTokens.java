@@ -0,0 +1,102 @@
+package cleosilva.api_gateway.auth;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Emissão de JWT para os testes e um relógio que anda só quando o teste manda (também serve de Ticker). */
+final class TestTokens {
+
+    static final String HMAC_SECRET = "0123456789abcdef0123456789abcdef";
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private TestTokens() {
+    }
+
+    static KeyPair rsaKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    static String rsaPublicKeyPem(KeyPair keyPair) {
+        return "-----BEGIN PUBLIC KEY-----\n"
+                + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+                + "\n-----END PUBLIC KEY-----";
+    }
+
+    static String hs256(String subject, long exp) throws GeneralSecurityException {
+        String signingInput = signingInput("HS256", subject, exp);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(HMAC_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return signingInput + "." + BASE64URL.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    static String rs256(String subject, long exp, PrivateKey key) throws GeneralSecurityException {
+        String signingInput = signingInput("RS256", subject, exp);
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(key);
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + BASE64URL.encodeToString(signer.sign());
+    }
+
+    static String unsigned(String subject, long exp) {
+        return signingInput("none", subject, exp) + ".";
+    }
+
+    private static String signingInput(String algorithm, String subject, long exp) {
+        String header = "{\"alg\":\"" + algorithm + "\",\"typ\":\"JWT\"}";
+        String claims = "{\"sub\":\"" + subject + "\",\"exp\":" + exp + "}";
+        return BASE64URL.encodeToString(header.getBytes(StandardCharsets.UTF_8)) + "."
+                + BASE64URL.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static final class ManualClock extends Clock implements com.github.benmanes.caffeine.cache.Ticker {
+        private final AtomicLong nanos;
+
+        ManualClock(Instant start) {
+            this.nanos = new AtomicLong(start.getEpochSecond() * 1_000_000_000L + start.getNano());
+        }
+
+        void advanceSeconds(long seconds) {
+            nanos.addAndGet(seconds * 1_000_000_000L);
+        }
+
+        long epochSecond() {
+            return nanos.get() / 1_000_000_000L;
+        }
+
+        @Override
+        public Instant instant() {
+            long now = nanos.get();
+            return Instant.ofEpochSecond(now / 1_000_000_000L, now % 1_000_000_000L);
+        }
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package cleosilva.api_gateway.auth;
+
+import cleosilva.api_gateway.filter.TokenValidationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Custo do {@link TokenValidationFilter} por requisição (ns/op) com o token já no cache e com um token novo a
+ * cada requisição, para HS256 e RS256. Os tempos são apenas indicativos (sem JMH, com aquecimento simples) e não
+ * são verificados; o que se verifica é que acertos não verificam assinatura e cada falta verifica uma vez.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class TokenVerificationBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int HITS = 50_000;
+    private static final int MISSES = 5_000;
+    private static final int RSA_MISSES = 2_000;
+
+    private final TestTokens.ManualClock clock = new TestTokens.ManualClock(Instant.now());
+    private final GatewayFilterChain chain = exchange -> Mono.empty();
+
+    @Test
+    @DisplayName("Cached tokens should skip signature verification")
+    void compareHitsAndMisses() throws Exception {
+        KeyPair keys = TestTokens.rsaKeyPair();
+        long exp = clock.epochSecond() + 3_600;
+
+        TokenVerifier hmac = verifier(TestTokens.HMAC_SECRET, null);
+        String[] hmacTokens = new String[WARMUP + MISSES];
+        for (int i = 0; i < hmacTokens.length; i++) {
+            hmacTokens[i] = TestTokens.hs256("client-" + i, exp);
+        }
+        TokenVerifier rsa = verifier(null, TestTokens.rsaPublicKeyPem(keys));
+        String[] rsaTokens = new String[WARMUP + RSA_MISSES];
+        for (int i = 0; i < rsaTokens.length; i++) {
+            rsaTokens[i] = TestTokens.rs256("client-" + i, exp, keys.getPrivate());
+        }
+
+        double hmacMiss = nsPerOp(hmac, hmacTokens, MISSES);
+        assertEquals(WARMUP + MISSES, hmac.verifications());
+        double hmacHit = nsPerOp(hmac, new String[] { hmacTokens[0] }, HITS);
+        assertEquals(WARMUP + MISSES, hmac.verifications());
+
+        double rsaMiss = nsPerOp(rsa, rsaTokens, RSA_MISSES);
+        assertEquals(WARMUP + RSA_MISSES, rsa.verifications());
+        double rsaHit = nsPerOp(rsa, new String[] { rsaTokens[0] }, HITS);
+        assertEquals(WARMUP + RSA_MISSES, rsa.verifications());
+
+        System.out.printf("token filter: HS256 hit %.0f ns/op, miss %.0f ns/op; RS256 hit %.0f ns/op, miss %.0f ns/op%n",
+                hmacHit, hmacMiss, rsaHit, rsaMiss);
+    }
+
+    // Percorre os tokens em ordem: com um só token todas as chamadas depois da primeira são acertos.
+    // As exchanges são montadas antes, uma por token, para medir só o filtro
+    private double nsPerOp(TokenVerifier verifier, String[] tokens, int iterations) {
+        TokenValidationFilter filter = new TokenValidationFilter(verifier);
+        MockServerWebExchange[] exchanges = new MockServerWebExchange[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get("/products/1")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + tokens[i]));
+        }
+        int next = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            run(filter, exchanges[next++ % exchanges.length]);
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            run(filter, exchanges[next++ % exchanges.length]);
+        }
+        return (System.nanoTime() - started) / (double) iterations;
+    }
+
+    private void run(TokenValidationFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, chain).block();
+        if (exchange.getResponse().getStatusCode() != null) {
+            throw new AssertionError("Token rejected: " + exchange.getResponse().getStatusCode());
+        }
+    }
+
+    private TokenVerifier verifier(String hmacSecret, String rsaPublicKey) {
+        return new TokenVerifier(new ObjectMapper(), "jwt", null, hmacSecret, rsaPublicKey, Duration.ZERO,
+                100_000, clock, clock);
+    }
+}
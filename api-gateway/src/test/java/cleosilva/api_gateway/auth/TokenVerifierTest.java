@@ -0,0 +1,94 @@
+package cleosilva.api_gateway.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenVerifierTest {
+
+    private final TestTokens.ManualClock clock = new TestTokens.ManualClock(Instant.parse("2024-06-01T12:00:00Z"));
+
+    @Test
+    @DisplayName("Should verify an HS256 token once and serve repeats from the cache")
+    void shouldCacheVerifiedHmacToken() throws Exception {
+        TokenVerifier verifier = jwtVerifier(TestTokens.HMAC_SECRET, null);
+        String token = TestTokens.hs256("client-a", clock.epochSecond() + 300);
+
+        assertEquals("client-a", verifier.verify(token).subject());
+        assertEquals("client-a", verifier.verify(token).subject());
+
+        assertEquals(1, verifier.verifications());
+    }
+
+    @Test
+    @DisplayName("Should verify an RS256 token against the configured public key")
+    void shouldVerifyRsaToken() throws Exception {
+        KeyPair keys = TestTokens.rsaKeyPair();
+        TokenVerifier verifier = jwtVerifier(null, TestTokens.rsaPublicKeyPem(keys));
+
+        VerifiedToken verified = verifier.verify(TestTokens.rs256("client-b", clock.epochSecond() + 300, keys.getPrivate()));
+
+        assertEquals("client-b", verified.subject());
+        assertThrows(InvalidTokenException.class,
+                () -> verifier.verify(TestTokens.rs256("client-b", clock.epochSecond() + 300, TestTokens.rsaKeyPair().getPrivate())));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered tokens every time without caching them")
+    void shouldRejectTamperedToken() throws Exception {
+        TokenVerifier verifier = jwtVerifier(TestTokens.HMAC_SECRET, null);
+        String token = TestTokens.hs256("client-a", clock.epochSecond() + 300);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        for (int i = 0; i < 2; i++) {
+            InvalidTokenException rejected = assertThrows(InvalidTokenException.class, () -> verifier.verify(tampered));
+            assertFalse(rejected.isExpired());
+        }
+        assertEquals(2, verifier.verifications());
+    }
+
+    @Test
+    @DisplayName("Should reject alg none and algorithms without a configured key")
+    void shouldRejectUnexpectedAlgorithms() throws Exception {
+        TokenVerifier rsaOnly = jwtVerifier(null, TestTokens.rsaPublicKeyPem(TestTokens.rsaKeyPair()));
+
+        assertThrows(InvalidTokenException.class, () -> rsaOnly.verify(TestTokens.unsigned("client-a", clock.epochSecond() + 300)));
+        assertThrows(InvalidTokenException.class, () -> rsaOnly.verify(TestTokens.hs256("client-a", clock.epochSecond() + 300)));
+        assertThrows(InvalidTokenException.class, () -> rsaOnly.verify("not-a-token"));
+    }
+
+    @Test
+    @DisplayName("Should drop a cached token when it expires")
+    void shouldExpireCachedToken() throws Exception {
+        TokenVerifier verifier = jwtVerifier(TestTokens.HMAC_SECRET, null);
+        String token = TestTokens.hs256("client-a", clock.epochSecond() + 60);
+        verifier.verify(token);
+
+        clock.advanceSeconds(61);
+
+        InvalidTokenException rejected = assertThrows(InvalidTokenException.class, () -> verifier.verify(token));
+        assertTrue(rejected.isExpired());
+        assertEquals(2, verifier.verifications());
+    }
+
+    @Test
+    @DisplayName("Static mode should accept only the shared token")
+    void shouldCompareStaticToken() {
+        TokenVerifier verifier = new TokenVerifier(new ObjectMapper(), "static", "supersecrettoken123", null, null,
+                Duration.ZERO, 100, clock, clock);
+
+        assertNull(verifier.verify("supersecrettoken123").subject());
+        assertThrows(InvalidTokenException.class, () -> verifier.verify("supersecrettoken12"));
+        assertThrows(InvalidTokenException.class, () -> verifier.verify("wrongtoken"));
+    }
+
+    private TokenVerifier jwtVerifier(String hmacSecret, String rsaPublicKey) {
+        return new TokenVerifier(new ObjectMapper(), "jwt", null, hmacSecret, rsaPublicKey, Duration.ZERO, 100, clock, clock);
+    }
+}
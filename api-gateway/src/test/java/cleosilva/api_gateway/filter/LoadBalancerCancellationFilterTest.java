@@ -0,0 +1,47 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.load_balancer.InstanceLoadTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoadBalancerCancellationFilterTest {
+
+    @Test
+    @DisplayName("Should stop counting a cancelled request as outstanding on the chosen instance")
+    void shouldReleaseCancelledRequest() {
+        InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofMillis(20), Duration.ofSeconds(10), Duration.ofSeconds(1));
+        LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+        when(clientFactory.getInstance("PRODUCTS-CATALOG", InstanceLoadTracker.class)).thenReturn(tracker);
+        ServiceInstance instance = new DefaultServiceInstance("catalog-1", "PRODUCTS-CATALOG", "10.0.0.1", 8100, false);
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/products/1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, URI.create("lb://PRODUCTS-CATALOG/products/1"));
+        Disposable request = new LoadBalancerCancellationFilter(clientFactory).filter(exchange, e -> {
+            // O que o filtro de load balancer faz antes de encaminhar
+            e.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+            tracker.begin(instance);
+            return Mono.never();
+        }).subscribe();
+        assertEquals(1, tracker.outstanding(instance));
+
+        request.dispose();
+
+        assertEquals(0, tracker.outstanding(instance));
+    }
+}
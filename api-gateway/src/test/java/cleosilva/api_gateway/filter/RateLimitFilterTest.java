@@ -0,0 +1,87 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.ratelimit.RateLimit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(true, new RateLimit(2, 1),
+            Map.of("order-simulator-route", new RateLimit(1, 1)), 1_000, Duration.ofMinutes(10), now::get, meterRegistry);
+    private final GatewayFilterChain chain = exchange -> Mono.empty();
+
+    @Test
+    @DisplayName("Should answer 429 with Retry-After once the client's burst is spent")
+    void shouldRejectWithRetryAfter() {
+        assertEquals("1", call("products-catalog-route", "alice", null).getResponse().getHeaders().getFirst(RateLimitFilter.REMAINING_HEADER));
+        assertNull(call("products-catalog-route", "alice", null).getResponse().getStatusCode());
+
+        MockServerWebExchange rejected = call("products-catalog-route", "alice", null);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.counter("gateway.ratelimit.rejected", "route", "products-catalog-route").count());
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(call("products-catalog-route", "alice", null).getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should keep separate buckets per client, per route, and use the route's own limit")
+    void shouldIsolateClientsAndRoutes() {
+        call("products-catalog-route", "alice", null);
+        call("products-catalog-route", "alice", null);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, call("products-catalog-route", "alice", null).getResponse().getStatusCode());
+
+        assertNull(call("products-catalog-route", "bob", null).getResponse().getStatusCode());
+        assertNull(call("order-simulator-route", "alice", null).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, call("order-simulator-route", "alice", null).getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the remote address and evict idle clients")
+    void shouldUseRemoteAddressAndEvictIdleClients() {
+        call("products-catalog-route", null, "10.0.0.7");
+        call("products-catalog-route", null, "10.0.0.7");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, call("products-catalog-route", null, "10.0.0.7").getResponse().getStatusCode());
+        assertNull(call("products-catalog-route", null, "10.0.0.8").getResponse().getStatusCode());
+        assertEquals(2, filter.trackedClients());
+
+        now.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertEquals(0, filter.trackedClients());
+    }
+
+    private MockServerWebExchange call(String routeId, String subject, String remoteAddress) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/products/1");
+        if (remoteAddress != null) {
+            request.remoteAddress(new InetSocketAddress(remoteAddress, 40_000));
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(routeId).uri("http://localhost").predicate(e -> true).build());
+        if (subject != null) {
+            exchange.getAttributes().put(TokenValidationFilter.AUTH_SUBJECT_ATTRIBUTE, subject);
+        }
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+}
@@ -0,0 +1,224 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.cache.RouteCachePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescingFilterTest {
+
+    private static final String ROUTE = "products-catalog-route";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescingFilter filter = new RequestCoalescingFilter(true,
+            Map.of(ROUTE, new RequestCoalescingFilter.CoalescedRoute(false)), 1_024, meterRegistry);
+    private final Upstream upstream = new Upstream();
+
+    @Test
+    @DisplayName("Should share one upstream call among identical concurrent GETs")
+    void shouldShareOneUpstreamCall() {
+        upstream.body = "{\"id\":1}";
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/products/1"));
+            exchanges.add(exchange);
+            done.add(filter.filter(exchange, upstream).toFuture());
+        }
+        assertEquals(1, upstream.calls);
+        assertEquals(1, filter.inFlight());
+
+        upstream.release();
+
+        done.forEach(CompletableFuture::join);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals("{\"id\":1}", exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(0, filter.inFlight());
+        assertEquals(0.9, filter.coalescingRatio(), 1e-9);
+        assertEquals(9, meterRegistry.counter("gateway.coalescing.requests", "role", "follower").count());
+        assertEquals(9, meterRegistry.summary("gateway.coalescing.fanout").totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should not coalesce different representations or non-idempotent requests")
+    void shouldKeepDistinctRequestsApart() {
+        upstream.body = "[]";
+        filter.filter(exchange(MockServerHttpRequest.get("/products")), upstream).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get("/products").header(HttpHeaders.ACCEPT, "application/x-ndjson")), upstream).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get("/products").header(HttpHeaders.CACHE_CONTROL, "no-cache")), upstream).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.post("/products")), upstream).subscribe();
+
+        assertEquals(4, upstream.calls);
+        upstream.release();
+    }
+
+    @Test
+    @DisplayName("Should hand the call over to a follower when the leader is cancelled")
+    void shouldRecoverFromLeaderCancellation() {
+        upstream.body = "{\"id\":1}";
+        Disposable leader = filter.filter(exchange(MockServerHttpRequest.get("/products/1")), upstream).subscribe();
+        MockServerWebExchange first = exchange(MockServerHttpRequest.get("/products/1"));
+        MockServerWebExchange second = exchange(MockServerHttpRequest.get("/products/1"));
+        CompletableFuture<Void> firstDone = filter.filter(first, upstream).toFuture();
+        CompletableFuture<Void> secondDone = filter.filter(second, upstream).toFuture();
+
+        leader.dispose();
+
+        assertEquals(2, upstream.calls);
+        upstream.release();
+        firstDone.join();
+        secondDone.join();
+        assertEquals("{\"id\":1}", first.getResponse().getBodyAsString().block());
+        assertEquals("{\"id\":1}", second.getResponse().getBodyAsString().block());
+        assertEquals(2, meterRegistry.counter("gateway.coalescing.fallbacks", "reason", "leader_cancelled").count());
+    }
+
+    @Test
+    @DisplayName("Should propagate the leader's upstream error to its followers")
+    void shouldPropagateUpstreamError() {
+        upstream.error = new IllegalStateException("upstream down");
+        CompletableFuture<Void> leader = filter.filter(exchange(MockServerHttpRequest.get("/products/1")), upstream).toFuture();
+        CompletableFuture<Void> follower = filter.filter(exchange(MockServerHttpRequest.get("/products/1")), upstream).toFuture();
+
+        upstream.release();
+
+        assertTrue(leader.isCompletedExceptionally());
+        assertTrue(follower.isCompletedExceptionally());
+        assertEquals(1, upstream.calls);
+        assertEquals(0, filter.inFlight());
+    }
+
+    @Test
+    @DisplayName("Should let followers make their own call when the body is too large to share")
+    void shouldFallBackForLargeBodies() {
+        upstream.body = "x".repeat(4_096);
+        MockServerWebExchange leader = exchange(MockServerHttpRequest.get("/products/export"));
+        MockServerWebExchange follower = exchange(MockServerHttpRequest.get("/products/export"));
+        CompletableFuture<Void> leaderDone = filter.filter(leader, upstream).toFuture();
+        CompletableFuture<Void> followerDone = filter.filter(follower, upstream).toFuture();
+
+        upstream.release();
+        leaderDone.join();
+        followerDone.join();
+
+        assertEquals(2, upstream.calls);
+        assertEquals(4_096, follower.getResponse().getBodyAsString().block().length());
+        assertEquals(1, meterRegistry.counter("gateway.coalescing.fallbacks", "reason", "too_large").count());
+    }
+
+    @Test
+    @DisplayName("Should share one revalidation when a hot cache entry expires under concurrent clients")
+    void shouldCoalesceCacheRevalidations() {
+        AtomicLong now = new AtomicLong();
+        ResponseCacheFilter cache = new ResponseCacheFilter(true, Map.of(ROUTE, new RouteCachePolicy(Duration.ofSeconds(5), false)),
+                Set.of(), 1 << 20, 1 << 16, Duration.ofMinutes(10), now::get, meterRegistry);
+        GatewayFilterChain coalesced = exchange -> filter.filter(exchange, upstream);
+        upstream.body = "{\"id\":1}";
+        upstream.etag = "\"v1\"";
+        upstream.release();
+        cache.filter(exchange(MockServerHttpRequest.get("/products/1")), coalesced).block();
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        upstream.hold();
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        List<CompletableFuture<Void>> done = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/products/1"));
+            exchanges.add(exchange);
+            done.add(cache.filter(exchange, coalesced).toFuture());
+        }
+        assertEquals(2, upstream.calls);
+
+        upstream.release();
+
+        done.forEach(CompletableFuture::join);
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals("REVALIDATED", exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER));
+            assertEquals("{\"id\":1}", exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(9, meterRegistry.counter("gateway.coalescing.requests", "role", "follower").count());
+    }
+
+    @Test
+    @DisplayName("Should not coalesce conditional requests sent by the client itself")
+    void shouldBypassClientConditionalRequests() {
+        upstream.body = "{\"id\":1}";
+        filter.filter(exchange(MockServerHttpRequest.get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")), upstream).subscribe();
+        filter.filter(exchange(MockServerHttpRequest.get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")), upstream).subscribe();
+
+        assertEquals(2, upstream.calls);
+        assertEquals(2, meterRegistry.counter("gateway.coalescing.requests", "role", "bypass").count());
+        upstream.release();
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(ROUTE).uri("http://localhost").predicate(e -> true).build());
+        return exchange;
+    }
+
+    /** Serviço de destino falso: segura todas as chamadas até {@link #release()}. */
+    private static final class Upstream implements GatewayFilterChain {
+        private Sinks.Empty<Void> gate = Sinks.empty();
+        private String body;
+        private String etag;
+        private RuntimeException error;
+        private int calls;
+
+        void release() {
+            gate.tryEmitEmpty();
+        }
+
+        // Volta a segurar as chamadas seguintes
+        void hold() {
+            gate = Sinks.empty();
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            calls++;
+            return gate.asMono().then(Mono.defer(() -> {
+                if (error != null) {
+                    return Mono.error(error);
+                }
+                ServerHttpResponse response = exchange.getResponse();
+                if (etag != null) {
+                    response.getHeaders().setETag(etag);
+                    if (etag.equals(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                        return response.setComplete();
+                    }
+                }
+                response.setStatusCode(HttpStatus.OK);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+            }));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.cache.RouteCachePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheFilterTest {
+
+    private static final String ROUTE = "products-catalog-route";
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Upstream upstream = new Upstream();
+    private ResponseCacheFilter filter = filter(Map.of(ROUTE, new RouteCachePolicy(Duration.ofSeconds(5), false)),
+            1_000_000, 64 * 1024);
+
+    @Test
+    @DisplayName("Should serve a repeated GET from the cache until the TTL runs out")
+    void shouldServeHitsWithinTtl() {
+        upstream.respond(HttpStatus.OK, "{\"id\":1}", null, null);
+
+        MockServerWebExchange first = call(get("/products/1"));
+        MockServerWebExchange second = call(get("/products/1"));
+
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER));
+        assertEquals("{\"id\":1}", second.getResponse().getBodyAsString().block());
+        assertEquals(1, upstream.calls);
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        call(get("/products/1"));
+
+        assertEquals(2, upstream.calls);
+        call(get("/products/1").header(HttpHeaders.ACCEPT, "application/x-ndjson"));
+        assertEquals(3, upstream.calls);
+        assertEquals(1, meterRegistry.counter("gateway.response.cache.requests", "result", "hit").count());
+    }
+
+    @Test
+    @DisplayName("Should revalidate a stale entry with If-None-Match and reuse the body on 304")
+    void shouldRevalidateStaleEntryWithEtag() {
+        upstream.respond(HttpStatus.OK, "{\"id\":1}", "\"7\"", "max-age=1");
+        call(get("/products/1"));
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+
+        upstream.respond(HttpStatus.NOT_MODIFIED, null, "\"7\"", null);
+        MockServerWebExchange revalidated = call(get("/products/1"));
+
+        assertEquals("\"7\"", upstream.ifNoneMatch.get(1));
+        assertEquals(HttpStatus.OK, revalidated.getResponse().getStatusCode());
+        assertEquals("REVALIDATED", revalidated.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER));
+        assertEquals("{\"id\":1}", revalidated.getResponse().getBodyAsString().block());
+
+        // A revalidação renova a validade: a próxima é servida sem ir ao upstream
+        call(get("/products/1"));
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 from the cache when the client's ETag matches")
+    void shouldAnswerNotModifiedToClientEtag() {
+        upstream.respond(HttpStatus.OK, "{\"id\":1}", "W/\"7\"", null);
+        call(get("/products/1"));
+
+        MockServerWebExchange conditional = call(get("/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"7\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+        assertEquals(1, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should not store no-store, private or cookie-setting responses on shared routes")
+    void shouldNotStoreUncacheableResponses() {
+        upstream.respond(HttpStatus.OK, "a", null, "no-store");
+        call(get("/products/1"));
+        call(get("/products/1"));
+        upstream.respond(HttpStatus.OK, "b", null, "private, max-age=60");
+        call(get("/products/2"));
+        call(get("/products/2"));
+        upstream.respond(HttpStatus.OK, "c", null, null);
+        upstream.setCookie = true;
+        call(get("/products/3"));
+        call(get("/products/3"));
+
+        assertEquals(6, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should key per-subject routes by the token subject")
+    void shouldSeparateSubjectsOnPerSubjectRoutes() {
+        filter = filter(Map.of(ROUTE, new RouteCachePolicy(Duration.ofSeconds(5), true)), 1_000_000, 64 * 1024);
+        upstream.respond(HttpStatus.OK, "mine", null, "private, max-age=60");
+
+        call(get("/products/1"), "alice");
+        call(get("/products/1"), "alice");
+        call(get("/products/1"), "bob");
+
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should honour the request's no-cache and no-store directives")
+    void shouldHonourRequestDirectives() {
+        upstream.respond(HttpStatus.OK, "{\"id\":1}", "\"7\"", null);
+        call(get("/products/1"));
+
+        upstream.respond(HttpStatus.NOT_MODIFIED, null, "\"7\"", null);
+        MockServerWebExchange revalidated = call(get("/products/1").header(HttpHeaders.CACHE_CONTROL, "no-cache"));
+        call(get("/products/1").header(HttpHeaders.CACHE_CONTROL, "no-store"));
+
+        assertEquals("REVALIDATED", revalidated.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER));
+        assertEquals(3, upstream.calls);
+        assertNull(upstream.ifNoneMatch.get(2));
+    }
+
+    @Test
+    @DisplayName("Should keep the cache within its byte budget and skip oversized bodies")
+    void shouldRespectByteBudget() {
+        filter = filter(Map.of(ROUTE, new RouteCachePolicy(Duration.ofSeconds(5), false)), 10_000, 2_000);
+        upstream.respond(HttpStatus.OK, "x".repeat(1_500), null, null);
+        for (int i = 0; i < 20; i++) {
+            call(get("/products/" + i));
+        }
+        assertTrue(filter.weightedSize() <= 10_000, "weighted size " + filter.weightedSize());
+
+        upstream.respond(HttpStatus.OK, "x".repeat(5_000), null, null);
+        int before = upstream.calls;
+        call(get("/products/big"));
+        call(get("/products/big"));
+        assertEquals(before + 2, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should drop the resource and its collection after a successful write")
+    void shouldInvalidateAfterWrite() {
+        upstream.respond(HttpStatus.OK, "[]", null, null);
+        call(get("/products"));
+        call(get("/products/1"));
+
+        upstream.respond(HttpStatus.OK, "{\"id\":1}", null, null);
+        call(MockServerHttpRequest.method(HttpMethod.PUT, "/products/1"));
+        call(get("/products"));
+        call(get("/products/1"));
+
+        assertEquals(5, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should drop searches over the collection after a write, but keep other products")
+    void shouldInvalidateSearchesAfterWrite() {
+        upstream.respond(HttpStatus.OK, "[]", null, null);
+        call(get("/products/search?q=laptop"));
+        call(get("/products/2"));
+
+        call(MockServerHttpRequest.method(HttpMethod.PUT, "/products/1"));
+        call(get("/products/search?q=laptop"));
+        call(get("/products/2"));
+
+        assertEquals(4, upstream.calls);
+    }
+
+    @Test
+    @DisplayName("Should keep the cache after a read-only POST")
+    void shouldNotInvalidateAfterReadOnlyPost() {
+        upstream.respond(HttpStatus.OK, "[]", null, null);
+        call(get("/products"));
+
+        call(MockServerHttpRequest.post("/products/batch"));
+        call(get("/products"));
+
+        assertEquals(2, upstream.calls);
+    }
+
+    private ResponseCacheFilter filter(Map<String, RouteCachePolicy> routes, long maxBytes, int maxEntryBytes) {
+        return new ResponseCacheFilter(true, routes, Set.of("/products/batch"), maxBytes, maxEntryBytes,
+                Duration.ofMinutes(10), now::get, meterRegistry);
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> get(String path) {
+        return MockServerHttpRequest.get(path);
+    }
+
+    private MockServerWebExchange call(MockServerHttpRequest.BaseBuilder<?> request) {
+        return call(request, null);
+    }
+
+    private MockServerWebExchange call(MockServerHttpRequest.BaseBuilder<?> request, String subject) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+                Route.async().id(ROUTE).uri("http://localhost").predicate(e -> true).build());
+        if (subject != null) {
+            exchange.getAttributes().put(TokenValidationFilter.AUTH_SUBJECT_ATTRIBUTE, subject);
+        }
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    /** Serviço de destino falso: devolve a resposta configurada e anota o If-None-Match recebido. */
+    private static final class Upstream implements GatewayFilterChain {
+        private HttpStatus status;
+        private String body;
+        private String etag;
+        private String cacheControl;
+        private boolean setCookie;
+        private int calls;
+        private final List<String> ifNoneMatch = new ArrayList<>();
+
+        void respond(HttpStatus status, String body, String etag, String cacheControl) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+            this.cacheControl = cacheControl;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            calls++;
+            ifNoneMatch.add(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(status);
+            if (etag != null) {
+                response.getHeaders().setETag(etag);
+            }
+            if (cacheControl != null) {
+                response.getHeaders().setCacheControl(cacheControl);
+            }
+            if (setCookie) {
+                response.getHeaders().add(HttpHeaders.SET_COOKIE, "session=1");
+            }
+            if (body == null) {
+                return response.setComplete();
+            }
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cleosilva.api_gateway.filter;
+
+import cleosilva.api_gateway.auth.TokenVerifier;
+import cleosilva.api_gateway.auth.VerifiedToken;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenValidationFilterTest {
+
+    private final TokenVerifier tokenVerifier = mock(TokenVerifier.class);
+    private final TokenValidationFilter filter = new TokenValidationFilter(tokenVerifier);
+
+    @Test
+    @DisplayName("Should forward the token subject as the client id, replacing any value sent by the client")
+    void shouldForwardSubjectAsClientId() {
+        when(tokenVerifier.verify("alice-token")).thenReturn(new VerifiedToken("alice", Instant.MAX));
+
+        assertEquals("alice", forwardedClientId(MockServerHttpRequest.put("/products/1")
+                .header("Authorization", "Bearer alice-token")
+                .header(TokenValidationFilter.CLIENT_ID_HEADER, "bob")));
+    }
+
+    @Test
+    @DisplayName("Should forward the remote address as the client id in static token mode")
+    void shouldForwardRemoteAddressWithoutSubject() {
+        when(tokenVerifier.verify("shared")).thenReturn(new VerifiedToken(null, Instant.MAX));
+
+        assertEquals("10.0.0.7", forwardedClientId(MockServerHttpRequest.put("/products/1")
+                .header("Authorization", "Bearer shared")
+                .remoteAddress(new InetSocketAddress("10.0.0.7", 40_000))));
+    }
+
+    private String forwardedClientId(MockServerHttpRequest.BaseBuilder<?> request) {
+        AtomicReference<String> clientId = new AtomicReference<>();
+        filter.filter(MockServerWebExchange.from(request), exchange -> {
+            clientId.set(exchange.getRequest().getHeaders().getFirst(TokenValidationFilter.CLIENT_ID_HEADER));
+            return Mono.empty();
+        }).block();
+        return clientId.get();
+    }
+}
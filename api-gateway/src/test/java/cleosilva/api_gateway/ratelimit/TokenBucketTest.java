@@ -0,0 +1,96 @@
+package cleosilva.api_gateway.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final int THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    @Test
+    @DisplayName("Should allow a full burst, then one request per emission interval")
+    void shouldRefillAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+
+        assertEquals(2, bucket.tryAcquire(0));
+        assertEquals(1, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        long denied = bucket.tryAcquire(0);
+        assertEquals(-TimeUnit.MILLISECONDS.toNanos(100), denied);
+
+        assertEquals(0, bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertTrue(bucket.tryAcquire(TimeUnit.MILLISECONDS.toNanos(100)) < 0);
+        // Parado por muito tempo não acumula além da capacidade
+        assertEquals(2, bucket.tryAcquire(TimeUnit.SECONDS.toNanos(60)));
+    }
+
+    @Test
+    @DisplayName("Concurrent callers should never get more than the burst while time stands still")
+    void shouldHoldBurstUnderContention() throws Exception {
+        int capacity = 1_000;
+        TokenBucket bucket = new TokenBucket(capacity, 1, 0);
+
+        long allowed = hammer(THREADS, 20_000, () -> 0L, bucket);
+
+        assertEquals(capacity, allowed);
+    }
+
+    @Test
+    @DisplayName("Concurrent callers should stay within burst plus refill over a real time window")
+    void shouldHoldRateUnderContention() throws Exception {
+        int capacity = 100;
+        double rate = 2_000;
+        long start = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(capacity, rate, start);
+
+        long allowed = hammer(THREADS, 50_000, System::nanoTime, bucket);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long ceiling = capacity + (long) Math.ceil(rate * elapsedSeconds);
+        assertTrue(allowed <= ceiling, "allowed=" + allowed + " ceiling=" + ceiling);
+        assertTrue(allowed >= capacity);
+    }
+
+    // Cada thread faz perThread tentativas, todas começando juntas; devolve quantas foram aceitas
+    private static long hammer(int threads, int perThread, LongSupplier clock, TokenBucket bucket)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong allowed = new AtomicLong();
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    long mine = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        if (bucket.tryAcquire(clock.getAsLong()) >= 0) {
+                            mine++;
+                        }
+                    }
+                    allowed.addAndGet(mine);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return allowed.get();
+    }
+}
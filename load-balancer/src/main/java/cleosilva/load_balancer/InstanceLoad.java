@@ -0,0 +1,61 @@
+package cleosilva.load_balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga observada de uma instância: latência por peak-EWMA e requisições em andamento.
+ * <p>
+ * Uma amostra acima da média a substitui na hora (uma pausa de GC ou uma instância que ficou lenta pesa já na
+ * próxima escolha); abaixo dela, a média desce aos poucos, com peso que depende do tempo desde a última
+ * amostra ({@code decayNanos} é a constante de tempo). Sem amostras novas a média também decai na leitura, para
+ * que uma instância evitada volte a ser testada de tempos em tempos e possa mostrar que se recuperou.
+ */
+final class InstanceLoad {
+
+    private final long decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile double ewmaNanos;
+    private volatile long lastSample;
+    private volatile boolean sampled;
+
+    InstanceLoad(long initialLatencyNanos, long decayNanos, long now) {
+        this.decayNanos = decayNanos;
+        this.ewmaNanos = initialLatencyNanos;
+        this.lastSample = now;
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    /** Fim sem amostra (requisição cancelada): só deixa de contar como pendente. */
+    void release() {
+        outstanding.updateAndGet(count -> Math.max(0, count - 1));
+    }
+
+    synchronized void complete(long latencyNanos, long now) {
+        release();
+        if (!sampled || latencyNanos > ewmaNanos) {
+            ewmaNanos = latencyNanos;
+            sampled = true;
+        } else {
+            double weight = Math.exp(-(double) Math.max(0, now - lastSample) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastSample = now;
+    }
+
+    /** Custo de mandar mais uma requisição: latência esperada vezes a fila que ela vai encontrar. */
+    double cost(long now) {
+        double latency = ewmaNanos * Math.exp(-(double) Math.max(0, now - lastSample) / decayNanos);
+        return latency * (outstanding.get() + 1);
+    }
+
+    int outstanding() {
+        return outstanding.get();
+    }
+
+    double latencyNanos() {
+        return ewmaNanos;
+    }
+}
@@ -0,0 +1,94 @@
+package cleosilva.load_balancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Carga de cada instância de um serviço, alimentada pelos tempos reais das chamadas
+ * ({@link LatencyRecordingLifecycle}) e lida pelo {@link LatencyAwareLoadBalancer}. Há um por serviço, no
+ * contexto de cliente que o Spring Cloud LoadBalancer cria para ele.
+ * <p>
+ * Falhas (exceção ou 5xx) entram como uma amostra de {@code failurePenalty}, para que uma instância que só
+ * responde erro rápido não pareça a mais rápida.
+ */
+public class InstanceLoadTracker {
+
+    private final long initialLatencyNanos;
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final LongSupplier clock;
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+
+    public InstanceLoadTracker(Duration initialLatency, Duration decayTime, Duration failurePenalty) {
+        this(initialLatency, decayTime, failurePenalty, System::nanoTime);
+    }
+
+    InstanceLoadTracker(Duration initialLatency, Duration decayTime, Duration failurePenalty, LongSupplier clock) {
+        this.initialLatencyNanos = initialLatency.toNanos();
+        this.decayNanos = Math.max(1, decayTime.toNanos());
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.clock = clock;
+    }
+
+    public void begin(ServiceInstance instance) {
+        load(instance).begin();
+    }
+
+    public void complete(ServiceInstance instance, long latencyNanos, boolean failed) {
+        long sample = failed ? Math.max(latencyNanos, failurePenaltyNanos) : latencyNanos;
+        load(instance).complete(sample, clock.getAsLong());
+    }
+
+    /** Requisição que terminou sem resposta medida (cancelada pelo cliente). */
+    public void release(ServiceInstance instance) {
+        load(instance).release();
+    }
+
+    public double cost(ServiceInstance instance) {
+        return load(instance).cost(clock.getAsLong());
+    }
+
+    public int outstanding(ServiceInstance instance) {
+        return load(instance).outstanding();
+    }
+
+    /** Latência média (peak-EWMA) atual da instância, em nanos. */
+    public double latencyNanos(ServiceInstance instance) {
+        return load(instance).latencyNanos();
+    }
+
+    /**
+     * Esquece as instâncias que não estão em {@code instances}, a lista atual do registro. Só percorre as listas
+     * quando há mais instâncias acompanhadas do que registradas, o que no caso comum não acontece; assim o mapa
+     * nunca passa muito do tamanho do registro, mesmo com ids novos a cada deploy.
+     */
+    public void retain(Collection<ServiceInstance> instances) {
+        if (loads.size() <= instances.size()) {
+            return;
+        }
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            current.add(keyOf(instance));
+        }
+        loads.keySet().retainAll(current);
+    }
+
+    int trackedInstances() {
+        return loads.size();
+    }
+
+    private InstanceLoad load(ServiceInstance instance) {
+        return loads.computeIfAbsent(keyOf(instance), key -> new InstanceLoad(initialLatencyNanos, decayNanos, clock.getAsLong()));
+    }
+
+    private static String keyOf(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+}
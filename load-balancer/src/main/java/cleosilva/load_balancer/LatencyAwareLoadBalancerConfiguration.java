@@ -0,0 +1,55 @@
+package cleosilva.load_balancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Configuração por serviço do Spring Cloud LoadBalancer. Entra como padrão de todos os clientes com
+ * {@code @LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)}; não deve
+ * ser alcançada pelo component scan da aplicação, senão vira um bean global em vez de um por serviço.
+ * <p>
+ * Com {@code loadbalancing.latency-aware.enabled=false} os beans daqui não são criados e volta o round-robin
+ * padrão do Spring Cloud.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "loadbalancing.latency-aware.enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyAwareLoadBalancerConfiguration {
+
+    private static final String PREFIX = "loadbalancing.latency-aware.";
+
+    @Bean
+    @ConditionalOnMissingBean
+    public InstanceLoadTracker instanceLoadTracker(Environment environment) {
+        return new InstanceLoadTracker(
+                duration(environment, "initial-latency", "PT0.02S"),
+                duration(environment, "decay-time", "PT10S"),
+                duration(environment, "failure-penalty", "PT1S"));
+    }
+
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+                                                             LoadBalancerClientFactory loadBalancerClientFactory,
+                                                             InstanceLoadTracker instanceLoadTracker) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, instanceLoadTracker);
+    }
+
+    @Bean
+    public LatencyRecordingLifecycle latencyRecordingLifecycle(InstanceLoadTracker instanceLoadTracker) {
+        return new LatencyRecordingLifecycle(instanceLoadTracker);
+    }
+
+    // Texto ISO-8601 (PT10S), sem depender do conversor de Duration no contexto de cada cliente
+    private static Duration duration(Environment environment, String key, String defaultValue) {
+        return Duration.parse(environment.getProperty(PREFIX + key, defaultValue));
+    }
+}
@@ -0,0 +1,64 @@
+package cleosilva.load_balancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+/**
+ * Alimenta o {@link InstanceLoadTracker} com o tempo real de cada chamada balanceada: o gateway
+ * ({@code ReactiveLoadBalancerClientFilter}) e o Feign ({@code FeignBlockingLoadBalancerClient}) chamam os
+ * lifecycles do contexto do serviço no início e no fim de cada requisição. O início fica no
+ * {@link TimedRequestContext} da própria requisição; o do {@code MicrometerStatsLoadBalancerLifecycle}, se ele
+ * estiver ativo, é reaproveitado.
+ */
+public class LatencyRecordingLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceLoadTracker tracker;
+
+    public LatencyRecordingLifecycle(InstanceLoadTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed && timed.getRequestStartTime() == 0) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        tracker.begin(lbResponse.getServer());
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        Request<Object> request = completionContext.getLoadBalancerRequest();
+        long start = request != null && request.getContext() instanceof TimedRequestContext timed ? timed.getRequestStartTime() : 0;
+        if (start == 0) {
+            tracker.release(instance);
+            return;
+        }
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || (completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        tracker.complete(instance, System.nanoTime() - start, failed);
+    }
+}
@@ -0,0 +1,71 @@
+package cleosilva.load_balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceLoadTrackerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * MS);
+    private final InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofMillis(20), Duration.ofSeconds(10),
+            Duration.ofSeconds(1), now::get);
+    private final ServiceInstance instance = new DefaultServiceInstance("catalog-1", "products-catalog", "10.0.0.1", 8100, false);
+
+    @Test
+    @DisplayName("Should jump to a latency peak at once and come down gradually")
+    void shouldTrackPeaksImmediately() {
+        sample(5 * MS);
+        assertEquals(5 * MS, tracker.latencyNanos(instance), 1);
+
+        sample(200 * MS);
+        assertEquals(200 * MS, tracker.latencyNanos(instance), 1);
+
+        now.addAndGet(1_000 * MS);
+        sample(5 * MS);
+        double afterOneSecond = tracker.latencyNanos(instance);
+        assertTrue(afterOneSecond < 200 * MS && afterOneSecond > 150 * MS, "ewma " + afterOneSecond);
+    }
+
+    @Test
+    @DisplayName("Should multiply the cost by the requests already in flight")
+    void shouldWeighOutstandingRequests() {
+        sample(10 * MS);
+        double idle = tracker.cost(instance);
+
+        tracker.begin(instance);
+        tracker.begin(instance);
+
+        assertEquals(3 * idle, tracker.cost(instance), idle * 1e-6);
+        tracker.release(instance);
+        tracker.release(instance);
+        tracker.release(instance);
+        assertEquals(0, tracker.outstanding(instance));
+    }
+
+    @Test
+    @DisplayName("Should count fast failures as slow samples and forget them while idle")
+    void shouldPenaliseFailuresAndDecayWhileIdle() {
+        tracker.begin(instance);
+        tracker.complete(instance, 2 * MS, true);
+        assertEquals(1_000 * MS, tracker.latencyNanos(instance), 1);
+
+        double right = tracker.cost(instance);
+        now.addAndGet(30_000 * MS);
+
+        assertTrue(tracker.cost(instance) < right / 10, "cost should decay while the instance gets no traffic");
+    }
+
+    private void sample(long latencyNanos) {
+        tracker.begin(instance);
+        tracker.complete(instance, latencyNanos, false);
+    }
+}
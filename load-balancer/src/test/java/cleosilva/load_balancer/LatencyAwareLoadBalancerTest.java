@@ -0,0 +1,104 @@
+package cleosilva.load_balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyAwareLoadBalancerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ServiceInstance fast = new DefaultServiceInstance("catalog-1", "products-catalog", "10.0.0.1", 8100, false);
+    private final ServiceInstance slow = new DefaultServiceInstance("catalog-2", "products-catalog", "10.0.0.2", 8100, false);
+    private final InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofMillis(20), Duration.ofSeconds(10),
+            Duration.ofSeconds(1));
+    private final Random random = new Random(7);
+
+    @Test
+    @DisplayName("Should pick the cheaper of two instances")
+    void shouldPickCheaperInstance() {
+        LatencyAwareLoadBalancer balancer = balancer(List.of(fast, slow));
+        record(fast, 5 * MS);
+        record(slow, 200 * MS);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(fast, balancer.choose(new DefaultRequest<>()).block().getServer());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to the slow instance once the fast one is loaded enough")
+    void shouldSpillOverWhenFastInstanceIsBusy() {
+        LatencyAwareLoadBalancer balancer = balancer(List.of(fast, slow));
+        record(fast, 5 * MS);
+        record(slow, 50 * MS);
+
+        for (int i = 0; i < 10; i++) {
+            tracker.begin(fast);
+        }
+
+        assertEquals(slow, balancer.choose(new DefaultRequest<>()).block().getServer());
+    }
+
+    @Test
+    @DisplayName("Should answer empty without instances and record timings through the lifecycle")
+    void shouldHandleEmptyListAndRecordThroughLifecycle() throws InterruptedException {
+        assertFalse(balancer(List.of()).choose(new DefaultRequest<>()).block().hasServer());
+
+        LatencyRecordingLifecycle lifecycle = new LatencyRecordingLifecycle(tracker);
+        Request<Object> request = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> chosen = new DefaultResponse(slow);
+
+        lifecycle.onStartRequest(request, chosen);
+        assertEquals(1, tracker.outstanding(slow));
+        Thread.sleep(20);
+        lifecycle.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, chosen));
+
+        assertEquals(0, tracker.outstanding(slow));
+        assertTrue(tracker.latencyNanos(slow) >= 20 * MS, "latency " + tracker.latencyNanos(slow));
+    }
+
+    @Test
+    @DisplayName("Should forget instances that left the registry")
+    void shouldEvictInstancesGoneFromRegistry() {
+        ServiceInstance replacement = new DefaultServiceInstance("catalog-3", "products-catalog", "10.0.0.3", 8100, false);
+        balancer(List.of(fast, slow)).choose(new DefaultRequest<>()).block();
+        assertEquals(2, tracker.trackedInstances());
+
+        LatencyAwareLoadBalancer afterDeploy = balancer(List.of(fast, replacement));
+        for (int i = 0; i < 10; i++) {
+            afterDeploy.choose(new DefaultRequest<>()).block();
+        }
+
+        assertEquals(2, tracker.trackedInstances());
+    }
+
+    private LatencyAwareLoadBalancer balancer(List<ServiceInstance> instances) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("supplier", ServiceInstanceListSuppliers.from("products-catalog", instances.toArray(ServiceInstance[]::new)));
+        return new LatencyAwareLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                "products-catalog", tracker, () -> random);
+    }
+
+    private void record(ServiceInstance instance, long latencyNanos) {
+        tracker.begin(instance);
+        tracker.complete(instance, latencyNanos, false);
+    }
+}
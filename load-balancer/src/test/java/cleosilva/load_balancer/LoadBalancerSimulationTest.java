@@ -0,0 +1,136 @@
+package cleosilva.load_balancer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulação de eventos discretos, em tempo virtual: três instâncias rápidas e uma lenta (como uma em pausas de
+ * GC), cada uma com 4 workers, recebendo chegadas de Poisson. O mesmo tráfego, com as mesmas sementes, passa
+ * pelo {@code RoundRobinLoadBalancer} do Spring Cloud e pelo {@link LatencyAwareLoadBalancer}; este recebe o
+ * tempo de cada resposta no instante em que ela termina, como receberia do lifecycle. Determinística: não
+ * depende de threads nem do relógio da máquina.
+ */
+class LoadBalancerSimulationTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int REQUESTS = 20_000;
+    private static final double ARRIVALS_PER_MS = 0.2;
+    private static final int WORKERS = 4;
+
+    private final List<ServiceInstance> instances = List.of(
+            instance("catalog-1"), instance("catalog-2"), instance("catalog-3"), instance("catalog-slow"));
+
+    @Test
+    @DisplayName("Latency-aware balancing should cut p99 compared with round-robin when one instance is slow")
+    void latencyAwareShouldBeatRoundRobinTail() {
+        Result roundRobin = simulate(new RoundRobinLoadBalancer(suppliers(), "products-catalog", 0), null);
+        AtomicLong clock = new AtomicLong();
+        InstanceLoadTracker tracker = new InstanceLoadTracker(Duration.ofMillis(20), Duration.ofSeconds(10),
+                Duration.ofSeconds(1), clock::get);
+        Random random = new Random(11);
+        Result latencyAware = simulate(new LatencyAwareLoadBalancer(suppliers(), "products-catalog", tracker, () -> random),
+                new Feedback(tracker, clock));
+
+        assertTrue(latencyAware.percentile(99) * 2 < roundRobin.percentile(99),
+                "p99 latency-aware=" + latencyAware.percentile(99) + " round-robin=" + roundRobin.percentile(99));
+        assertTrue(latencyAware.slowShare() < roundRobin.slowShare() / 2);
+    }
+
+    private Result simulate(ReactorServiceInstanceLoadBalancer balancer, Feedback feedback) {
+        Random traffic = new Random(42);
+        Map<ServiceInstance, long[]> workers = new HashMap<>();
+        instances.forEach(instance -> workers.put(instance, new long[WORKERS]));
+        PriorityQueue<Completion> completions = new PriorityQueue<>();
+        long[] latencies = new long[REQUESTS];
+        int onSlow = 0;
+
+        long now = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            now += (long) (-Math.log(1 - traffic.nextDouble()) / ARRIVALS_PER_MS * MS);
+            long serviceTime = serviceTime(traffic);
+            // Entrega ao balanceador as respostas que terminaram antes desta chegada
+            while (!completions.isEmpty() && completions.peek().at() <= now) {
+                Completion done = completions.poll();
+                if (feedback != null) {
+                    feedback.clock().set(done.at());
+                    feedback.tracker().complete(done.instance(), done.latency(), false);
+                }
+            }
+            if (feedback != null) {
+                feedback.clock().set(now);
+            }
+
+            ServiceInstance chosen = balancer.choose(new DefaultRequest<>()).block().getServer();
+            boolean slow = chosen.getInstanceId().equals("catalog-slow");
+            long[] free = workers.get(chosen);
+            int worker = 0;
+            for (int w = 1; w < free.length; w++) {
+                if (free[w] < free[worker]) {
+                    worker = w;
+                }
+            }
+            long finish = Math.max(now, free[worker]) + (slow ? serviceTime * 10 : serviceTime);
+            free[worker] = finish;
+            latencies[i] = finish - now;
+            onSlow += slow ? 1 : 0;
+            if (feedback != null) {
+                feedback.tracker().begin(chosen);
+                completions.add(new Completion(finish, chosen, finish - now));
+            }
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, (double) onSlow / REQUESTS);
+    }
+
+    // 3 ms fixos mais uma cauda exponencial de média 2 ms; a instância lenta leva 10 vezes isso
+    private static long serviceTime(Random random) {
+        return 3 * MS + (long) (-Math.log(1 - random.nextDouble()) * 2 * MS);
+    }
+
+    private ObjectProvider<ServiceInstanceListSupplier> suppliers() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("supplier", ServiceInstanceListSuppliers.from("products-catalog", instances.toArray(ServiceInstance[]::new)));
+        return beanFactory.getBeanProvider(ServiceInstanceListSupplier.class);
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, "products-catalog", id, 8100, false);
+    }
+
+    private record Feedback(InstanceLoadTracker tracker, AtomicLong clock) {}
+
+    private record Completion(long at, ServiceInstance instance, long latency) implements Comparable<Completion> {
+        @Override
+        public int compareTo(Completion other) {
+            return Long.compare(at, other.at);
+        }
+    }
+
+    private record Result(long[] sortedLatencies, double slowShare) {
+        double percentile(int p) {
+            int index = (int) Math.ceil(p / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / (double) MS;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package cleosilva.order_events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.List;
+
+/**
+ * Recoverer do listener de eventos de pedido. Em vez de reentregar na própria thread, republica a
+ * mensagem na fila de espera da próxima tentativa ({@link OrderEventTopology#retryQueueName(int)}) e
+ * deixa o ack da original seguir. Esgotadas as tentativas, ou se a mensagem nem pôde ser convertida,
+ * ela vai para o parking lot.
+ * <p>
+ * Com listener de lote, uma falha entrega o lote inteiro; cada mensagem é encaminhada separadamente e o
+ * converter identifica as ilegíveis, para que uma mensagem ruim não arraste as outras para o parking lot.
+ */
+public class DelayedRetryMessageRecoverer implements MessageBatchRecoverer {
+
+    public static final String ATTEMPT_HEADER = "x-order-event-attempt";
+    public static final String EXCEPTION_HEADER = "x-exception-message";
+
+    private static final Logger log = LoggerFactory.getLogger(DelayedRetryMessageRecoverer.class);
+
+    private final AmqpTemplate amqpTemplate;
+    private final int maxRetries;
+    private final MessageConverter messageConverter;
+
+    public DelayedRetryMessageRecoverer(AmqpTemplate amqpTemplate, OrderEventTopology topology,
+                                        MessageConverter messageConverter) {
+        this.amqpTemplate = amqpTemplate;
+        this.maxRetries = topology.maxRetries();
+        this.messageConverter = messageConverter;
+    }
+
+    @Override
+    public void recover(Message message, Throwable cause) {
+        if (isConversionFailure(cause)) {
+            throw new AmqpRejectAndDontRequeueException("Unreadable order event", cause);
+        }
+        if (!scheduleRetry(message, cause)) {
+            log.warn("Order event failed after {} retries, parking it: {}", maxRetries, cause.getMessage());
+            throw new AmqpRejectAndDontRequeueException("Order event retries exhausted", cause);
+        }
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        int parked = 0;
+        for (Message message : messages) {
+            if (!isReadable(message) || !scheduleRetry(message, cause)) {
+                amqpTemplate.send(OrderEventTopology.DEAD_LETTER_EXCHANGE_NAME,
+                        OrderEventTopology.PARKING_LOT_ROUTING_KEY, message);
+                parked++;
+            }
+        }
+        log.warn("Order event batch of {} failed ({} parked, the rest scheduled for retry): {}",
+                messages.size(), parked, cause.getMessage());
+    }
+
+    private boolean scheduleRetry(Message message, Throwable cause) {
+        int attempt = attempt(message) + 1;
+        if (attempt > maxRetries) {
+            return false;
+        }
+        message.getMessageProperties().setHeader(ATTEMPT_HEADER, attempt);
+        message.getMessageProperties().setHeader(EXCEPTION_HEADER, String.valueOf(cause.getMessage()));
+        amqpTemplate.send(OrderEventTopology.RETRY_EXCHANGE_NAME, OrderEventTopology.retryRoutingKey(attempt), message);
+        log.debug("Order event scheduled for retry {} of {}", attempt, maxRetries);
+        return true;
+    }
+
+    private boolean isReadable(Message message) {
+        message.getMessageProperties().setInferredArgumentType(OrderCreatedEvent.class);
+        try {
+            return messageConverter.fromMessage(message) instanceof OrderCreatedEvent;
+        } catch (MessageConversionException e) {
+            return false;
+        }
+    }
+
+    private static int attempt(Message message) {
+        Object header = message.getMessageProperties().getHeader(ATTEMPT_HEADER);
+        return header instanceof Number number ? number.intValue() : 0;
+    }
+
+    private static boolean isConversionFailure(Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof MessageConversionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+package cleosilva.order_events;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Evento publicado pelo order-simulator a cada simulação de pedido e consumido pelo product-catalog.
+ * É o schema compartilhado pelos dois lados: qualquer campo novo exige uma nova versão em
+ * {@link OrderCreatedEventCodec}.
+ */
+public record OrderCreatedEvent(List<Item> items, BigDecimal totalAmount, List<Long> productsNotFound,
+                                List<Long> productsUnresolved) {
+
+    public OrderCreatedEvent {
+        items = items == null ? List.of() : List.copyOf(items);
+        productsNotFound = productsNotFound == null ? List.of() : List.copyOf(productsNotFound);
+        productsUnresolved = productsUnresolved == null ? List.of() : List.copyOf(productsUnresolved);
+    }
+
+    public record Item(long productId, int quantity, BigDecimal unitPrice) { }
+}
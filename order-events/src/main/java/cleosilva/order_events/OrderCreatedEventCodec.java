@@ -0,0 +1,182 @@
+package cleosilva.order_events;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codificação binária compacta de {@link OrderCreatedEvent}. Não há nomes de campo no fio: a ordem é
+ * fixada pela versão do schema, gravada no primeiro byte.
+ * <p>
+ * Schema v1:
+ * <pre>
+ * version:u8
+ * items:        count:varint, (productId:varint, quantity:varint, unitPrice:decimal)*
+ * totalAmount:  decimal
+ * notFound:     count:varint, productId:varint*
+ * unresolved:   count:varint, productId:varint*
+ * </pre>
+ * {@code decimal} é {@code zigzag(scale) + 1} em varint (0 representa {@code null}) seguido do valor
+ * sem escala em zigzag varint. Preços cujo valor sem escala não cabe em um {@code long} são rejeitados.
+ */
+public final class OrderCreatedEventCodec {
+
+    public static final byte SCHEMA_V1 = 1;
+
+    private OrderCreatedEventCodec() {
+    }
+
+    public static byte[] encode(OrderCreatedEvent event) {
+        Writer out = new Writer(16 + event.items().size() * 8);
+        out.writeByte(SCHEMA_V1);
+        out.writeVarLong(event.items().size());
+        for (OrderCreatedEvent.Item item : event.items()) {
+            out.writeVarLong(item.productId());
+            out.writeVarLong(item.quantity());
+            out.writeDecimal(item.unitPrice());
+        }
+        out.writeDecimal(event.totalAmount());
+        out.writeIds(event.productsNotFound());
+        out.writeIds(event.productsUnresolved());
+        return out.toByteArray();
+    }
+
+    public static OrderCreatedEvent decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int version = in.readByte();
+        if (version != SCHEMA_V1) {
+            throw new IllegalArgumentException("Unsupported order event schema version " + version);
+        }
+        int itemCount = in.readCount();
+        List<OrderCreatedEvent.Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            long productId = in.readVarLong();
+            int quantity = Math.toIntExact(in.readVarLong());
+            items.add(new OrderCreatedEvent.Item(productId, quantity, in.readDecimal()));
+        }
+        BigDecimal totalAmount = in.readDecimal();
+        List<Long> notFound = in.readIds();
+        List<Long> unresolved = in.readIds();
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("Trailing bytes after order event");
+        }
+        return new OrderCreatedEvent(items, totalAmount, notFound, unresolved);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        Writer(int initialCapacity) {
+            buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            BigInteger unscaled = value.unscaledValue();
+            if (unscaled.bitLength() > 63) {
+                throw new IllegalArgumentException("Decimal out of range for the binary order event: " + value);
+            }
+            writeVarLong(zigzag(value.scale()) + 1);
+            writeVarLong(zigzag(unscaled.longValue()));
+        }
+
+        void writeIds(List<Long> ids) {
+            writeVarLong(ids.size());
+            for (Long id : ids) {
+                writeVarLong(id);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        int readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("Truncated order event");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in order event");
+        }
+
+        // Cada elemento ocupa ao menos um byte: um count maior que o restante do buffer é corrupção
+        int readCount() {
+            long count = readVarLong();
+            if (count < 0 || count > remaining()) {
+                throw new IllegalArgumentException("Invalid element count " + count + " in order event");
+            }
+            return (int) count;
+        }
+
+        BigDecimal readDecimal() {
+            long scaleTag = readVarLong();
+            if (scaleTag == 0) {
+                return null;
+            }
+            int scale = Math.toIntExact(unzigzag(scaleTag - 1));
+            return BigDecimal.valueOf(unzigzag(readVarLong()), scale);
+        }
+
+        List<Long> readIds() {
+            int count = readCount();
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(readVarLong());
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package cleosilva.order_events;
+
+public final class OrderEventContentTypes {
+
+    public static final String BINARY_V1 = "application/vnd.cleosilva.order-event.v1+binary";
+    public static final String JSON = "application/json";
+
+    private OrderEventContentTypes() {
+    }
+}
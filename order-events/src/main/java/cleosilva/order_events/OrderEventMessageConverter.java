@@ -0,0 +1,83 @@
+package cleosilva.order_events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converte {@link OrderCreatedEvent} de e para mensagens AMQP. Na publicação usa o formato configurado;
+ * na leitura decide pelo content type, então produtores antigos (JSON em {@code text/plain}) e novos
+ * (binário ou {@code application/json}) convivem na mesma fila durante um rollout. Qualquer outro
+ * payload segue para o {@link SimpleMessageConverter}, como antes.
+ */
+public class OrderEventMessageConverter implements MessageConverter {
+
+    private final OrderEventWireFormat wireFormat;
+    private final ObjectMapper objectMapper;
+    private final SimpleMessageConverter fallback = new SimpleMessageConverter();
+
+    public OrderEventMessageConverter(OrderEventWireFormat wireFormat, ObjectMapper objectMapper) {
+        this.wireFormat = wireFormat;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (!(object instanceof OrderCreatedEvent event)) {
+            return fallback.toMessage(object, messageProperties);
+        }
+        byte[] body;
+        if (wireFormat == OrderEventWireFormat.BINARY) {
+            body = OrderCreatedEventCodec.encode(event);
+        } else {
+            try {
+                body = objectMapper.writeValueAsBytes(event);
+            } catch (IOException e) {
+                throw new MessageConversionException("Could not write order event as JSON", e);
+            }
+            messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        }
+        messageProperties.setContentType(wireFormat.contentType());
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String contentType = properties.getContentType();
+        try {
+            if (OrderEventContentTypes.BINARY_V1.equals(contentType)) {
+                return OrderCreatedEventCodec.decode(message.getBody());
+            }
+            if (isJson(contentType) || expectsOrderEvent(properties) && isText(contentType)) {
+                return objectMapper.readValue(message.getBody(), OrderCreatedEvent.class);
+            }
+        } catch (IOException | IllegalArgumentException | ArithmeticException e) {
+            throw new MessageConversionException("Could not read order event with content type " + contentType, e);
+        }
+        return fallback.fromMessage(message);
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && contentType.startsWith(OrderEventContentTypes.JSON);
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType == null || contentType.startsWith("text/plain");
+    }
+
+    // O listener adapter informa o tipo do parâmetro antes de converter: só o JSON legado em texto
+    // destinado a um OrderCreatedEvent é lido pelo Jackson, listeners de String continuam recebendo String
+    private static boolean expectsOrderEvent(MessageProperties properties) {
+        Type inferred = properties.getInferredArgumentType();
+        return OrderCreatedEvent.class.equals(inferred);
+    }
+}
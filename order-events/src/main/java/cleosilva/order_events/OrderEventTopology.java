@@ -0,0 +1,103 @@
+package cleosilva.order_events;
+
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.ExchangeBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Topologia dos eventos de pedido, declarada da mesma forma pelo publicador e pelo consumidor.
+ * <ul>
+ *   <li>{@code order.events} (topic) roteia {@code order.created} para a fila principal, durável
+ *   (quorum por padrão) e limitada por {@code max-length} com a política de {@code overflow}.</li>
+ *   <li>Mensagens rejeitadas sem requeue (ou descartadas por {@code drop-head}) vão pelo DLX
+ *   {@code order.events.dlx} para a fila de parking lot, onde ficam para inspeção manual.</li>
+ *   <li>Cada tentativa de retry tem uma fila de espera com TTL em {@code order.events.retry}; ao expirar,
+ *   a mensagem volta para a fila principal pelo exchange padrão, sem ocupar a thread do listener.</li>
+ * </ul>
+ * O RabbitMQ recusa redeclarar uma fila com argumentos diferentes, então os mesmos valores devem valer
+ * nos dois serviços.
+ */
+public final class OrderEventTopology {
+
+    public static final String EXCHANGE_NAME = "order.events";
+    public static final String QUEUE_NAME = "order.created.queue";
+    public static final String ROUTING_KEY = "order.created";
+
+    public static final String DEAD_LETTER_EXCHANGE_NAME = "order.events.dlx";
+    public static final String PARKING_LOT_QUEUE_NAME = "order.created.parking-lot";
+    public static final String PARKING_LOT_ROUTING_KEY = "order.created.parking-lot";
+
+    public static final String RETRY_EXCHANGE_NAME = "order.events.retry";
+
+    public enum QueueType { CLASSIC, QUORUM }
+
+    private final QueueType queueType;
+    private final long maxLength;
+    private final String overflow;
+    private final List<Duration> retryDelays;
+
+    public OrderEventTopology(QueueType queueType, long maxLength, String overflow, List<Duration> retryDelays) {
+        this.queueType = queueType;
+        this.maxLength = maxLength;
+        this.overflow = overflow;
+        this.retryDelays = List.copyOf(retryDelays);
+    }
+
+    /** Quantidade de reentregas via fila de espera antes de a mensagem ir para o parking lot. */
+    public int maxRetries() {
+        return retryDelays.size();
+    }
+
+    public static String retryQueueName(int attempt) {
+        return QUEUE_NAME + ".retry." + attempt;
+    }
+
+    public static String retryRoutingKey(int attempt) {
+        return ROUTING_KEY + ".retry." + attempt;
+    }
+
+    public Declarables declarables() {
+        List<Declarable> declarables = new ArrayList<>();
+
+        TopicExchange exchange = ExchangeBuilder.topicExchange(EXCHANGE_NAME).durable(true).build();
+        DirectExchange deadLetterExchange = ExchangeBuilder.directExchange(DEAD_LETTER_EXCHANGE_NAME).durable(true).build();
+        DirectExchange retryExchange = ExchangeBuilder.directExchange(RETRY_EXCHANGE_NAME).durable(true).build();
+        declarables.add(exchange);
+        declarables.add(deadLetterExchange);
+        declarables.add(retryExchange);
+
+        QueueBuilder queueBuilder = QueueBuilder.durable(QUEUE_NAME)
+                .deadLetterExchange(DEAD_LETTER_EXCHANGE_NAME)
+                .deadLetterRoutingKey(PARKING_LOT_ROUTING_KEY)
+                .maxLength(maxLength)
+                .withArgument("x-overflow", overflow);
+        Queue queue = (queueType == QueueType.QUORUM ? queueBuilder.quorum() : queueBuilder).build();
+        declarables.add(queue);
+        declarables.add(BindingBuilder.bind(queue).to(exchange).with(ROUTING_KEY));
+
+        Queue parkingLot = QueueBuilder.durable(PARKING_LOT_QUEUE_NAME).build();
+        declarables.add(parkingLot);
+        declarables.add(BindingBuilder.bind(parkingLot).to(deadLetterExchange).with(PARKING_LOT_ROUTING_KEY));
+
+        for (int attempt = 1; attempt <= retryDelays.size(); attempt++) {
+            // Ao expirar o TTL a mensagem é dead-letterada direto na fila principal (exchange padrão)
+            Queue retryQueue = QueueBuilder.durable(retryQueueName(attempt))
+                    .ttl(Math.toIntExact(retryDelays.get(attempt - 1).toMillis()))
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(QUEUE_NAME)
+                    .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange).with(retryRoutingKey(attempt)));
+        }
+        return new Declarables(declarables);
+    }
+}
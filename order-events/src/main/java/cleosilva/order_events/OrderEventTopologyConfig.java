@@ -0,0 +1,31 @@
+package cleosilva.order_events;
+
+import org.springframework.amqp.core.Declarables;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Importada pelo {@code RabbitMQConfig} de cada serviço; os valores padrão ficam aqui para que os dois
+ * lados declarem a fila com os mesmos argumentos.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OrderEventTopologyConfig {
+
+    @Bean
+    public OrderEventTopology orderEventTopology(
+            @Value("${order.events.topology.queue-type:QUORUM}") OrderEventTopology.QueueType queueType,
+            @Value("${order.events.topology.max-length:100000}") long maxLength,
+            @Value("${order.events.topology.overflow:reject-publish}") String overflow,
+            @Value("${order.events.topology.retry-delays:PT1S,PT10S,PT1M}") List<Duration> retryDelays) {
+        return new OrderEventTopology(queueType, maxLength, overflow, retryDelays);
+    }
+
+    @Bean
+    public Declarables orderEventDeclarables(OrderEventTopology orderEventTopology) {
+        return orderEventTopology.declarables();
+    }
+}
@@ -0,0 +1,17 @@
+package cleosilva.order_events;
+
+/** Formato usado pelo publicador; o consumidor aceita os dois, escolhendo pelo content type. */
+public enum OrderEventWireFormat {
+    BINARY(OrderEventContentTypes.BINARY_V1),
+    JSON(OrderEventContentTypes.JSON);
+
+    private final String contentType;
+
+    OrderEventWireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,86 @@
+package cleosilva.order_events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DelayedRetryMessageRecovererTest {
+
+    private final AmqpTemplate amqpTemplate = mock(AmqpTemplate.class);
+    private final DelayedRetryMessageRecoverer recoverer = new DelayedRetryMessageRecoverer(amqpTemplate,
+            new OrderEventTopology(OrderEventTopology.QueueType.QUORUM, 1000, "reject-publish",
+                    List.of(Duration.ofSeconds(1), Duration.ofSeconds(10))),
+            new OrderEventMessageConverter(OrderEventWireFormat.BINARY, new ObjectMapper()));
+
+    private static Message message(Integer attempt) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(OrderEventContentTypes.BINARY_V1);
+        if (attempt != null) {
+            properties.setHeader(DelayedRetryMessageRecoverer.ATTEMPT_HEADER, attempt);
+        }
+        byte[] body = OrderCreatedEventCodec.encode(new OrderCreatedEvent(List.of(), BigDecimal.ZERO, null, null));
+        return new Message(body, properties);
+    }
+
+    @Test
+    @DisplayName("Should republish a failed event to the delay queue of the next attempt")
+    void shouldRepublishToNextDelayQueue() {
+        Message message = message(1);
+
+        recoverer.recover(message, new IllegalStateException("database down"));
+
+        verify(amqpTemplate).send(OrderEventTopology.RETRY_EXCHANGE_NAME, OrderEventTopology.retryRoutingKey(2), message);
+        assertEquals(2, (Integer) message.getMessageProperties().getHeader(DelayedRetryMessageRecoverer.ATTEMPT_HEADER));
+        assertEquals("database down", message.getMessageProperties().getHeader(DelayedRetryMessageRecoverer.EXCEPTION_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should reject without requeue once the retries are exhausted")
+    void shouldRejectWhenRetriesExhausted() {
+        assertThrows(AmqpRejectAndDontRequeueException.class,
+                () -> recoverer.recover(message(2), new IllegalStateException("still down")));
+        verify(amqpTemplate, never()).send(any(), any(), any(Message.class));
+    }
+
+    @Test
+    @DisplayName("Should park unreadable events without retrying them")
+    void shouldParkUnreadableEvents() {
+        Message message = message(null);
+        ListenerExecutionFailedException failure = new ListenerExecutionFailedException("conversion",
+                new MessageConversionException("bad payload"), message);
+
+        assertThrows(AmqpRejectAndDontRequeueException.class, () -> recoverer.recover(message, failure));
+        verify(amqpTemplate, never()).send(any(), any(), any(Message.class));
+    }
+
+    @Test
+    @DisplayName("Should route each message of a failed batch on its own")
+    void shouldRouteEachMessageOfFailedBatch() {
+        Message fresh = message(null);
+        Message exhausted = message(2);
+        Message unreadable = new Message(new byte[]{9, 9}, message(null).getMessageProperties());
+
+        recoverer.recover(List.of(fresh, exhausted, unreadable), new IllegalStateException("database down"));
+
+        verify(amqpTemplate).send(OrderEventTopology.RETRY_EXCHANGE_NAME, OrderEventTopology.retryRoutingKey(1), fresh);
+        verify(amqpTemplate).send(OrderEventTopology.DEAD_LETTER_EXCHANGE_NAME,
+                OrderEventTopology.PARKING_LOT_ROUTING_KEY, exhausted);
+        verify(amqpTemplate).send(OrderEventTopology.DEAD_LETTER_EXCHANGE_NAME,
+                OrderEventTopology.PARKING_LOT_ROUTING_KEY, unreadable);
+        verifyNoMoreInteractions(amqpTemplate);
+    }
+}
@@ -0,0 +1,68 @@
+package cleosilva.order_events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCreatedEventCodecTest {
+
+    @Test
+    @DisplayName("Should preserve every field in a binary round trip")
+    void shouldRoundTripAllFields() {
+        OrderCreatedEvent event = new OrderCreatedEvent(
+                List.of(new OrderCreatedEvent.Item(1L, 2, new BigDecimal("10.50")),
+                        new OrderCreatedEvent.Item(Long.MAX_VALUE, 1, new BigDecimal("-3.1415")),
+                        new OrderCreatedEvent.Item(300L, 0, null)),
+                new BigDecimal("17.8585"),
+                List.of(99L, 100000L),
+                List.of(7L));
+
+        OrderCreatedEvent decoded = OrderCreatedEventCodec.decode(OrderCreatedEventCodec.encode(event));
+
+        assertEquals(event, decoded);
+        assertEquals(2, decoded.items().get(0).unitPrice().scale());
+    }
+
+    @Test
+    @DisplayName("Should encode an empty order in a few bytes")
+    void shouldEncodeEmptyOrderCompactly() {
+        byte[] bytes = OrderCreatedEventCodec.encode(new OrderCreatedEvent(List.of(), BigDecimal.ZERO, null, null));
+
+        assertEquals(6, bytes.length);
+        assertEquals(new OrderCreatedEvent(List.of(), BigDecimal.ZERO, List.of(), List.of()),
+                OrderCreatedEventCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown schema version")
+    void shouldRejectUnknownSchemaVersion() {
+        byte[] bytes = OrderCreatedEventCodec.encode(new OrderCreatedEvent(List.of(), null, null, null));
+        bytes[0] = 2;
+
+        assertThrows(IllegalArgumentException.class, () -> OrderCreatedEventCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("Should reject a truncated payload")
+    void shouldRejectTruncatedPayload() {
+        byte[] bytes = OrderCreatedEventCodec.encode(new OrderCreatedEvent(
+                List.of(new OrderCreatedEvent.Item(1L, 2, new BigDecimal("10.50"))), new BigDecimal("21.00"),
+                List.of(), List.of()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderCreatedEventCodec.decode(Arrays.copyOf(bytes, bytes.length - 2)));
+    }
+
+    @Test
+    @DisplayName("Should reject a price whose unscaled value does not fit in a long")
+    void shouldRejectOversizedDecimal() {
+        OrderCreatedEvent event = new OrderCreatedEvent(List.of(), new BigDecimal("1e30").setScale(2), null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> OrderCreatedEventCodec.encode(event));
+    }
+}
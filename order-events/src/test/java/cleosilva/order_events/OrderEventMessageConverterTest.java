@@ -0,0 +1,82 @@
+package cleosilva.order_events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventMessageConverterTest {
+
+    private static final OrderCreatedEvent EVENT = new OrderCreatedEvent(
+            List.of(new OrderCreatedEvent.Item(1L, 2, new BigDecimal("10.50"))),
+            new BigDecimal("21.00"), List.of(99L), List.of());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should write binary and read it back by content type")
+    void shouldWriteAndReadBinary() {
+        OrderEventMessageConverter converter = new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+
+        Message message = converter.toMessage(EVENT, new MessageProperties());
+
+        assertEquals(OrderEventContentTypes.BINARY_V1, message.getMessageProperties().getContentType());
+        assertEquals(EVENT, converter.fromMessage(message));
+    }
+
+    @Test
+    @DisplayName("Should write JSON when configured and still be readable by a binary consumer")
+    void shouldWriteJsonWhenConfigured() {
+        OrderEventMessageConverter jsonConverter = new OrderEventMessageConverter(OrderEventWireFormat.JSON, objectMapper);
+        OrderEventMessageConverter binaryConverter = new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+
+        Message message = jsonConverter.toMessage(EVENT, new MessageProperties());
+
+        assertEquals(OrderEventContentTypes.JSON, message.getMessageProperties().getContentType());
+        assertEquals(EVENT, binaryConverter.fromMessage(message));
+    }
+
+    @Test
+    @DisplayName("Should read legacy text/plain JSON when the listener expects an OrderCreatedEvent")
+    void shouldReadLegacyTextJsonForOrderEventListener() throws Exception {
+        OrderEventMessageConverter converter = new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+        properties.setInferredArgumentType(OrderCreatedEvent.class);
+        Message legacy = new Message(objectMapper.writeValueAsBytes(EVENT), properties);
+
+        assertEquals(EVENT, converter.fromMessage(legacy));
+    }
+
+    @Test
+    @DisplayName("Should keep String for text listeners and payloads that are not order events")
+    void shouldDelegateOtherPayloads() {
+        OrderEventMessageConverter converter = new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+
+        Message message = converter.toMessage("{\"productId\":1}", new MessageProperties());
+        message.getMessageProperties().setInferredArgumentType(String.class);
+
+        assertEquals(MessageProperties.CONTENT_TYPE_TEXT_PLAIN, message.getMessageProperties().getContentType());
+        assertEquals("{\"productId\":1}", converter.fromMessage(message));
+    }
+
+    @Test
+    @DisplayName("Should report a corrupt binary payload as a conversion error")
+    void shouldFailOnCorruptBinary() {
+        OrderEventMessageConverter converter = new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(OrderEventContentTypes.BINARY_V1);
+
+        Message corrupt = new Message("not binary".getBytes(StandardCharsets.UTF_8), properties);
+
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(corrupt));
+    }
+}
@@ -0,0 +1,77 @@
+package cleosilva.order_events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.Queue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventTopologyTest {
+
+    private final OrderEventTopology topology = new OrderEventTopology(OrderEventTopology.QueueType.QUORUM, 1000,
+            "reject-publish", List.of(Duration.ofSeconds(1), Duration.ofSeconds(10)));
+
+    private Queue queue(Declarables declarables, String name) {
+        return declarables.getDeclarablesByType(Queue.class).stream()
+                .filter(queue -> queue.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should declare a durable, bounded, dead-lettered main queue")
+    void shouldDeclareBoundedDeadLetteredMainQueue() {
+        Queue queue = queue(topology.declarables(), OrderEventTopology.QUEUE_NAME);
+
+        assertTrue(queue.isDurable());
+        assertFalse(queue.isAutoDelete());
+        Map<String, Object> arguments = queue.getArguments();
+        assertEquals("quorum", arguments.get("x-queue-type"));
+        assertEquals(1000L, arguments.get("x-max-length"));
+        assertEquals("reject-publish", arguments.get("x-overflow"));
+        assertEquals(OrderEventTopology.DEAD_LETTER_EXCHANGE_NAME, arguments.get("x-dead-letter-exchange"));
+        assertEquals(OrderEventTopology.PARKING_LOT_ROUTING_KEY, arguments.get("x-dead-letter-routing-key"));
+    }
+
+    @Test
+    @DisplayName("Should declare one delay queue per retry that dead-letters back into the main queue")
+    void shouldDeclareDelayQueuesPerRetry() {
+        Declarables declarables = topology.declarables();
+
+        Queue second = queue(declarables, OrderEventTopology.retryQueueName(2));
+        assertEquals(10_000, second.getArguments().get("x-message-ttl"));
+        assertEquals("", second.getArguments().get("x-dead-letter-exchange"));
+        assertEquals(OrderEventTopology.QUEUE_NAME, second.getArguments().get("x-dead-letter-routing-key"));
+        assertTrue(declarables.getDeclarablesByType(Binding.class).stream().anyMatch(binding ->
+                binding.getExchange().equals(OrderEventTopology.RETRY_EXCHANGE_NAME)
+                        && binding.getRoutingKey().equals(OrderEventTopology.retryRoutingKey(2))
+                        && binding.getDestination().equals(OrderEventTopology.retryQueueName(2))));
+        assertThrows(RuntimeException.class, () -> queue(declarables, OrderEventTopology.retryQueueName(3)));
+    }
+
+    @Test
+    @DisplayName("Should bind the parking-lot queue to the dead-letter exchange")
+    void shouldBindParkingLot() {
+        Declarables declarables = topology.declarables();
+
+        assertTrue(queue(declarables, OrderEventTopology.PARKING_LOT_QUEUE_NAME).isDurable());
+        assertTrue(declarables.getDeclarablesByType(Binding.class).stream().anyMatch(binding ->
+                binding.getExchange().equals(OrderEventTopology.DEAD_LETTER_EXCHANGE_NAME)
+                        && binding.getDestination().equals(OrderEventTopology.PARKING_LOT_QUEUE_NAME)));
+    }
+
+    @Test
+    @DisplayName("Classic mode should not set the quorum queue type")
+    void classicModeShouldNotSetQueueType() {
+        OrderEventTopology classic = new OrderEventTopology(OrderEventTopology.QueueType.CLASSIC, 1000,
+                "reject-publish", List.of());
+
+        assertNull(queue(classic.declarables(), OrderEventTopology.QUEUE_NAME).getArguments().get("x-queue-type"));
+    }
+}
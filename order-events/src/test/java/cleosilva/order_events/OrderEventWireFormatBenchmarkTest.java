@@ -0,0 +1,72 @@
+package cleosilva.order_events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comparação rápida entre o formato binário e o JSON em String usado antes. Os tempos são apenas
+ * indicativos (sem JMH, sem isolamento de JIT) e não são verificados; o tamanho é determinístico.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class OrderEventWireFormatBenchmarkTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    @Test
+    @DisplayName("Binary should take far fewer bytes than JSON for a typical order")
+    void compareBinaryAndJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        OrderCreatedEvent event = typicalOrder();
+
+        byte[] binary = OrderCreatedEventCodec.encode(event);
+        byte[] json = objectMapper.writeValueAsString(event).getBytes();
+
+        long binaryEncode = time(() -> OrderCreatedEventCodec.encode(event));
+        long binaryDecode = time(() -> OrderCreatedEventCodec.decode(binary));
+        long jsonEncode = time(() -> objectMapper.writeValueAsString(event));
+        long jsonDecode = time(() -> objectMapper.readValue(json, OrderCreatedEvent.class));
+
+        System.out.printf("order event: binary %d bytes (encode %d ns/op, decode %d ns/op); "
+                        + "json %d bytes (encode %d ns/op, decode %d ns/op)%n",
+                binary.length, binaryEncode, binaryDecode, json.length, jsonEncode, jsonDecode);
+
+        assertTrue(binary.length * 3 < json.length,
+                "binary=" + binary.length + " json=" + json.length);
+    }
+
+    private static OrderCreatedEvent typicalOrder() {
+        List<OrderCreatedEvent.Item> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (long id = 1; id <= 10; id++) {
+            BigDecimal price = BigDecimal.valueOf(1999 + id * 137, 2);
+            items.add(new OrderCreatedEvent.Item(id, 1, price));
+            total = total.add(price);
+        }
+        return new OrderCreatedEvent(items, total, List.of(404L), List.of());
+    }
+
+    private static long time(ThrowingRunnable task) throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,123 @@
+package cleosilva.order_simulator.cache;
+
+import cleosilva.order_simulator.dto.ProductDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-cache dos produtos do catálogo, limitado por tamanho e com expiração por TTL.
+ * As entradas são invalidadas pelos eventos de alteração publicados pelo product-catalog,
+ * então o TTL é apenas a rede de segurança para eventos perdidos.
+ * <p>
+ * Cada invalidação incrementa uma geração: um resultado buscado antes de uma invalidação
+ * não é gravado depois dela, evitando que uma resposta antiga sobrescreva a alteração.
+ */
+@Component
+public class ProductCache {
+    private static final String LISTING_KEY = "all";
+
+    private final boolean enabled;
+    private final Cache<Long, ProductDto> products;
+    private final Cache<String, List<ProductDto>> listing;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ProductCache(@Value("${order.cache.enabled:false}") boolean enabled,
+                        @Value("${order.cache.max-size:10000}") long maxSize,
+                        @Value("${order.cache.ttl:PT5M}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this(enabled, maxSize, ttl, Ticker.systemTicker());
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "order.products");
+        CaffeineCacheMetrics.monitor(meterRegistry, listing, "order.products.listing");
+    }
+
+    ProductCache(boolean enabled, long maxSize, Duration ttl, Ticker ticker) {
+        this.enabled = enabled;
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.listing = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Geração atual; deve ser lida antes de buscar no catálogo e repassada ao gravar o resultado. */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Map<Long, ProductDto> getAll(Collection<Long> ids) {
+        Map<Long, ProductDto> hits = new HashMap<>();
+        for (Long id : ids) {
+            ProductDto product = products.getIfPresent(id);
+            if (product != null) {
+                hits.put(id, product);
+            }
+        }
+        return hits;
+    }
+
+    public void putAll(Collection<ProductDto> fetched, long generationAtFetch) {
+        if (generation.get() != generationAtFetch) {
+            return;
+        }
+        fetched.forEach(product -> products.put(product.id(), product));
+    }
+
+    public List<ProductDto> getListing() {
+        return listing.getIfPresent(LISTING_KEY);
+    }
+
+    public void putListing(List<ProductDto> fetched, long generationAtFetch) {
+        if (generation.get() != generationAtFetch) {
+            return;
+        }
+        listing.put(LISTING_KEY, List.copyOf(fetched));
+        fetched.forEach(product -> products.put(product.id(), product));
+    }
+
+    public void invalidate(long productId) {
+        generation.incrementAndGet();
+        products.invalidate(productId);
+        listing.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        products.invalidateAll();
+        listing.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return products.stats();
+    }
+
+    void cleanUp() {
+        products.cleanUp();
+        listing.cleanUp();
+    }
+}
@@ -1,9 +1,13 @@
 package cleosilva.order_simulator.client;
 
+import cleosilva.order_simulator.dto.ProductBatchResponseDto;
 import cleosilva.order_simulator.dto.ProductDto;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
 import java.util.List;
 
@@ -13,6 +17,13 @@ public interface ProductCatalogFeignClient {
     @GetMapping("/products/{id}")
     ProductDto findProductById(@PathVariable("id") Long id);
 
+    @PostMapping("/products/batch")
+    ProductBatchResponseDto findProductsByIds(@RequestBody List<Long> ids);
+
     @GetMapping("/products")
     List<ProductDto> listProducts();
+
+    // NDJSON com o catálogo inteiro; a versão do snapshot vem no cabeçalho X-Catalog-Version
+    @GetMapping("/products/export")
+    Response exportProducts();
 }
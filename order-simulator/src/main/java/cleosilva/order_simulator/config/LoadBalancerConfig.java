@@ -0,0 +1,12 @@
+package cleosilva.order_simulator.config;
+
+import cleosilva.load_balancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Chamadas do Feign ao catálogo escolhem a instância por latência (EWMA) e pendentes, não por round-robin;
+// loadbalancing.latency-aware.enabled=false volta ao padrão
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
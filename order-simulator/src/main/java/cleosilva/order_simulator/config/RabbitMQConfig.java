@@ -1,34 +1,51 @@
 package cleosilva.order_simulator.config;
 
+import cleosilva.order_events.OrderEventMessageConverter;
+import cleosilva.order_events.OrderEventTopologyConfig;
+import cleosilva.order_events.OrderEventWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
+// A topologia dos eventos de pedido (exchange, fila, DLX, filas de retry) é declarada em order-events
 @Configuration
+@Import(OrderEventTopologyConfig.class)
 public class RabbitMQConfig {
 
-    public static final String EXCHANGE_NAME = "order.events";
-    public static final String QUEUE_NAME = "order.created.queue";
-    public static final String ROUTING_KEY = "order.created";
+    public static final String PRODUCT_EXCHANGE_NAME = "product.events";
+    public static final String PRODUCT_ROUTING_PATTERN = "product.#";
 
+    // Usado pelo RabbitTemplate e pelos listeners: eventos de pedido no formato configurado, o resto como antes
     @Bean
-    public TopicExchange appExchange() {
-        return new TopicExchange(EXCHANGE_NAME);
+    public MessageConverter orderEventMessageConverter(
+            @Value("${order.events.wire-format:BINARY}") OrderEventWireFormat wireFormat, ObjectMapper objectMapper) {
+        return new OrderEventMessageConverter(wireFormat, objectMapper);
     }
 
     @Bean
-    public Queue appQueue() {
-        return new Queue(QUEUE_NAME, false); //'false' para fila não-durável (mude para true em produção)
+    public TopicExchange productExchange() {
+        return new TopicExchange(PRODUCT_EXCHANGE_NAME);
     }
 
+    // Fila exclusiva por instância: cada réplica do order-simulator recebe todas as alterações de produto
     @Bean
-    public Binding binding(Queue queue, TopicExchange exchange) {
-        return BindingBuilder.bind(queue)
-                .to(exchange)
-                .with(ROUTING_KEY);
+    public Queue productEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding productEventsBinding(Queue productEventsQueue, TopicExchange productExchange) {
+        return BindingBuilder.bind(productEventsQueue)
+                .to(productExchange)
+                .with(PRODUCT_ROUTING_PATTERN);
     }
 
 }
@@ -4,7 +4,8 @@ import cleosilva.order_simulator.dto.ProductDto;
 import cleosilva.order_simulator.dto.SimulatedOrderResponseDto;
 import cleosilva.order_simulator.service.OrderEventPublisher;
 import cleosilva.order_simulator.service.OrderService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +15,8 @@ import java.util.List;
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
+    private static final Logger log = LoggerFactory.getLogger(OrderController.class);
+
     @Autowired
     private OrderService orderService;
 
@@ -28,17 +31,10 @@ public class OrderController {
         SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
 
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            String orderEventDetails = objectMapper.writeValueAsString(response);
-
-            orderEventPublisher.publishOrderCreatedEvent(orderEventDetails);
-
-            System.out.println("Evento de pedido simulado publicado no RabbitMQ: " + orderEventDetails);
-
+            orderEventPublisher.publishOrderCreatedEvent(response);
         } catch (Exception e){
             // Logar o erro, mas não impedir a resposta da API se a simulação foi bem-sucedida
-            System.err.println("Erro ao publicar evento de pedido no RabbitMQ: " + e.getMessage());
-            // Considere um mecanismo de retry ou DLQ (Dead Letter Queue) para produção
+            log.warn("Erro ao publicar evento de pedido no RabbitMQ: {}", e.getMessage());
         }
         return ResponseEntity.ok(response);
     }
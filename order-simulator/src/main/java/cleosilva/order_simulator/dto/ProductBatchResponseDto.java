@@ -0,0 +1,5 @@
+package cleosilva.order_simulator.dto;
+
+import java.util.List;
+
+public record ProductBatchResponseDto(List<ProductDto> products, List<Long> missingIds) {}
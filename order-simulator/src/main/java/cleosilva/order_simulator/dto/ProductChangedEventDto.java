@@ -0,0 +1,17 @@
+package cleosilva.order_simulator.dto;
+
+import java.math.BigDecimal;
+
+public record ProductChangedEventDto(Long productId, String type, Long version,
+                                     String name, String description, BigDecimal price) {
+
+    public static final String DELETED = "DELETED";
+
+    public boolean isDeletion() {
+        return DELETED.equals(type);
+    }
+
+    public ProductDto toProduct() {
+        return new ProductDto(productId, name, description, price);
+    }
+}
@@ -3,4 +3,10 @@ package cleosilva.order_simulator.dto;
 import java.math.BigDecimal;
 import java.util.List;
 
-public record SimulatedOrderResponseDto(List<OrderItemDto> items, BigDecimal totalAmount, List<Long> productsNotFound) {}
+public record SimulatedOrderResponseDto(List<OrderItemDto> items, BigDecimal totalAmount, List<Long> productsNotFound,
+                                        List<Long> productsUnresolved) {
+
+    public SimulatedOrderResponseDto(List<OrderItemDto> items, BigDecimal totalAmount, List<Long> productsNotFound) {
+        this(items, totalAmount, productsNotFound, List.of());
+    }
+}
@@ -0,0 +1,43 @@
+package cleosilva.order_simulator.listener;
+
+import cleosilva.order_simulator.cache.ProductCache;
+import cleosilva.order_simulator.dto.ProductChangedEventDto;
+import cleosilva.order_simulator.replica.CatalogReplica;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventListener.class);
+
+    private final ProductCache productCache;
+    private final CatalogReplica catalogReplica;
+    private final ObjectMapper objectMapper;
+
+    public ProductEventListener(ProductCache productCache, CatalogReplica catalogReplica, ObjectMapper objectMapper) {
+        this.productCache = productCache;
+        this.catalogReplica = catalogReplica;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = "#{productEventsQueue.name}")
+    public void receiveProductChangedEvent(String event) {
+        try {
+            ProductChangedEventDto changed = objectMapper.readValue(event, ProductChangedEventDto.class);
+            catalogReplica.apply(changed);
+            if (changed.productId() == null) {
+                productCache.invalidateAll();
+            } else {
+                productCache.invalidate(changed.productId());
+            }
+        } catch (Exception e) {
+            // Evento ilegível: invalida tudo, é mais barato que servir preço antigo
+            log.warn("Unreadable product event, clearing product cache: {}", e.getMessage());
+            productCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package cleosilva.order_simulator.outbox;
+
+import cleosilva.order_simulator.service.OrderEventBatchPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbox transacional dos eventos de pedido. A requisição paga apenas um INSERT local na tabela
+ * {@code order_outbox}; um relay em background lê as linhas mais antigas em lotes, publica cada lote
+ * com publisher confirms e só então apaga as linhas confirmadas, que servem de checkpoint. Se o broker
+ * estiver fora, as linhas ficam na tabela até a próxima tentativa: a entrega é at-least-once.
+ * <p>
+ * Várias instâncias podem drenar a mesma tabela: cada relay reivindica o lote com um lease
+ * ({@code claimed_by}/{@code claimed_until}) antes de publicar, e as outras pulam essas linhas até o lease
+ * expirar. O lease precisa ser maior que o tempo de confirmação de um lote, senão outra instância pode
+ * reenviá-lo. Entre instâncias a ordem de publicação deixa de ser global.
+ */
+@Component
+public class OrderOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutbox.class);
+
+    private static final String INSERT_SQL = "INSERT INTO order_outbox (payload, content_type) VALUES (?, ?)";
+    // Linhas livres, com lease vencido ou já deste relay (sobras de um lote que falhou); a condição repetida fora
+    // da subconsulta faz o UPDATE concorrente de outra instância pular as linhas que acabaram de ser reivindicadas
+    private static final String CLAIM_BATCH_SQL = """
+            UPDATE order_outbox SET claimed_by = :owner, claimed_until = :until
+            WHERE id IN (SELECT id FROM order_outbox
+                         WHERE claimed_until IS NULL OR claimed_until < :now OR claimed_by = :owner
+                         ORDER BY id LIMIT :limit)
+              AND (claimed_until IS NULL OR claimed_until < :now OR claimed_by = :owner)""";
+    private static final String SELECT_CLAIMED_SQL =
+            "SELECT id, payload, content_type FROM order_outbox WHERE claimed_by = :owner ORDER BY id";
+    private static final String DELETE_BATCH_SQL = "DELETE FROM order_outbox WHERE id IN (:ids) AND claimed_by = :owner";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final OrderEventBatchPublisher batchPublisher;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration linger;
+    private final Duration retryBackoff;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+    private final Counter relayed;
+
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public OrderOutbox(JdbcTemplate jdbcTemplate,
+                       OrderEventBatchPublisher batchPublisher,
+                       MeterRegistry meterRegistry,
+                       @Value("${order.events.outbox.enabled:false}") boolean enabled,
+                       @Value("${order.events.outbox.batch-size:500}") int batchSize,
+                       @Value("${order.events.outbox.linger:PT0.05S}") Duration linger,
+                       @Value("${order.events.outbox.retry-backoff:PT1S}") Duration retryBackoff,
+                       @Value("${order.events.outbox.lease:PT30S}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.batchPublisher = batchPublisher;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.retryBackoff = retryBackoff;
+        this.lease = lease;
+        this.relayed = meterRegistry.counter("order.outbox.relayed");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void append(Message message) {
+        jdbcTemplate.update(INSERT_SQL, message.getBody(), message.getMessageProperties().getContentType());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        relayThread = new Thread(this::runRelay, "order-outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+            relayThread.join(batchPublisher.confirmTimeout().toMillis());
+        }
+    }
+
+    private void runRelay() {
+        while (running) {
+            try {
+                int relayedRows = relayBatch();
+                if (relayedRows < batchSize) {
+                    // Lote incompleto: espera o linger para acumular mais linhas antes da próxima leitura
+                    Thread.sleep(linger.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RelayFailedException e) {
+                sleepQuietly(retryBackoff);
+            } catch (RuntimeException e) {
+                log.warn("Order outbox relay failed: {}", e.getMessage());
+                sleepQuietly(retryBackoff);
+            }
+        }
+    }
+
+    /**
+     * Reivindica o lote mais antigo ainda livre, publica e apaga as linhas confirmadas.
+     *
+     * @return quantidade de linhas publicadas
+     */
+    public int relayBatch() {
+        long now = System.currentTimeMillis();
+        int claimed = namedParameterJdbcTemplate.update(CLAIM_BATCH_SQL, new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("until", now + lease.toMillis())
+                .addValue("now", now)
+                .addValue("limit", batchSize));
+        if (claimed == 0) {
+            return 0;
+        }
+        List<OutboxRow> rows = namedParameterJdbcTemplate.query(SELECT_CLAIMED_SQL, new MapSqlParameterSource("owner", owner),
+                (rs, rowNum) -> new OutboxRow(rs.getLong("id"), toMessage(rs.getBytes("payload"), rs.getString("content_type"))));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        if (!batchPublisher.publish(rows.stream().map(OutboxRow::message).toList())) {
+            throw new RelayFailedException();
+        }
+        namedParameterJdbcTemplate.update(DELETE_BATCH_SQL,
+                new MapSqlParameterSource("ids", rows.stream().map(OutboxRow::id).toList()).addValue("owner", owner));
+        relayed.increment(rows.size());
+        return rows.size();
+    }
+
+    private void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static Message toMessage(byte[] payload, String contentType) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(contentType);
+        return new Message(payload, properties);
+    }
+
+    private record OutboxRow(long id, Message message) {}
+
+    static class RelayFailedException extends RuntimeException {
+        RelayFailedException() {
+            super("broker did not confirm the outbox batch", null, false, false);
+        }
+    }
+}
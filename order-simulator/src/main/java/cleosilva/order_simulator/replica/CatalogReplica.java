@@ -0,0 +1,296 @@
+package cleosilva.order_simulator.replica;
+
+import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductChangedEventDto;
+import cleosilva.order_simulator.dto.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Réplica completa do catálogo em memória, para precificar pedidos sem nenhuma chamada de rede.
+ * <p>
+ * A réplica é carregada pelo export NDJSON do product-catalog, que informa a versão do snapshot, e depois
+ * mantida pelos eventos de alteração, cada um com a versão do catálogo após a escrita. Eventos fora de
+ * ordem esperam em {@code pending}; se um buraco de versão não for preenchido dentro de {@code gapTimeout},
+ * ou se a fila de pendentes estourar, a réplica é recarregada. Antes da primeira carga e durante uma recarga
+ * os eventos continuam sendo acumulados, até {@code maxPending}: além disso os mais antigos são descartados,
+ * já que o snapshot provavelmente os contém; se não contiver, o buraco leva a outra recarga.
+ * <p>
+ * A réplica não guarda estoque: reservas e baixas são decididas só pelo product-catalog. Os eventos que elas
+ * geram trazem só nome, descrição e preço, e servem aqui apenas para manter a sequência de versões.
+ */
+@Component
+public class CatalogReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogReplica.class);
+    static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+
+    private final ProductCatalogFeignClient productCatalogFeignClient;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration gapTimeout;
+    private final int maxPending;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService resyncExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-replica-resync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Protegidos por lock
+    private LongObjectMap<ProductDto> products = new LongObjectMap<>();
+    private long version;
+    private boolean ready;
+    private boolean resyncing;
+    private boolean resyncScheduled;
+    private boolean gapCheckScheduled;
+    private final TreeMap<Long, ProductChangedEventDto> pending = new TreeMap<>();
+
+    public CatalogReplica(ProductCatalogFeignClient productCatalogFeignClient,
+                          ObjectMapper objectMapper,
+                          @Value("${order.replica.enabled:false}") boolean enabled,
+                          @Value("${order.replica.gap-timeout:PT2S}") Duration gapTimeout,
+                          @Value("${order.replica.max-pending:1000}") int maxPending) {
+        this.productCatalogFeignClient = productCatalogFeignClient;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gapTimeout = gapTimeout;
+        this.maxPending = maxPending;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            scheduleResync(Duration.ZERO);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        resyncExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** A réplica só responde consultas depois da primeira carga completa. */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, ProductDto> findProducts(Collection<Long> ids) {
+        Map<Long, ProductDto> found = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                ProductDto product = products.get(id);
+                if (product != null) {
+                    found.put(id, product);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    public List<ProductDto> listProducts() {
+        lock.readLock().lock();
+        try {
+            return products.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void apply(ProductChangedEventDto event) {
+        if (!enabled || event.productId() == null || event.version() == null) {
+            return;
+        }
+        boolean resyncNeeded = false;
+        lock.writeLock().lock();
+        try {
+            if (ready && event.version() <= version) {
+                return;
+            }
+            pending.put(event.version(), event);
+            if (ready && !resyncing) {
+                drainPending();
+                if (pending.size() > maxPending) {
+                    resyncNeeded = true;
+                } else {
+                    scheduleGapCheck();
+                }
+            } else if (pending.size() > maxPending) {
+                pending.pollFirstEntry();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (resyncNeeded) {
+            log.warn("Catalog replica has {} out-of-order events pending, resynchronizing", maxPending);
+            scheduleResync(Duration.ZERO);
+        }
+    }
+
+    /**
+     * Recarrega a réplica a partir do export do catálogo. A nova tabela é montada fora do lock e trocada
+     * de uma vez, então as consultas continuam atendidas pela versão anterior durante a carga.
+     */
+    public void resync() {
+        lock.writeLock().lock();
+        try {
+            resyncing = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try (Response response = productCatalogFeignClient.exportProducts()) {
+            long snapshotVersion = Long.parseLong(response.headers().get(CATALOG_VERSION_HEADER).iterator().next());
+            LongObjectMap<ProductDto> snapshot = new LongObjectMap<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body().asInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        ProductDto product = objectMapper.readValue(line, ProductDto.class);
+                        snapshot.put(product.id(), product);
+                    }
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                products = snapshot;
+                version = snapshotVersion;
+                ready = true;
+                resyncing = false;
+                drainPending();
+                // O snapshot pode não cobrir o primeiro evento acumulado: sem isto a réplica só notaria o buraco
+                // no próximo evento
+                scheduleGapCheck();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Catalog replica loaded {} products at version {}", snapshot.size(), snapshotVersion);
+        } catch (IOException | RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                resyncing = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.warn("Catalog replica resync failed, retrying in {}: {}", gapTimeout, e.getMessage());
+            scheduleResync(gapTimeout);
+        }
+    }
+
+    private void scheduleResync(Duration delay) {
+        lock.writeLock().lock();
+        try {
+            if (resyncScheduled || resyncExecutor.isShutdown()) {
+                return;
+            }
+            resyncScheduled = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        resyncExecutor.schedule(() -> {
+            lock.writeLock().lock();
+            try {
+                resyncScheduled = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            resync();
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void checkGap(long stalledAt) {
+        boolean stillStalled;
+        lock.writeLock().lock();
+        try {
+            gapCheckScheduled = false;
+            stillStalled = version == stalledAt && !pending.isEmpty() && !resyncing;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (stillStalled) {
+            log.warn("Catalog replica stuck at version {} waiting for a missing event, resynchronizing", stalledAt);
+            scheduleResync(Duration.ZERO);
+        }
+    }
+
+    // Chamado com o lock de escrita
+    private void scheduleGapCheck() {
+        if (pending.isEmpty() || gapCheckScheduled || resyncExecutor.isShutdown()) {
+            return;
+        }
+        gapCheckScheduled = true;
+        long stalledAt = version;
+        resyncExecutor.schedule(() -> checkGap(stalledAt), gapTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Eventos fora de ordem à espera do buraco de versão (ou da carga). */
+    int pendingEvents() {
+        lock.readLock().lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Chamado com o lock de escrita: aplica os eventos contíguos à versão atual e descarta os já aplicados
+    private void drainPending() {
+        while (!pending.isEmpty() && pending.firstKey() <= version + 1) {
+            ProductChangedEventDto event = pending.pollFirstEntry().getValue();
+            if (event.version() == version + 1) {
+                if (event.isDeletion()) {
+                    products.remove(event.productId());
+                } else {
+                    products.put(event.productId(), event.toProduct());
+                }
+                version = event.version();
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package cleosilva.order_simulator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica os eventos de pedido fora da thread da requisição. As mensagens entram em uma fila limitada
+ * em memória; uma thread dedicada as retira em lotes e as entrega ao {@link OrderEventBatchPublisher}.
+ * Um lote com nack ou timeout é reenviado com backoff exponencial (entrega at-least-once: o consumidor
+ * pode ver duplicatas).
+ * <p>
+ * Quando a fila está cheia vale a política de overflow: {@code BLOCK} espera até {@code block-timeout}
+ * por espaço, {@code DROP} descarta a mensagem nova e {@code SPILL} grava em um arquivo local que é
+ * reenfileirado quando a fila esvazia. Lotes que esgotam as tentativas seguem a mesma regra. O arquivo
+ * guarda registros binários (content type, tamanho e corpo), então vale para qualquer formato de evento.
+ */
+@Component
+public class BatchingOrderEventSender {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingOrderEventSender.class);
+
+    public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+    private final OrderEventBatchPublisher batchPublisher;
+    private final boolean enabled;
+    private final BlockingQueue<Message> queue;
+    private final int batchSize;
+    private final Duration linger;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final Path spillFile;
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter spilled;
+
+    private volatile boolean running;
+    private Thread senderThread;
+
+    public BatchingOrderEventSender(OrderEventBatchPublisher batchPublisher,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${order.events.publisher.async:false}") boolean enabled,
+                                    @Value("${order.events.publisher.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${order.events.publisher.batch-size:100}") int batchSize,
+                                    @Value("${order.events.publisher.linger:PT0.005S}") Duration linger,
+                                    @Value("${order.events.publisher.max-attempts:5}") int maxAttempts,
+                                    @Value("${order.events.publisher.retry-backoff:PT0.2S}") Duration retryBackoff,
+                                    @Value("${order.events.publisher.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                                    @Value("${order.events.publisher.block-timeout:PT0.1S}") Duration blockTimeout,
+                                    @Value("${order.events.publisher.spill-file:${java.io.tmpdir}/order-events.spill}") Path spillFile) {
+        this.batchPublisher = batchPublisher;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.spillFile = spillFile;
+
+        Gauge.builder("order.events.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.published = meterRegistry.counter("order.events.published");
+        this.dropped = meterRegistry.counter("order.events.dropped");
+        this.spilled = meterRegistry.counter("order.events.spilled");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        senderThread = new Thread(this::runSender, "order-event-sender");
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    /** Para de aceitar mensagens e dá ao sender até o timeout de confirmação para esvaziar a fila. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (senderThread != null) {
+            senderThread.join(batchPublisher.confirmTimeout().toMillis());
+            senderThread.interrupt();
+        }
+        List<Message> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            overflow(remaining);
+        }
+    }
+
+    /** Enfileira o evento; retorna {@code false} se ele foi descartado pela política de overflow. */
+    public boolean enqueue(Message message) {
+        if (!running) {
+            overflow(List.of(message));
+            return false;
+        }
+        if (queue.offer(message)) {
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                if (queue.offer(message, blockTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        overflow(List.of(message));
+        return false;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    private void runSender() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Message first = queue.poll(linger.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    refillFromSpill();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in order event sender", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void sendWithRetry(List<Message> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (batchPublisher.publish(batch)) {
+                published.increment(batch.size());
+                return;
+            }
+            if (attempt < maxAttempts) {
+                Thread.sleep(retryBackoff.toMillis() << (attempt - 1));
+            }
+        }
+        overflow(batch);
+    }
+
+    private void overflow(Collection<Message> messages) {
+        if (overflowPolicy == OverflowPolicy.SPILL && spill(messages)) {
+            return;
+        }
+        dropped.increment(messages.size());
+        log.warn("Dropped {} order events", messages.size());
+    }
+
+    private synchronized boolean spill(Collection<Message> messages) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(spillFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)))) {
+            writeRecords(out, messages);
+            spilled.increment(messages.size());
+            return true;
+        } catch (IOException e) {
+            log.error("Could not spill {} order events to {}: {}", messages.size(), spillFile, e.getMessage());
+            return false;
+        }
+    }
+
+    // Com a fila vazia, devolve para ela o que foi derramado em disco; o que não couber volta para o arquivo
+    private synchronized void refillFromSpill() {
+        if (overflowPolicy != OverflowPolicy.SPILL || !Files.exists(spillFile)) {
+            return;
+        }
+        try {
+            Path draining = spillFile.resolveSibling(spillFile.getFileName() + ".draining");
+            Files.move(spillFile, draining, StandardCopyOption.REPLACE_EXISTING);
+            List<Message> messages = readRecords(draining);
+            Files.delete(draining);
+            int index = 0;
+            while (index < messages.size() && queue.offer(messages.get(index))) {
+                index++;
+            }
+            if (index < messages.size()) {
+                spill(messages.subList(index, messages.size()));
+            }
+        } catch (IOException e) {
+            log.error("Could not read spilled order events from {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+    private static void writeRecords(DataOutputStream out, Collection<Message> messages) throws IOException {
+        for (Message message : messages) {
+            String contentType = message.getMessageProperties().getContentType();
+            out.writeUTF(contentType == null ? "" : contentType);
+            out.writeInt(message.getBody().length);
+            out.write(message.getBody());
+        }
+    }
+
+    private static List<Message> readRecords(Path file) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                String contentType;
+                try {
+                    contentType = in.readUTF();
+                } catch (EOFException e) {
+                    return messages;
+                }
+                byte[] body = new byte[in.readInt()];
+                in.readFully(body);
+                MessageProperties properties = new MessageProperties();
+                if (!contentType.isEmpty()) {
+                    properties.setContentType(contentType);
+                }
+                messages.add(new Message(body, properties));
+            }
+        }
+    }
+}
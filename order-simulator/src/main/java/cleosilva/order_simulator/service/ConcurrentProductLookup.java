@@ -0,0 +1,95 @@
+package cleosilva.order_simulator.service;
+
+import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductDto;
+import feign.FeignException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca os produtos de um carrinho em paralelo, um GET /products/{id} por produto, cada um em
+ * uma virtual thread. O número de chamadas simultâneas por requisição é limitado e toda a busca
+ * respeita um prazo: produtos que não respondem a tempo são devolvidos como não resolvidos em vez
+ * de falhar a simulação inteira.
+ */
+@Component
+public class ConcurrentProductLookup {
+
+    private final ProductCatalogFeignClient productCatalogFeignClient;
+    private final int maxFanOut;
+    private final long deadlineMillis;
+
+    public ConcurrentProductLookup(ProductCatalogFeignClient productCatalogFeignClient,
+                                   @Value("${order.simulation.concurrent.max-fan-out:16}") int maxFanOut,
+                                   @Value("${order.simulation.concurrent.deadline-ms:2000}") long deadlineMillis) {
+        if (maxFanOut < 1) {
+            throw new IllegalArgumentException("max-fan-out must be at least 1");
+        }
+        this.productCatalogFeignClient = productCatalogFeignClient;
+        this.maxFanOut = maxFanOut;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public ProductLookupResult findProducts(List<Long> distinctIds) {
+        Map<Long, ProductDto> productsById = new HashMap<>();
+        Set<Long> unresolvedIds = new HashSet<>();
+        if (distinctIds.isEmpty()) {
+            return new ProductLookupResult(productsById, unresolvedIds);
+        }
+
+        Semaphore permits = new Semaphore(maxFanOut);
+        List<Callable<Optional<ProductDto>>> tasks = new ArrayList<>(distinctIds.size());
+        for (Long id : distinctIds) {
+            tasks.add(() -> fetch(id, permits));
+        }
+
+        // O executor é fechado ao sair do bloco: nenhuma virtual thread sobrevive à requisição.
+        // invokeAll com timeout cancela (interrompe) as buscas que não terminaram dentro do prazo.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Optional<ProductDto>>> futures = executor.invokeAll(tasks, deadlineMillis, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < futures.size(); i++) {
+                Long id = distinctIds.get(i);
+                try {
+                    futures.get(i).get().ifPresent(product -> productsById.put(id, product));
+                } catch (CancellationException | ExecutionException e) {
+                    unresolvedIds.add(id);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Long id : distinctIds) {
+                if (!productsById.containsKey(id)) {
+                    unresolvedIds.add(id);
+                }
+            }
+        }
+        return new ProductLookupResult(productsById, unresolvedIds);
+    }
+
+    private Optional<ProductDto> fetch(Long id, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            return Optional.ofNullable(productCatalogFeignClient.findProductById(id));
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        } finally {
+            permits.release();
+        }
+    }
+}
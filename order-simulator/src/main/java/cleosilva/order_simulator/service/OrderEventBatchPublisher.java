@@ -0,0 +1,71 @@
+package cleosilva.order_simulator.service;
+
+import cleosilva.order_events.OrderEventTopology;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica um lote de eventos de pedido em um único canal e aguarda os publisher confirms do broker
+ * (requer {@code spring.rabbitmq.publisher-confirm-type=simple}). Usado pelo sender assíncrono e
+ * pelo relay do outbox; cada chamada é uma tentativa, o retry fica a cargo de quem chama.
+ */
+@Component
+public class OrderEventBatchPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventBatchPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Duration confirmTimeout;
+    private final Counter nacked;
+    private final Timer confirmLatency;
+
+    @Autowired
+    public OrderEventBatchPublisher(RabbitTemplate rabbitTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${order.events.publisher.confirm-timeout:PT5S}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirmTimeout = confirmTimeout;
+        this.nacked = meterRegistry.counter("order.events.nacked");
+        this.confirmLatency = Timer.builder("order.events.confirm.latency")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public Duration confirmTimeout() {
+        return confirmTimeout;
+    }
+
+    /** Retorna {@code true} somente se o broker confirmou todas as mensagens do lote. */
+    public boolean publish(List<Message> batch) {
+        long start = System.nanoTime();
+        try {
+            Boolean acked = rabbitTemplate.invoke(operations -> {
+                for (Message message : batch) {
+                    operations.send(OrderEventTopology.EXCHANGE_NAME, OrderEventTopology.ROUTING_KEY, message);
+                }
+                return operations.waitForConfirms(confirmTimeout.toMillis());
+            });
+            confirmLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (Boolean.TRUE.equals(acked)) {
+                return true;
+            }
+            nacked.increment(batch.size());
+            log.warn("Broker nacked a batch of {} order events", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not publish {} order events: {}", batch.size(), e.getMessage());
+        }
+        return false;
+    }
+}
@@ -1,6 +1,12 @@
 package cleosilva.order_simulator.service;
 
-import cleosilva.order_simulator.config.RabbitMQConfig;
+import cleosilva.order_events.OrderEventTopology;
+import cleosilva.order_events.OrderCreatedEvent;
+import cleosilva.order_simulator.dto.OrderItemDto;
+import cleosilva.order_simulator.dto.SimulatedOrderResponseDto;
+import cleosilva.order_simulator.outbox.OrderOutbox;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
@@ -8,13 +14,41 @@ import org.springframework.stereotype.Service;
 public class OrderEventPublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final BatchingOrderEventSender batchingOrderEventSender;
+    private final OrderOutbox orderOutbox;
 
-    public OrderEventPublisher(RabbitTemplate rabbitTemplate) {
+    public OrderEventPublisher(RabbitTemplate rabbitTemplate, BatchingOrderEventSender batchingOrderEventSender,
+                               OrderOutbox orderOutbox) {
         this.rabbitTemplate = rabbitTemplate;
+        this.batchingOrderEventSender = batchingOrderEventSender;
+        this.orderOutbox = orderOutbox;
     }
 
-    public void publishOrderCreatedEvent(String orderDetails) {
-        System.out.println("Enviando evento de pedido criado: " + orderDetails);
-        rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.ROUTING_KEY, orderDetails);
+    public void publishOrderCreatedEvent(SimulatedOrderResponseDto order) {
+        // Serializa uma única vez, na thread da requisição; sender, spill e outbox carregam a mensagem pronta
+        Message message = rabbitTemplate.getMessageConverter().toMessage(toEvent(order), new MessageProperties());
+        if (orderOutbox.isEnabled()) {
+            // Um INSERT local; o relay do outbox entrega ao broker com at-least-once
+            orderOutbox.append(message);
+            return;
+        }
+        if (batchingOrderEventSender.isEnabled()) {
+            // Não espera o broker: o envio, a confirmação e os retries acontecem na thread do sender
+            batchingOrderEventSender.enqueue(message);
+            return;
+        }
+        rabbitTemplate.send(OrderEventTopology.EXCHANGE_NAME, OrderEventTopology.ROUTING_KEY, message);
+    }
+
+    static OrderCreatedEvent toEvent(SimulatedOrderResponseDto order) {
+        return new OrderCreatedEvent(
+                order.items().stream().map(OrderEventPublisher::toItem).toList(),
+                order.totalAmount(),
+                order.productsNotFound(),
+                order.productsUnresolved());
+    }
+
+    private static OrderCreatedEvent.Item toItem(OrderItemDto item) {
+        return new OrderCreatedEvent.Item(item.productId(), item.quantity(), item.unitPrice());
     }
 }
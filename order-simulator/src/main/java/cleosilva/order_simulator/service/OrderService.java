@@ -1,41 +1,138 @@
 package cleosilva.order_simulator.service;
 
+import cleosilva.order_simulator.cache.ProductCache;
 import cleosilva.order_simulator.client.ProductCatalogFeignClient;
 import cleosilva.order_simulator.dto.OrderItemDto;
+import cleosilva.order_simulator.dto.ProductBatchResponseDto;
 import cleosilva.order_simulator.dto.ProductDto;
 import cleosilva.order_simulator.dto.SimulatedOrderResponseDto;
+import cleosilva.order_simulator.replica.CatalogReplica;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class OrderService {
+    static final String CONCURRENT_MODE = "concurrent";
+
     @Autowired
     private ProductCatalogFeignClient productCatalogFeignClient;
 
+    @Autowired
+    private ConcurrentProductLookup concurrentProductLookup;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private CatalogReplica catalogReplica;
+
+    // batch (padrão): uma chamada POST /products/batch; concurrent: um GET por produto em paralelo
+    @Value("${order.simulation.mode:batch}")
+    private String simulationMode;
+
+    // Igual a catalog.batch.max-ids do product-catalog, que recusa lotes maiores com 400
+    @Value("${order.simulation.batch.max-ids:1000}")
+    private int batchMaxIds;
+
     public SimulatedOrderResponseDto simulateOrder(List<Long> productIds) {
         List<OrderItemDto> items = new ArrayList<>();
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<Long> productsNotFound = new ArrayList<>();
+        List<Long> productsUnresolved = new ArrayList<>();
+
+        if (productIds.isEmpty()) {
+            return new SimulatedOrderResponseDto(items, totalAmount, productsNotFound, productsUnresolved);
+        }
+
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(productIds));
+        ProductLookupResult lookup;
+        if (catalogReplica.isReady()) {
+            // A réplica contém o catálogo inteiro: o que não está nela não existe
+            lookup = new ProductLookupResult(catalogReplica.findProducts(distinctIds), Set.of());
+        } else if (productCache.isEnabled()) {
+            lookup = findProductsThroughCache(distinctIds);
+        } else {
+            lookup = findProducts(distinctIds);
+        }
+        Map<Long, ProductDto> productsById = lookup.productsById();
+        Set<Long> unresolvedIds = lookup.unresolvedIds();
 
         for (Long productId : productIds) {
-            ProductDto product = productCatalogFeignClient.findProductById(productId);
+            ProductDto product = productsById.get(productId);
             if (product != null) {
                 OrderItemDto itemDto = new OrderItemDto(product.id(), 1, product.price());
                 items.add(itemDto);
                 totalAmount = totalAmount.add(product.price());
+            } else if (unresolvedIds.contains(productId)) {
+                productsUnresolved.add(productId);
             } else {
                 productsNotFound.add(productId);
             }
         }
 
-        return new SimulatedOrderResponseDto(items,totalAmount,productsNotFound);
+        return new SimulatedOrderResponseDto(items,totalAmount,productsNotFound,productsUnresolved);
     }
 
     public List<ProductDto> listAvailableProducts() {
-        return productCatalogFeignClient.listProducts();
+        if (catalogReplica.isReady()) {
+            return catalogReplica.listProducts();
+        }
+        if (!productCache.isEnabled()) {
+            return productCatalogFeignClient.listProducts();
+        }
+        List<ProductDto> cached = productCache.getListing();
+        if (cached != null) {
+            return cached;
+        }
+        long generation = productCache.generation();
+        List<ProductDto> products = productCatalogFeignClient.listProducts();
+        if (products != null) {
+            productCache.putListing(products, generation);
+        }
+        return products;
+    }
+
+    // Busca no catálogo apenas os ids que não estão no cache
+    private ProductLookupResult findProductsThroughCache(List<Long> distinctIds) {
+        Map<Long, ProductDto> productsById = new HashMap<>(productCache.getAll(distinctIds));
+        if (productsById.size() == distinctIds.size()) {
+            return new ProductLookupResult(productsById, Set.of());
+        }
+
+        List<Long> missingIds = distinctIds.stream().filter(id -> !productsById.containsKey(id)).toList();
+        long generation = productCache.generation();
+        ProductLookupResult fetched = findProducts(missingIds);
+        productCache.putAll(fetched.productsById().values(), generation);
+
+        productsById.putAll(fetched.productsById());
+        return new ProductLookupResult(productsById, fetched.unresolvedIds());
+    }
+
+    private ProductLookupResult findProducts(List<Long> distinctIds) {
+        return CONCURRENT_MODE.equalsIgnoreCase(simulationMode)
+                ? concurrentProductLookup.findProducts(distinctIds)
+                : findProductsInBatch(distinctIds);
+    }
+
+    // Uma chamada ao catálogo para o carrinho inteiro; só carrinhos acima de batchMaxIds são divididos
+    private ProductLookupResult findProductsInBatch(List<Long> distinctIds) {
+        Map<Long, ProductDto> productsById = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += batchMaxIds) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + batchMaxIds, distinctIds.size()));
+            ProductBatchResponseDto batch = productCatalogFeignClient.findProductsByIds(chunk);
+            if (batch != null && batch.products() != null) {
+                batch.products().forEach(product -> productsById.put(product.id(), product));
+            }
+        }
+        return new ProductLookupResult(productsById, Set.of());
     }
 }
@@ -0,0 +1,13 @@
+package cleosilva.order_simulator.service;
+
+import cleosilva.order_simulator.dto.ProductDto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resultado da resolução dos produtos de um carrinho: os produtos encontrados por id e os ids
+ * que não puderam ser resolvidos (timeout ou falha do catálogo). Ids ausentes dos dois são
+ * considerados inexistentes.
+ */
+public record ProductLookupResult(Map<Long, ProductDto> productsById, Set<Long> unresolvedIds) {}
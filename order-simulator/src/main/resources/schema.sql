@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    payload BYTEA NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    claimed_by VARCHAR(36),
+    claimed_until BIGINT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
@@ -1,13 +1,28 @@
 package cleosilva.order_simulator;
 
+import cleosilva.load_balancer.LatencyAwareLoadBalancer;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
 @SpringBootTest
+@ActiveProfiles("test")
 class OrderSimulatorApplicationTests {
 
+	@Autowired
+	private LoadBalancerClientFactory loadBalancerClientFactory;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void feignClientShouldUseLatencyAwareLoadBalancer() {
+		assertInstanceOf(LatencyAwareLoadBalancer.class, loadBalancerClientFactory.getInstance("products-catalog"));
+	}
+
 }
@@ -0,0 +1,84 @@
+package cleosilva.order_simulator.cache;
+
+import cleosilva.order_simulator.dto.ProductDto;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+
+    private static ProductDto product(long id) {
+        return new ProductDto(id, "Product " + id, "Description", new BigDecimal("10.00"));
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void shouldCountHitsAndMisses() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(5), ticker);
+        cache.putAll(List.of(product(1L)), cache.generation());
+
+        assertEquals(1, cache.getAll(List.of(1L, 2L)).size());
+
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void shouldExpireEntriesAfterTtl() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(5), ticker);
+        cache.putAll(List.of(product(1L)), cache.generation());
+
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+
+        assertTrue(cache.getAll(List.of(1L)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should evict entries beyond the maximum size")
+    void shouldEvictBeyondMaximumSize() {
+        ProductCache cache = new ProductCache(true, 10, Duration.ofMinutes(5), ticker);
+        for (long id = 1; id <= 50; id++) {
+            cache.putAll(List.of(product(id)), cache.generation());
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.stats().evictionCount() >= 40);
+    }
+
+    @Test
+    @DisplayName("Should drop results fetched before an invalidation")
+    void shouldDropResultsFetchedBeforeInvalidation() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(5), ticker);
+        long generation = cache.generation();
+
+        cache.invalidate(1L);
+        cache.putAll(List.of(product(1L)), generation);
+        cache.putListing(List.of(product(1L)), generation);
+
+        assertTrue(cache.getAll(List.of(1L)).isEmpty());
+        assertNull(cache.getListing());
+    }
+
+    @Test
+    @DisplayName("Should clear the listing when any product changes")
+    void shouldClearListingWhenProductChanges() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(5), ticker);
+        cache.putListing(List.of(product(1L), product(2L)), cache.generation());
+
+        cache.invalidate(2L);
+
+        assertNull(cache.getListing());
+        assertEquals(1, cache.getAll(List.of(1L, 2L)).size());
+    }
+}
@@ -1,8 +1,11 @@
 package cleosilva.order_simulator.controller;
 
+import cleosilva.order_simulator.cache.ProductCache;
 import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductBatchResponseDto;
 import cleosilva.order_simulator.dto.ProductDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +13,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
@@ -23,6 +27,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.hamcrest.Matchers.*;
 
 @SpringBootTest
+@ActiveProfiles("test")
 @AutoConfigureMockMvc
 public class OrderControllerIntegrationTest {
     @Autowired
@@ -31,6 +36,13 @@ public class OrderControllerIntegrationTest {
     private ObjectMapper objectMapper;
     @MockBean
     private ProductCatalogFeignClient productCatalogFeignClient;
+    @Autowired
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        productCache.invalidateAll();
+    }
 
     @Test
     @DisplayName("GET /orders/available-products should return a list of products")
@@ -74,8 +86,8 @@ public class OrderControllerIntegrationTest {
         ProductDto product1 = new ProductDto(1L, "Laptop", "High-end gaming laptop", new BigDecimal("5000.00"));
         ProductDto product2 = new ProductDto(2L, "Mouse", "Gaming mouse", new BigDecimal("150.00"));
 
-        when(productCatalogFeignClient.findProductById(1L)).thenReturn(product1);
-        when(productCatalogFeignClient.findProductById(2L)).thenReturn(product2);
+        when(productCatalogFeignClient.findProductsByIds(productIds))
+                .thenReturn(new ProductBatchResponseDto(Arrays.asList(product1, product2), Collections.emptyList()));
 
         mockMvc.perform(post("/orders/simulate")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -88,8 +100,7 @@ public class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.items[0].quantity", is(1)))
                 .andExpect(jsonPath("$.items[0].unitPrice", is(5000.00)));
 
-        verify(productCatalogFeignClient, times(1)).findProductById(1L);
-        verify(productCatalogFeignClient, times(1)).findProductById(2L);
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(productIds);
     }
 
     @Test
@@ -99,8 +110,8 @@ public class OrderControllerIntegrationTest {
 
         ProductDto product1 = new ProductDto(1L, "Laptop", "High-end gaming laptop", new BigDecimal("5000.00"));
 
-        when(productCatalogFeignClient.findProductById(1L)).thenReturn(product1);
-        when(productCatalogFeignClient.findProductById(99L)).thenReturn(null);
+        when(productCatalogFeignClient.findProductsByIds(productIds))
+                .thenReturn(new ProductBatchResponseDto(List.of(product1), List.of(99L)));
 
         mockMvc.perform(post("/orders/simulate")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -112,8 +123,7 @@ public class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.productsNotFound[0]", is(99)))
                 .andExpect(jsonPath("$.items[0].productId", is(1)));
 
-        verify(productCatalogFeignClient, times(1)).findProductById(1L);
-        verify(productCatalogFeignClient, times(1)).findProductById(99L);
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(productIds);
     }
 
     @Test
@@ -0,0 +1,36 @@
+package cleosilva.order_simulator.listener;
+
+import cleosilva.order_simulator.cache.ProductCache;
+import cleosilva.order_simulator.dto.ProductChangedEventDto;
+import cleosilva.order_simulator.replica.CatalogReplica;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class ProductEventListenerTest {
+
+    private final ProductCache productCache = mock(ProductCache.class);
+    private final CatalogReplica catalogReplica = mock(CatalogReplica.class);
+    private final ProductEventListener listener = new ProductEventListener(productCache, catalogReplica, new ObjectMapper());
+
+    @Test
+    @DisplayName("Should invalidate the changed product")
+    void shouldInvalidateChangedProduct() {
+        listener.receiveProductChangedEvent(
+                "{\"productId\":42,\"type\":\"UPDATED\",\"version\":3,\"name\":\"Mouse\",\"description\":\"Gaming mouse\",\"price\":150.00}");
+
+        verify(productCache).invalidate(42L);
+        verify(productCache, never()).invalidateAll();
+        verify(catalogReplica).apply(argThat((ProductChangedEventDto event) -> event.productId() == 42L && event.version() == 3L));
+    }
+
+    @Test
+    @DisplayName("Should clear the whole cache on an unreadable event")
+    void shouldClearCacheOnUnreadableEvent() {
+        listener.receiveProductChangedEvent("not json");
+
+        verify(productCache).invalidateAll();
+    }
+}
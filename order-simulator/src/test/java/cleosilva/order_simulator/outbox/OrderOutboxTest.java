@@ -0,0 +1,144 @@
+package cleosilva.order_simulator.outbox;
+
+import cleosilva.order_simulator.service.OrderEventBatchPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OrderOutboxTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private final OrderEventBatchPublisher batchPublisher = mock(OrderEventBatchPublisher.class);
+    private OrderOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        outbox = outbox(batchPublisher);
+    }
+
+    private OrderOutbox outbox(OrderEventBatchPublisher publisher) {
+        return new OrderOutbox(jdbcTemplate, publisher, new SimpleMeterRegistry(), true, 2,
+                Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static Message message(String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private static List<String> bodies(List<Message> messages) {
+        return messages.stream().map(message -> new String(message.getBody(), StandardCharsets.UTF_8)).toList();
+    }
+
+    private int pendingRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_outbox", Integer.class);
+    }
+
+    @Test
+    @DisplayName("Should relay the oldest rows in batches and delete them once confirmed")
+    void shouldRelayInBatchesAndDeleteConfirmedRows() {
+        when(batchPublisher.publish(anyList())).thenReturn(true);
+        outbox.append(message("{\"order\":1}"));
+        outbox.append(message("{\"order\":2}"));
+        outbox.append(message("{\"order\":3}"));
+
+        assertEquals(2, outbox.relayBatch());
+        assertEquals(1, outbox.relayBatch());
+        assertEquals(0, outbox.relayBatch());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Message>> batches = ArgumentCaptor.forClass(List.class);
+        verify(batchPublisher, times(2)).publish(batches.capture());
+        assertEquals(List.of("{\"order\":1}", "{\"order\":2}"), bodies(batches.getAllValues().get(0)));
+        assertEquals(List.of("{\"order\":3}"), bodies(batches.getAllValues().get(1)));
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON,
+                batches.getAllValues().get(0).get(0).getMessageProperties().getContentType());
+        assertEquals(0, pendingRows());
+    }
+
+    @Test
+    @DisplayName("Should keep rows in the outbox when the broker does not confirm them")
+    void shouldKeepRowsWhenBrokerDoesNotConfirm() {
+        when(batchPublisher.publish(anyList())).thenReturn(false, true);
+        outbox.append(message("{\"order\":1}"));
+
+        assertThrows(OrderOutbox.RelayFailedException.class, () -> outbox.relayBatch());
+        assertEquals(1, pendingRows());
+
+        assertEquals(1, outbox.relayBatch());
+        assertEquals(0, pendingRows());
+    }
+
+    @Test
+    @DisplayName("Another relay should skip rows claimed by an instance whose lease is still valid")
+    void otherRelayShouldSkipClaimedRows() {
+        when(batchPublisher.publish(anyList())).thenReturn(false, true);
+        OrderEventBatchPublisher otherPublisher = mock(OrderEventBatchPublisher.class);
+        when(otherPublisher.publish(anyList())).thenReturn(true);
+        OrderOutbox other = outbox(otherPublisher);
+        outbox.append(message("{\"order\":1}"));
+        outbox.append(message("{\"order\":2}"));
+        outbox.append(message("{\"order\":3}"));
+
+        assertThrows(OrderOutbox.RelayFailedException.class, () -> outbox.relayBatch());
+        assertEquals(1, other.relayBatch());
+        assertEquals(0, other.relayBatch());
+        assertEquals(2, outbox.relayBatch());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Message>> otherBatches = ArgumentCaptor.forClass(List.class);
+        verify(otherPublisher).publish(otherBatches.capture());
+        assertEquals(List.of("{\"order\":3}"), bodies(otherBatches.getValue()));
+        assertEquals(0, pendingRows());
+    }
+
+    @Test
+    @DisplayName("Background relay should drain rows appended by requests")
+    void backgroundRelayShouldDrainAppendedRows() throws InterruptedException {
+        when(batchPublisher.publish(anyList())).thenReturn(true);
+        when(batchPublisher.confirmTimeout()).thenReturn(Duration.ofSeconds(1));
+        outbox.start();
+        try {
+            for (int i = 0; i < 25; i++) {
+                outbox.append(message("{\"order\":" + i + "}"));
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pendingRows() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, pendingRows());
+        } finally {
+            outbox.stop();
+        }
+    }
+}
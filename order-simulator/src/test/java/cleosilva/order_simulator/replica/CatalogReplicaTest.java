@@ -0,0 +1,166 @@
+package cleosilva.order_simulator.replica;
+
+import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductChangedEventDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CatalogReplicaTest {
+
+    private final ProductCatalogFeignClient productCatalogFeignClient = mock(ProductCatalogFeignClient.class);
+    private final CatalogReplica replica = new CatalogReplica(productCatalogFeignClient, new ObjectMapper(),
+            true, Duration.ofMillis(100), 10);
+
+    @AfterEach
+    void tearDown() {
+        replica.stop();
+    }
+
+    private static Response export(long version, String ndjson) {
+        Request request = Request.create(Request.HttpMethod.GET, "/products/export", Map.of(), null,
+                StandardCharsets.UTF_8, null);
+        return Response.builder()
+                .status(200)
+                .request(request)
+                .headers(Map.of(CatalogReplica.CATALOG_VERSION_HEADER, List.of(Long.toString(version))))
+                .body(ndjson, StandardCharsets.UTF_8)
+                .build();
+    }
+
+    private static ProductChangedEventDto updated(long id, long version, String price) {
+        return new ProductChangedEventDto(id, "UPDATED", version, "Product " + id, "Description", new BigDecimal(price));
+    }
+
+    private void loadSnapshot() {
+        when(productCatalogFeignClient.exportProducts()).thenReturn(export(5, """
+                {"id":1,"name":"Laptop","description":"Gaming laptop","price":5000.00}
+                {"id":2,"name":"Mouse","description":"Gaming mouse","price":150.00}
+                """));
+        replica.resync();
+    }
+
+    @Test
+    @DisplayName("Should load the export and answer lookups from memory")
+    void shouldLoadExportAndAnswerLookups() {
+        loadSnapshot();
+
+        assertTrue(replica.isReady());
+        assertEquals(5, replica.version());
+        assertEquals(Set.of(1L, 2L), replica.findProducts(List.of(1L, 2L, 3L)).keySet());
+        assertEquals(2, replica.listProducts().size());
+    }
+
+    @Test
+    @DisplayName("Should apply contiguous events and ignore ones already in the snapshot")
+    void shouldApplyContiguousEventsAndIgnoreOldOnes() {
+        loadSnapshot();
+
+        replica.apply(updated(1L, 4, "1.00"));
+        replica.apply(updated(1L, 6, "4500.00"));
+        replica.apply(new ProductChangedEventDto(2L, ProductChangedEventDto.DELETED, 7L, null, null, null));
+
+        assertEquals(7, replica.version());
+        assertEquals(new BigDecimal("4500.00"), replica.findProducts(List.of(1L)).get(1L).price());
+        assertTrue(replica.findProducts(List.of(2L)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should hold out-of-order events until the gap is filled")
+    void shouldHoldOutOfOrderEventsUntilGapIsFilled() {
+        loadSnapshot();
+
+        replica.apply(updated(3L, 7, "30.00"));
+        assertEquals(5, replica.version());
+        assertTrue(replica.findProducts(List.of(3L)).isEmpty());
+
+        replica.apply(updated(1L, 6, "4500.00"));
+
+        assertEquals(7, replica.version());
+        assertEquals(Set.of(1L, 3L), replica.findProducts(List.of(1L, 3L)).keySet());
+    }
+
+    @Test
+    @DisplayName("Should keep every product of a bulk write, each carrying its own version")
+    void shouldApplyEveryProductOfBulkWrite() {
+        loadSnapshot();
+
+        // Um chunk de POST /products/bulk: versões consecutivas, publicadas após o mesmo commit
+        replica.apply(updated(4L, 8, "40.00"));
+        replica.apply(updated(3L, 6, "30.00"));
+        replica.apply(updated(1L, 7, "4500.00"));
+
+        assertEquals(8, replica.version());
+        assertEquals(Set.of(1L, 2L, 3L, 4L), replica.findProducts(List.of(1L, 2L, 3L, 4L)).keySet());
+        assertEquals(new BigDecimal("4500.00"), replica.findProducts(List.of(1L)).get(1L).price());
+    }
+
+    @Test
+    @DisplayName("Should resynchronize when a version gap is not filled in time")
+    void shouldResyncWhenGapIsNotFilled() throws InterruptedException {
+        loadSnapshot();
+        when(productCatalogFeignClient.exportProducts()).thenReturn(export(9, """
+                {"id":1,"name":"Laptop","description":"Gaming laptop","price":4000.00}
+                """));
+
+        replica.apply(updated(1L, 8, "4200.00"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (replica.version() != 9 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(9, replica.version());
+        assertEquals(new BigDecimal("4000.00"), replica.findProducts(List.of(1L)).get(1L).price());
+        verify(productCatalogFeignClient, times(2)).exportProducts();
+    }
+
+    @Test
+    @DisplayName("Should apply events received before the first load once the snapshot arrives")
+    void shouldApplyEventsBufferedBeforeFirstLoad() {
+        replica.apply(updated(2L, 5, "1.00"));
+        replica.apply(updated(2L, 6, "175.00"));
+        assertFalse(replica.isReady());
+
+        loadSnapshot();
+
+        assertEquals(6, replica.version());
+        assertEquals(new BigDecimal("175.00"), replica.findProducts(List.of(2L)).get(2L).price());
+    }
+
+    @Test
+    @DisplayName("Should bound events buffered before the first load and resync when the snapshot leaves a gap")
+    void shouldBoundBufferedEventsAndCheckGapAfterLoad() throws InterruptedException {
+        for (long version = 6; version <= 25; version++) {
+            replica.apply(updated(1L, version, "1.00"));
+        }
+        assertEquals(10, replica.pendingEvents());
+
+        // Os eventos 6 a 15 foram descartados: o snapshot na versão 5 não alcança o primeiro acumulado (16)
+        loadSnapshot();
+        assertEquals(5, replica.version());
+        when(productCatalogFeignClient.exportProducts()).thenReturn(export(25, """
+                {"id":1,"name":"Laptop","description":"Gaming laptop","price":1.00}
+                """));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (replica.version() != 25 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(25, replica.version());
+        assertEquals(0, replica.pendingEvents());
+        verify(productCatalogFeignClient, times(2)).exportProducts();
+    }
+}
@@ -0,0 +1,53 @@
+package cleosilva.order_simulator.replica;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectMapTest {
+
+    @Test
+    @DisplayName("Should put, get and remove including the zero key")
+    void shouldPutGetAndRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(1L, "one"));
+        assertEquals("one", map.put(1L, "uno"));
+
+        assertEquals(2, map.size());
+        assertEquals("zero", map.get(0L));
+        assertEquals("uno", map.get(1L));
+        assertNull(map.get(2L));
+
+        assertEquals("zero", map.remove(0L));
+        assertEquals("uno", map.remove(1L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should behave like a HashMap under random operations")
+    void shouldMatchHashMapUnderRandomOperations() {
+        LongObjectMap<Long> map = new LongObjectMap<>(4);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 100;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+                case 1 -> assertEquals(reference.remove(key), map.remove(key));
+                default -> assertEquals(reference.get(key), map.get(key));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+        assertEquals(reference.size(), map.values().size());
+    }
+}
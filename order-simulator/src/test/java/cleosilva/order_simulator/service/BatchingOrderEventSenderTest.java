@@ -0,0 +1,167 @@
+package cleosilva.order_simulator.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchingOrderEventSenderTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger sentMessages = new AtomicInteger();
+    private final List<String> sentBodies = new CopyOnWriteArrayList<>();
+    private BatchingOrderEventSender sender;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (sender != null) {
+            sender.stop();
+        }
+    }
+
+    private BatchingOrderEventSender sender(int capacity, int batchSize, int maxAttempts,
+                                            BatchingOrderEventSender.OverflowPolicy policy) {
+        OrderEventBatchPublisher batchPublisher = new OrderEventBatchPublisher(rabbitTemplate, meterRegistry, Duration.ofSeconds(1));
+        sender = new BatchingOrderEventSender(batchPublisher, meterRegistry, true, capacity, batchSize,
+                Duration.ofMillis(5), maxAttempts, Duration.ofMillis(10), policy,
+                Duration.ofMillis(10), tempDir.resolve("order-events.spill"));
+        return sender;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void brokerConfirms(BooleanSupplier confirm) {
+        doAnswer(invocation -> {
+            sentMessages.incrementAndGet();
+            sentBodies.add(new String(invocation.<Message>getArgument(2).getBody(), StandardCharsets.UTF_8));
+            return null;
+        }).when(operations).send(anyString(), anyString(), any(Message.class));
+        when(operations.waitForConfirms(anyLong())).thenAnswer(invocation -> confirm.getAsBoolean());
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenAnswer(invocation -> ((RabbitOperations.OperationsCallback<Object>) invocation.getArgument(0))
+                        .doInRabbit(operations));
+    }
+
+    private static Message message(String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met in time");
+    }
+
+    @Test
+    @DisplayName("Should publish queued events in batches on one channel each")
+    void shouldPublishInBatches() throws InterruptedException {
+        brokerConfirms(() -> true);
+        BatchingOrderEventSender sender = sender(1_000, 50, 3, BatchingOrderEventSender.OverflowPolicy.BLOCK);
+        sender.start();
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(sender.enqueue(message("{\"order\":" + i + "}")));
+        }
+
+        await(() -> counter("order.events.published") == 500);
+        verify(rabbitTemplate, atMost(499)).invoke(any(RabbitOperations.OperationsCallback.class));
+        assertEquals(500, sentMessages.get());
+        assertTrue(meterRegistry.timer("order.events.confirm.latency").count() > 0);
+    }
+
+    @Test
+    @DisplayName("Should resend a batch that the broker nacked")
+    void shouldRetryNackedBatch() throws InterruptedException {
+        AtomicBoolean firstAttempt = new AtomicBoolean(true);
+        brokerConfirms(() -> !firstAttempt.getAndSet(false));
+        BatchingOrderEventSender sender = sender(10, 10, 3, BatchingOrderEventSender.OverflowPolicy.BLOCK);
+        sender.start();
+
+        sender.enqueue(message("{\"order\":1}"));
+
+        await(() -> counter("order.events.published") == 1);
+        assertEquals(1, counter("order.events.nacked"));
+        assertEquals(2, sentMessages.get());
+    }
+
+    @Test
+    @DisplayName("Should drop new events when the queue is full under the DROP policy")
+    void shouldDropWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch brokerStalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        brokerConfirms(() -> {
+            brokerStalled.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        BatchingOrderEventSender sender = sender(1, 1, 1, BatchingOrderEventSender.OverflowPolicy.DROP);
+        sender.start();
+
+        assertTrue(sender.enqueue(message("first")));
+        assertTrue(brokerStalled.await(5, TimeUnit.SECONDS));
+        assertTrue(sender.enqueue(message("second")));
+        assertFalse(sender.enqueue(message("third")));
+
+        assertEquals(1, counter("order.events.dropped"));
+        assertEquals(1, sender.queueDepth());
+        release.countDown();
+        await(() -> counter("order.events.published") == 2);
+    }
+
+    @Test
+    @DisplayName("Should spill a batch that exhausted its retries and replay it once the broker recovers")
+    void shouldSpillAndReplayAfterRecovery() throws InterruptedException {
+        AtomicBoolean brokerUp = new AtomicBoolean(false);
+        brokerConfirms(brokerUp::get);
+        BatchingOrderEventSender sender = sender(10, 10, 2, BatchingOrderEventSender.OverflowPolicy.SPILL);
+        sender.start();
+
+        sender.enqueue(message("{\"order\":1}"));
+        sender.enqueue(message("{\"order\":2}"));
+
+        await(() -> counter("order.events.spilled") == 2);
+        assertEquals(0, counter("order.events.dropped"));
+
+        brokerUp.set(true);
+        await(() -> counter("order.events.published") == 2);
+        assertTrue(sentBodies.containsAll(List.of("{\"order\":1}", "{\"order\":2}")));
+        assertFalse(Files.exists(tempDir.resolve("order-events.spill")));
+    }
+}
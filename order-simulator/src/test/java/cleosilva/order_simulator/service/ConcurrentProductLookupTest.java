@@ -0,0 +1,153 @@
+package cleosilva.order_simulator.service;
+
+import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductBatchResponseDto;
+import cleosilva.order_simulator.dto.ProductDto;
+import feign.Response;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentProductLookupTest {
+
+    private static final long LATENCY_MILLIS = 50;
+
+    /**
+     * Catálogo falso com latência injetada por chamada. Ids em {@code slowIds} demoram 5s,
+     * ids maiores que 1000 não existem.
+     */
+    static class LatencyInjectingCatalog implements ProductCatalogFeignClient {
+        private final Set<Long> slowIds;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        LatencyInjectingCatalog(Set<Long> slowIds) {
+            this.slowIds = slowIds;
+        }
+
+        @Override
+        public ProductDto findProductById(Long id) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(slowIds.contains(id) ? 5_000 : LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted", e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return id > 1000 ? null : new ProductDto(id, "Product " + id, "Description", new BigDecimal("10.00"));
+        }
+
+        @Override
+        public ProductBatchResponseDto findProductsByIds(List<Long> ids) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ProductDto> listProducts() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Response exportProducts() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Concurrent lookup should have every product call in flight at the same time")
+    void concurrentLookup_shouldOverlapCalls() {
+        List<Long> productIds = ids(20);
+        // Cada chamada só responde depois que todas as 20 começaram: num laço sequencial a primeira esperaria para sempre
+        CountDownLatch allStarted = new CountDownLatch(productIds.size());
+        AtomicInteger overlapped = new AtomicInteger();
+        LatencyInjectingCatalog catalog = new LatencyInjectingCatalog(Set.of()) {
+            @Override
+            public ProductDto findProductById(Long id) {
+                allStarted.countDown();
+                try {
+                    if (allStarted.await(5, TimeUnit.SECONDS)) {
+                        overlapped.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted", e);
+                }
+                return new ProductDto(id, "Product " + id, "Description", new BigDecimal("10.00"));
+            }
+        };
+
+        ProductLookupResult result = new ConcurrentProductLookup(catalog, 20, 10_000).findProducts(productIds);
+
+        assertEquals(20, result.productsById().size());
+        assertTrue(result.unresolvedIds().isEmpty());
+        assertEquals(20, overlapped.get());
+    }
+
+    @Test
+    @DisplayName("Concurrent lookup should be much faster than the sequential path under injected latency")
+    void concurrentLookup_shouldBeatSequentialPath() {
+        List<Long> productIds = ids(20);
+        LatencyInjectingCatalog catalog = new LatencyInjectingCatalog(Set.of());
+
+        // Fan-out 1 é o caminho sequencial: o mesmo código e o mesmo catálogo, uma chamada por vez
+        long sequentialStart = System.nanoTime();
+        ProductLookupResult sequential = new ConcurrentProductLookup(catalog, 1, 10_000).findProducts(productIds);
+        long sequentialMillis = (System.nanoTime() - sequentialStart) / 1_000_000;
+
+        long concurrentStart = System.nanoTime();
+        ProductLookupResult concurrent = new ConcurrentProductLookup(catalog, 20, 10_000).findProducts(productIds);
+        long concurrentMillis = (System.nanoTime() - concurrentStart) / 1_000_000;
+
+        assertEquals(sequential.productsById(), concurrent.productsById());
+        assertEquals(20, concurrent.productsById().size());
+        // 20 x 50 ms contra ~50 ms; a razão folgada tolera uma máquina de CI lenta
+        assertTrue(concurrentMillis * 3 < sequentialMillis,
+                "concurrent " + concurrentMillis + " ms vs sequential " + sequentialMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Concurrent lookup should never exceed the configured fan-out")
+    void concurrentLookup_shouldCapFanOut() {
+        LatencyInjectingCatalog catalog = new LatencyInjectingCatalog(Set.of());
+        ConcurrentProductLookup lookup = new ConcurrentProductLookup(catalog, 4, 5_000);
+
+        ProductLookupResult result = lookup.findProducts(ids(16));
+
+        assertEquals(16, result.productsById().size());
+        assertTrue(catalog.maxInFlight.get() <= 4, "max in flight was " + catalog.maxInFlight.get());
+    }
+
+    @Test
+    @DisplayName("Products that miss the deadline should be reported as unresolved")
+    void concurrentLookup_shouldReportTimedOutProductsAsUnresolved() {
+        LatencyInjectingCatalog catalog = new LatencyInjectingCatalog(Set.of(3L));
+        ConcurrentProductLookup lookup = new ConcurrentProductLookup(catalog, 8, 300);
+
+        long start = System.nanoTime();
+        ProductLookupResult result = lookup.findProducts(List.of(1L, 2L, 3L, 2000L));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Set.of(1L, 2L), result.productsById().keySet());
+        assertEquals(Set.of(3L), result.unresolvedIds());
+        assertTrue(elapsedMillis < 2_000, "deadline was not enforced: " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,78 @@
+package cleosilva.order_simulator.service;
+
+import cleosilva.order_events.OrderEventTopology;
+import cleosilva.order_events.OrderCreatedEvent;
+import cleosilva.order_events.OrderCreatedEventCodec;
+import cleosilva.order_events.OrderEventContentTypes;
+import cleosilva.order_events.OrderEventMessageConverter;
+import cleosilva.order_events.OrderEventWireFormat;
+import cleosilva.order_simulator.dto.OrderItemDto;
+import cleosilva.order_simulator.dto.SimulatedOrderResponseDto;
+import cleosilva.order_simulator.outbox.OrderOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventPublisherTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private BatchingOrderEventSender batchingOrderEventSender;
+
+    @Mock
+    private OrderOutbox orderOutbox;
+
+    @InjectMocks
+    private OrderEventPublisher orderEventPublisher;
+
+    private final SimulatedOrderResponseDto order = new SimulatedOrderResponseDto(
+            List.of(new OrderItemDto(1L, 2, new BigDecimal("10.50"))), new BigDecimal("21.00"), List.of(99L));
+
+    @BeforeEach
+    void setUp() {
+        when(rabbitTemplate.getMessageConverter())
+                .thenReturn(new OrderEventMessageConverter(OrderEventWireFormat.BINARY, new ObjectMapper()));
+    }
+
+    @Test
+    @DisplayName("Should send the order as a binary event when async publishing and the outbox are off")
+    void shouldSendBinaryEventSynchronously() {
+        orderEventPublisher.publishOrderCreatedEvent(order);
+
+        ArgumentCaptor<Message> message = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(OrderEventTopology.EXCHANGE_NAME), eq(OrderEventTopology.ROUTING_KEY), message.capture());
+        assertEquals(OrderEventContentTypes.BINARY_V1, message.getValue().getMessageProperties().getContentType());
+        OrderCreatedEvent event = OrderCreatedEventCodec.decode(message.getValue().getBody());
+        assertEquals(new OrderCreatedEvent(List.of(new OrderCreatedEvent.Item(1L, 2, new BigDecimal("10.50"))),
+                new BigDecimal("21.00"), List.of(99L), List.of()), event);
+    }
+
+    @Test
+    @DisplayName("Should hand the serialized message to the outbox when it is enabled")
+    void shouldAppendToOutbox() {
+        when(orderOutbox.isEnabled()).thenReturn(true);
+
+        orderEventPublisher.publishOrderCreatedEvent(order);
+
+        verify(orderOutbox).append(any(Message.class));
+        verifyNoInteractions(batchingOrderEventSender);
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+}
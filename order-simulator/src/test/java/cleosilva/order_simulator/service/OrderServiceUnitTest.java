@@ -1,9 +1,12 @@
 package cleosilva.order_simulator.service;
 
+import cleosilva.order_simulator.cache.ProductCache;
 import cleosilva.order_simulator.client.ProductCatalogFeignClient;
+import cleosilva.order_simulator.dto.ProductBatchResponseDto;
 import cleosilva.order_simulator.dto.ProductDto;
 import cleosilva.order_simulator.dto.OrderItemDto;
 import cleosilva.order_simulator.dto.SimulatedOrderResponseDto;
+import cleosilva.order_simulator.replica.CatalogReplica;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -11,11 +14,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +32,15 @@ class OrderServiceUnitTest {
     @Mock
     private ProductCatalogFeignClient productCatalogFeignClient;
 
+    @Mock
+    private ConcurrentProductLookup concurrentProductLookup;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private CatalogReplica catalogReplica;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -38,6 +53,7 @@ class OrderServiceUnitTest {
 
         product1 = new ProductDto(1L, "Laptop", "High-end gaming laptop", new BigDecimal("5000.00"));
         product2 = new ProductDto(2L, "Mouse", "Gaming mouse", new BigDecimal("150.00"));
+        ReflectionTestUtils.setField(orderService, "batchMaxIds", 1000);
     }
 
     @Test
@@ -47,9 +63,8 @@ class OrderServiceUnitTest {
         List<Long> productIds = Arrays.asList(1L, 2L);
 
 
-        when(productCatalogFeignClient.findProductById(1L)).thenReturn(product1);
-
-        when(productCatalogFeignClient.findProductById(2L)).thenReturn(product2);
+        when(productCatalogFeignClient.findProductsByIds(productIds))
+                .thenReturn(new ProductBatchResponseDto(Arrays.asList(product1, product2), Collections.emptyList()));
 
 
         SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
@@ -72,8 +87,8 @@ class OrderServiceUnitTest {
         assertEquals(new BigDecimal("150.00"), item2.unitPrice());
 
 
-        verify(productCatalogFeignClient, times(1)).findProductById(1L);
-        verify(productCatalogFeignClient, times(1)).findProductById(2L);
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(productIds);
+        verify(productCatalogFeignClient, never()).findProductById(anyLong());
     }
 
     @Test
@@ -83,8 +98,8 @@ class OrderServiceUnitTest {
         List<Long> productIds = Arrays.asList(1L, 3L); // 3L não existe
 
 
-        when(productCatalogFeignClient.findProductById(1L)).thenReturn(product1);
-        when(productCatalogFeignClient.findProductById(3L)).thenReturn(null); // Simula produto não encontrado
+        when(productCatalogFeignClient.findProductsByIds(productIds)) // Simula produto 3L não encontrado
+                .thenReturn(new ProductBatchResponseDto(List.of(product1), List.of(3L)));
 
         SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
 
@@ -94,8 +109,7 @@ class OrderServiceUnitTest {
         assertEquals(1, response.productsNotFound().size()); // O produto 3L deve estar na lista de não encontrados
         assertTrue(response.productsNotFound().contains(3L));
 
-        verify(productCatalogFeignClient, times(1)).findProductById(1L);
-        verify(productCatalogFeignClient, times(1)).findProductById(3L);
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(productIds);
     }
 
     @Test
@@ -105,7 +119,8 @@ class OrderServiceUnitTest {
         List<Long> productIds = Arrays.asList(4L, 5L);
 
 
-        when(productCatalogFeignClient.findProductById(anyLong())).thenReturn(null); // Qualquer ID retorna null
+        when(productCatalogFeignClient.findProductsByIds(anyList())) // Nenhum ID encontrado
+                .thenReturn(new ProductBatchResponseDto(Collections.emptyList(), productIds));
 
         SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
 
@@ -115,8 +130,99 @@ class OrderServiceUnitTest {
         assertEquals(2, response.productsNotFound().size());
         assertTrue(response.productsNotFound().containsAll(Arrays.asList(4L, 5L)));
 
-        verify(productCatalogFeignClient, times(1)).findProductById(4L);
-        verify(productCatalogFeignClient, times(1)).findProductById(5L);
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(productIds);
+    }
+
+    @Test
+    @DisplayName("Should fetch repeated product ids once and price each cart line")
+    void simulateOrder_withRepeatedProductIds_shouldFetchOnceAndPriceEveryLine() {
+
+        List<Long> productIds = Arrays.asList(1L, 2L, 1L);
+
+        when(productCatalogFeignClient.findProductsByIds(List.of(1L, 2L)))
+                .thenReturn(new ProductBatchResponseDto(Arrays.asList(product1, product2), Collections.emptyList()));
+
+        SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
+
+        assertEquals(3, response.items().size());
+        assertEquals(new BigDecimal("10150.00"), response.totalAmount());
+        assertTrue(response.productsNotFound().isEmpty());
+
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Should split carts larger than the catalog batch limit into several batch calls")
+    void simulateOrder_withLargeCart_shouldSplitBatchCalls() {
+        ReflectionTestUtils.setField(orderService, "batchMaxIds", 2);
+        List<Long> productIds = Arrays.asList(1L, 2L, 3L);
+
+        when(productCatalogFeignClient.findProductsByIds(List.of(1L, 2L)))
+                .thenReturn(new ProductBatchResponseDto(Arrays.asList(product1, product2), Collections.emptyList()));
+        when(productCatalogFeignClient.findProductsByIds(List.of(3L)))
+                .thenReturn(new ProductBatchResponseDto(Collections.emptyList(), List.of(3L)));
+
+        SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
+
+        assertEquals(2, response.items().size());
+        assertEquals(List.of(3L), response.productsNotFound());
+        verify(productCatalogFeignClient, times(2)).findProductsByIds(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report unresolved products separately in concurrent mode")
+    void simulateOrder_inConcurrentMode_shouldReportUnresolvedProducts() {
+        ReflectionTestUtils.setField(orderService, "simulationMode", OrderService.CONCURRENT_MODE);
+        List<Long> productIds = Arrays.asList(1L, 2L, 3L);
+
+        when(concurrentProductLookup.findProducts(productIds))
+                .thenReturn(new ProductLookupResult(Map.of(1L, product1), Set.of(2L)));
+
+        SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
+
+        assertEquals(1, response.items().size());
+        assertEquals(new BigDecimal("5000.00"), response.totalAmount());
+        assertEquals(List.of(2L), response.productsUnresolved());
+        assertEquals(List.of(3L), response.productsNotFound());
+
+        verifyNoInteractions(productCatalogFeignClient);
+    }
+
+    @Test
+    @DisplayName("Should only fetch products missing from the cache when caching is enabled")
+    void simulateOrder_withCacheEnabled_shouldFetchOnlyCacheMisses() {
+        List<Long> productIds = Arrays.asList(1L, 2L);
+
+        when(productCache.isEnabled()).thenReturn(true);
+        when(productCache.getAll(productIds)).thenReturn(Map.of(1L, product1));
+        when(productCache.generation()).thenReturn(7L);
+        when(productCatalogFeignClient.findProductsByIds(List.of(2L)))
+                .thenReturn(new ProductBatchResponseDto(List.of(product2), Collections.emptyList()));
+
+        SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
+
+        assertEquals(2, response.items().size());
+        assertEquals(new BigDecimal("5150.00"), response.totalAmount());
+
+        verify(productCatalogFeignClient, times(1)).findProductsByIds(List.of(2L));
+        verify(productCache, times(1)).putAll(argThat(fetched -> fetched.size() == 1 && fetched.contains(product2)), eq(7L));
+    }
+
+    @Test
+    @DisplayName("Should price the order from the catalog replica without calling the catalog")
+    void simulateOrder_withReplicaReady_shouldNotCallCatalog() {
+        List<Long> productIds = Arrays.asList(1L, 9L);
+
+        when(catalogReplica.isReady()).thenReturn(true);
+        when(catalogReplica.findProducts(productIds)).thenReturn(Map.of(1L, product1));
+
+        SimulatedOrderResponseDto response = orderService.simulateOrder(productIds);
+
+        assertEquals(1, response.items().size());
+        assertEquals(List.of(9L), response.productsNotFound());
+        assertTrue(response.productsUnresolved().isEmpty());
+
+        verifyNoInteractions(productCatalogFeignClient, productCache);
     }
 
     @Test
@@ -0,0 +1,17 @@
+-- Migração única para bancos Postgres criados antes de o id de products vir da sequência products_seq
+-- (coluna IDENTITY). O ddl-auto cria a sequência, mas não sabe que os ids já usados precisam ser pulados.
+-- Rode uma vez, com o product-catalog parado:
+--   docker-compose exec -T postgres psql -U user -d catalogo_db < product-catalog/db/migrations/001-products-identity-to-sequence.sql
+
+BEGIN;
+
+-- allocationSize = 50 em Product: o otimizador pooled reserva os 50 ids que terminam no valor lido
+CREATE SEQUENCE IF NOT EXISTS products_seq START WITH 1 INCREMENT BY 50;
+
+-- O próximo nextval devolve max(id) + 50, e o primeiro bloco começa logo depois do maior id existente
+SELECT setval('products_seq', GREATEST((SELECT max(id) FROM products), 1));
+
+-- O Hibernate passa a enviar o id em cada INSERT; a coluna deixa de gerar valores por conta própria
+ALTER TABLE products ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+COMMIT;
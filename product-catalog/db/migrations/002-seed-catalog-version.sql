@@ -0,0 +1,10 @@
+-- Cria a linha da versão do catálogo em bancos Postgres que ainda não a têm. O data.sql faz o mesmo a cada
+-- subida; rodar este script antes é o caminho seguro quando várias instâncias sobem juntas num banco novo.
+--   docker-compose exec -T postgres psql -U user -d catalogo_db < product-catalog/db/migrations/002-seed-catalog-version.sql
+
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+INSERT INTO catalog_version (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
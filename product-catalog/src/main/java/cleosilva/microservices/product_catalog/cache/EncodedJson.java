@@ -0,0 +1,40 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Corpo JSON já serializado, com a versão gzip quando habilitada e o ETag forte da representação
+ * sem compressão (o corpo gzip usa {@link #gzipETag()}). Os arrays não devem ser alterados.
+ */
+public record EncodedJson(byte[] json, byte[] gzip, String etag) {
+
+    public boolean hasGzip() {
+        return gzip != null;
+    }
+
+    public String gzipETag() {
+        return gzipVariant(etag);
+    }
+
+    // Bytes diferentes pedem ETag forte diferente: a variante gzip ganha sufixo
+    public static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /** ETag de um produto: a versão do {@code @Version} basta, o escopo é a URL do produto. */
+    public static String versionETag(long version) {
+        return "\"v" + version + "\"";
+    }
+
+    /** ETag derivado do conteúdo, igual em todas as réplicas que servem os mesmos bytes. */
+    public static String contentETag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import cleosilva.microservices.product_catalog.datasource.ReadRouting;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Cache read-through de produtos por id, limitado por tamanho. O Caffeine usa W-TinyLFU: um produto
+ * lido uma única vez não expulsa os produtos quentes. O TTL é a rede de segurança contra escritas que
+ * não passam pelo serviço.
+ * <p>
+ * A invalidação das escritas acontece depois do commit. Uma carga em andamento para o mesmo id termina
+ * antes da remoção (o Caffeine serializa operações por chave), então um valor lido antes do commit
+ * nunca sobrevive a ela.
+ * <p>
+ * Cada entrada guarda também o JSON já serializado (e o gzip, se habilitado), então
+ * {@code GET /products/{id}} escreve os bytes direto na resposta. Toda invalidação marca o produto na
+ * {@link ProductListingCache}.
+ * <p>
+ * Com leituras em réplicas, uma carga concorrente pode recolocar no cache o valor antigo lido de uma réplica
+ * atrasada; com {@code catalog.cache.replica-lag} maior que zero, toda invalidação se repete depois desse
+ * atraso, que com o roteamento ligado nunca é menor que {@code pin-after-write}. Um cliente fixado no primário
+ * ({@link ReadRouting}) não usa o cache: lê direto do primário e não guarda nada, para sempre ver as próprias
+ * escritas.
+ */
+@Component
+public class ProductCache {
+
+    private final boolean enabled;
+    private final Cache<Long, Entry> products;
+    private final ProductJsonEncoder encoder;
+    private final ProductListingCache listing;
+    private final Executor delayedInvalidation;
+
+    private record Entry(ProductView product, EncodedJson body) { }
+
+    @Autowired
+    public ProductCache(@Value("${catalog.cache.enabled:true}") boolean enabled,
+                        @Value("${catalog.cache.max-size:10000}") long maxSize,
+                        @Value("${catalog.cache.ttl:PT10M}") Duration ttl,
+                        @Value("${catalog.cache.replica-lag:PT0S}") Duration replicaLag,
+                        @Value("${catalog.datasource.routing.enabled:false}") boolean routingEnabled,
+                        @Value("${catalog.datasource.routing.pin-after-write:PT5S}") Duration pinAfterWrite,
+                        MeterRegistry meterRegistry,
+                        ProductJsonEncoder encoder,
+                        ProductListingCache listing) {
+        // Enquanto o autor da escrita está fixado no primário, outro cliente ainda pode ler a réplica atrasada
+        this(enabled, maxSize, ttl,
+                routingEnabled && replicaLag.compareTo(pinAfterWrite) < 0 ? pinAfterWrite : replicaLag,
+                Ticker.systemTicker(), encoder, listing);
+        CaffeineCacheMetrics.monitor(meterRegistry, products, "catalog.products");
+        Gauge.builder("catalog.products.cache.hit.ratio", products, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    ProductCache(boolean enabled, long maxSize, Duration ttl, Duration replicaLag, Ticker ticker,
+                 ProductJsonEncoder encoder, ProductListingCache listing) {
+        this.enabled = enabled;
+        this.encoder = encoder;
+        this.listing = listing;
+        this.delayedInvalidation = replicaLag.isZero()
+                ? null
+                : CompletableFuture.delayedExecutor(replicaLag.toNanos(), TimeUnit.NANOSECONDS);
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retorna o produto do cache ou o carrega com {@code loader}; cargas concorrentes do mesmo id
+     * compartilham uma única consulta. Produtos inexistentes não são guardados. A projeção é imutável,
+     * então a mesma instância é entregue a todos.
+     */
+    public Optional<ProductView> get(long id, LongFunction<Optional<ProductView>> loader) {
+        if (bypass()) {
+            return loader.apply(id);
+        }
+        return Optional.ofNullable(products.get(id, key -> load(key, loader))).map(Entry::product);
+    }
+
+    /** Como {@link #get}, mas devolve o JSON guardado na entrada em vez de uma cópia do produto. */
+    public Optional<EncodedJson> getEncoded(long id, LongFunction<Optional<ProductView>> loader) {
+        if (bypass()) {
+            return loader.apply(id).map(this::encode);
+        }
+        return Optional.ofNullable(products.get(id, key -> load(key, loader))).map(Entry::body);
+    }
+
+    /** Versão do produto se ele estiver em cache; não consulta o banco. */
+    public OptionalLong cachedVersion(long id) {
+        Entry entry = bypass() ? null : products.getIfPresent(id);
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.product().version());
+    }
+
+    private boolean bypass() {
+        return !enabled || ReadRouting.isPinnedToPrimary();
+    }
+
+    private Entry load(long id, LongFunction<Optional<ProductView>> loader) {
+        return loader.apply(id)
+                .map(product -> new Entry(product, encode(product)))
+                .orElse(null);
+    }
+
+    private EncodedJson encode(ProductView product) {
+        byte[] json = encoder.json(product);
+        return new EncodedJson(json, encoder.gzip(json), EncodedJson.versionETag(product.version()));
+    }
+
+    /** Invalida após o commit da transação corrente, ou imediatamente se não houver transação. */
+    public void invalidateAfterCommit(long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(id);
+                }
+            });
+        } else {
+            invalidate(id);
+        }
+    }
+
+    public void invalidate(long id) {
+        evict(id);
+        if (delayedInvalidation != null) {
+            delayedInvalidation.execute(() -> evict(id));
+        }
+    }
+
+    public void invalidateAll() {
+        evictAll();
+        if (delayedInvalidation != null) {
+            delayedInvalidation.execute(this::evictAll);
+        }
+    }
+
+    private void evict(long id) {
+        products.invalidate(id);
+        listing.markChanged(id);
+    }
+
+    private void evictAll() {
+        products.invalidateAll();
+        listing.markAllChanged();
+    }
+
+    public CacheStats stats() {
+        return products.stats();
+    }
+}
@@ -0,0 +1,47 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/** Serializa produtos uma vez para os caches de bytes; o gzip é opcional ({@code catalog.cache.gzip}). */
+@Component
+public class ProductJsonEncoder {
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzipEnabled;
+
+    public ProductJsonEncoder(ObjectMapper objectMapper, @Value("${catalog.cache.gzip:true}") boolean gzipEnabled) {
+        this.objectMapper = objectMapper;
+        this.gzipEnabled = gzipEnabled;
+    }
+
+    public byte[] json(ProductView product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Versão gzip de {@code json}, ou null com o gzip desligado. */
+    public byte[] gzip(byte[] json) {
+        if (!gzipEnabled) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,138 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import cleosilva.microservices.product_catalog.datasource.ReadRouting;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Listagem completa de {@code GET /products} materializada como um único array JSON. O JSON de cada
+ * produto fica guardado como fragmento; uma alteração marca só o produto afetado, e na próxima leitura
+ * apenas os produtos marcados são relidos (em uma consulta) e reserializados antes de o blob ser
+ * remontado. Cada remontagem incrementa a versão da listagem; o ETag vem do conteúdo.
+ * <p>
+ * A marcação acontece depois do commit da escrita, então uma leitura que viu o dado antigo sempre é
+ * seguida de uma nova marcação e o blob converge. Como no {@link ProductCache}, o TTL força uma
+ * releitura completa e cobre escritas que não passam pelo serviço, e um cliente fixado no primário recebe
+ * uma listagem lida na hora, sem passar pelo blob.
+ */
+@Component
+public class ProductListingCache {
+
+    private static final byte[] EMPTY = "[]".getBytes(StandardCharsets.UTF_8);
+    // Acima disso (ex.: carga em lote) reler tudo em ordem sai mais barato que um IN gigante
+    private static final int MAX_INCREMENTAL_CHANGES = 1_000;
+
+    private final ProductRepository productRepository;
+    private final ProductJsonEncoder encoder;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long ttlNanos;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private volatile boolean fullRebuild = true;
+
+    // Protegidos pelo monitor de cached()
+    private final Map<Long, byte[]> fragments = new TreeMap<>();
+    private Listing current;
+    private long builtAt;
+
+    @Autowired
+    public ProductListingCache(ProductRepository productRepository,
+                               ProductJsonEncoder encoder,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${catalog.cache.enabled:true}") boolean enabled,
+                               @Value("${catalog.cache.ttl:PT10M}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.encoder = encoder;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /** Listagem pronta para escrita; {@code size} é o número de produtos e {@code version} cresce a cada mudança. */
+    public record Listing(long version, int size, EncodedJson body) { }
+
+    public void markChanged(long productId) {
+        changed.add(productId);
+    }
+
+    public void markAllChanged() {
+        fullRebuild = true;
+    }
+
+    public Listing listing() {
+        if (!enabled || ReadRouting.isPinnedToPrimary()) {
+            Map<Long, byte[]> all = new TreeMap<>();
+            loadAll(all);
+            return assemble(all, 0);
+        }
+        return cached();
+    }
+
+    private synchronized Listing cached() {
+        if (fullRebuild || changed.size() > MAX_INCREMENTAL_CHANGES || System.nanoTime() - builtAt > ttlNanos) {
+            // Limpa antes de ler: o que for marcado durante a leitura é reaplicado na próxima chamada
+            fullRebuild = false;
+            changed.clear();
+            builtAt = System.nanoTime();
+            fragments.clear();
+            loadAll(fragments);
+            current = assemble(fragments, current == null ? 1 : current.version() + 1);
+        } else if (!changed.isEmpty()) {
+            List<Long> ids = new ArrayList<>(changed);
+            changed.removeAll(ids);
+            ids.forEach(fragments::remove);
+            productRepository.findViewsByIdIn(ids).forEach(product -> fragments.put(product.id(), encoder.json(product)));
+            current = assemble(fragments, current.version() + 1);
+        }
+        return current;
+    }
+
+    private void loadAll(Map<Long, byte[]> into) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductView> products = productRepository.streamAllViews()) {
+                products.forEach(product -> into.put(product.id(), encoder.json(product)));
+            }
+        });
+    }
+
+    private Listing assemble(Map<Long, byte[]> fragments, long version) {
+        if (fragments.isEmpty()) {
+            return new Listing(version, 0, new EncodedJson(EMPTY, encoder.gzip(EMPTY), EncodedJson.contentETag(EMPTY)));
+        }
+        int length = 1 + fragments.size();
+        for (byte[] fragment : fragments.values()) {
+            length += fragment.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.write('[');
+        boolean first = true;
+        for (byte[] fragment : fragments.values()) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(fragment);
+            first = false;
+        }
+        out.write(']');
+        byte[] json = out.toByteArray();
+        return new Listing(version, fragments.size(), new EncodedJson(json, encoder.gzip(json), EncodedJson.contentETag(json)));
+    }
+}
@@ -0,0 +1,28 @@
+package cleosilva.microservices.product_catalog.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Só com várias réplicas do catálogo: cada instância assina product.events em uma fila exclusiva
+@Configuration
+@ConditionalOnProperty(name = "catalog.cache.broadcast.enabled", havingValue = "true")
+public class ProductCacheBroadcastConfig {
+
+    @Bean
+    public Queue productCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding productCacheInvalidationBinding(Queue productCacheInvalidationQueue, TopicExchange productExchange) {
+        return BindingBuilder.bind(productCacheInvalidationQueue)
+                .to(productExchange)
+                .with(RabbitMQConfig.PRODUCT_CHANGED_ROUTING_KEY);
+    }
+}
@@ -1,33 +1,73 @@
 package cleosilva.microservices.product_catalog.config;
 
-import org.springframework.amqp.core.Binding;
-import org.springframework.amqp.core.BindingBuilder;
-import org.springframework.amqp.core.Queue;
+import cleosilva.order_events.DelayedRetryMessageRecoverer;
+import cleosilva.order_events.OrderEventMessageConverter;
+import cleosilva.order_events.OrderEventTopology;
+import cleosilva.order_events.OrderEventTopologyConfig;
+import cleosilva.order_events.OrderEventWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 
+import java.time.Duration;
+
+// A topologia dos eventos de pedido (exchange, fila, DLX, filas de retry) é declarada em order-events
 @Configuration
+@Import(OrderEventTopologyConfig.class)
 public class RabbitMQConfig {
 
-    public static final String EXCHANGE_NAME = "order.events";
-    public static final String QUEUE_NAME = "order.created.queue";
-    public static final String ROUTING_KEY = "order.created";
+    // Eventos de alteração de produto (criação, atualização, remoção) consumidos por quem mantém cache do catálogo
+    public static final String PRODUCT_EXCHANGE_NAME = "product.events";
+    public static final String PRODUCT_CHANGED_ROUTING_KEY = "product.changed";
+
+    // Lê eventos de pedido em binário ou JSON (inclusive o JSON legado em text/plain); eventos de produto
+    // continuam saindo como String. O formato só importaria se este serviço publicasse eventos de pedido.
+    @Bean
+    public MessageConverter orderEventMessageConverter(ObjectMapper objectMapper) {
+        return new OrderEventMessageConverter(OrderEventWireFormat.BINARY, objectMapper);
+    }
 
     @Bean
-    public TopicExchange appExchange() {
-        return new TopicExchange(EXCHANGE_NAME);
+    public TopicExchange productExchange() {
+        return new TopicExchange(PRODUCT_EXCHANGE_NAME);
     }
 
+    // Com spring.rabbitmq.listener.simple.retry habilitado e max-attempts 1, a falha do listener vai direto
+    // para este recoverer: a mensagem espera na fila de retry em vez de ser reprocessada na mesma thread
     @Bean
-    public Queue appQueue() {
-        return new Queue(QUEUE_NAME, false);
+    public MessageRecoverer orderEventRetryRecoverer(RabbitTemplate rabbitTemplate, OrderEventTopology orderEventTopology,
+                                                     MessageConverter orderEventMessageConverter) {
+        return new DelayedRetryMessageRecoverer(rabbitTemplate, orderEventTopology, orderEventMessageConverter);
     }
 
+    // Parte das configurações do Boot (converter, retry/recoverer) e entrega ao listener lotes de até batch-size
+    // mensagens ou o que chegou em batch-timeout; o lote inteiro é confirmado (ou recuperado) de uma vez
     @Bean
-    public Binding binding(Queue queue, TopicExchange exchange) {
-        return BindingBuilder.bind(queue)
-                .to(exchange)
-                .with(ROUTING_KEY);
+    public SimpleRabbitListenerContainerFactory orderEventBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${order.events.consumer.batch-size:100}") int batchSize,
+            @Value("${order.events.consumer.batch-timeout:PT0.05S}") Duration batchTimeout,
+            @Value("${order.events.consumer.concurrency:4}") int concurrency,
+            @Value("${order.events.consumer.prefetch:250}") int prefetch) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(batchTimeout.toMillis());
+        factory.setConcurrentConsumers(concurrency);
+        // Prefetch menor que o lote faria cada lote esperar o timeout
+        factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        return factory;
     }
 }
@@ -0,0 +1,70 @@
+package cleosilva.microservices.product_catalog.config;
+
+import cleosilva.microservices.product_catalog.datasource.PrimaryPinFilter;
+import cleosilva.microservices.product_catalog.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Só com réplicas de leitura: spring.datasource continua sendo o primário e catalog.datasource.replicas
+// lista as réplicas; sem usuário/senha próprios, a réplica usa os do primário
+@Configuration
+@ConditionalOnProperty(name = "catalog.datasource.routing.enabled", havingValue = "true")
+public class ReadReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("catalog-primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             Environment environment) {
+        List<DataSourceProperties> replicaProperties = Binder.get(environment)
+                .bind("catalog.datasource.replicas", Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (DataSourceProperties replica : replicaProperties) {
+            if (replica.getUsername() == null) {
+                replica.setUsername(properties.getUsername());
+                replica.setPassword(properties.getPassword());
+            }
+            HikariDataSource dataSource = replica.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            dataSource.setPoolName("catalog-replica-" + replicas.size());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas);
+    }
+
+    // A conexão real só é obtida no primeiro comando, quando a transação já marcou se é somente leitura
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public PrimaryPinFilter primaryPinFilter(@Value("${catalog.datasource.routing.pin-after-write:PT5S}") Duration pinAfterWrite,
+                                             @Value("${catalog.datasource.routing.max-pinned-clients:100000}") long maxPinnedClients) {
+        return new PrimaryPinFilter(pinAfterWrite, maxPinnedClients);
+    }
+}
@@ -1,24 +1,64 @@
 package cleosilva.microservices.product_catalog.controller;
 
+import cleosilva.microservices.product_catalog.cache.EncodedJson;
+import cleosilva.microservices.product_catalog.cache.ProductListingCache;
+import cleosilva.microservices.product_catalog.dto.BulkChunkResult;
+import cleosilva.microservices.product_catalog.dto.ProductBatchResponse;
+import cleosilva.microservices.product_catalog.dto.ProductPage;
 import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.dto.ProductSearchHit;
+import cleosilva.microservices.product_catalog.dto.ProductUpsertRequest;
 import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.exceptions.BadRequestException;
 import cleosilva.microservices.product_catalog.exceptions.ResourceNotFoundException;
 import cleosilva.microservices.product_catalog.service.ProductService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+// Pilha padrão (Spring MVC + JPA); com o perfil reactive quem atende /products é o ReactiveProductController
 @RestController
 @RequestMapping("/products")
+@Profile("!reactive")
 public class ProductController {
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String CATALOG_VERSION_HEADER = "X-Catalog-Version";
+    public static final String LISTING_VERSION_HEADER = "X-Listing-Version";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_SEARCH_RESULTS = 20;
+
+    private static final Pattern VERSION_ETAG = Pattern.compile("\"v(\\d+)(?:-gzip)?\"");
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.batch.max-ids:1000}")
+    private int maxBatchIds;
+
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody ProductRequest productRequest) {
         Product newProduct = productService.createProduct(productRequest);
@@ -32,26 +72,193 @@ public class ProductController {
 
     }
 
+    // Com after ou limit a listagem é paginada por cursor; sem parâmetros mantém a lista completa de antes.
+    // Para percorrer o catálogo inteiro prefira /products/export ou as páginas.
+    // A lista completa sai de um blob JSON materializado, sem serializar os produtos a cada requisição.
     @GetMapping
-    public ResponseEntity<List<Product>> listProducts(){
-        List<Product> products = productService.listProducts();
-        if(products.isEmpty()){
+    public ResponseEntity<?> listProducts(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        if (after != null || limit != null) {
+            ProductPage page = productService.listProductsAfter(after == null ? 0 : after,
+                    limit == null ? DEFAULT_PAGE_SIZE : limit);
+            return ResponseEntity.ok(page);
+        }
+        ProductListingCache.Listing listing = productService.listProductsJson();
+        if(listing.size() == 0){
             return ResponseEntity.noContent().build();
         }
 
-        return ResponseEntity.ok(products);
+        boolean gzip = listing.body().hasGzip() && acceptsGzip(acceptEncoding);
+        if (matchesAny(ifNoneMatch, listing.body().etag())) {
+            return notModified(listing.body().etag(), gzip);
+        }
+        return encodedJson(ResponseEntity.ok().header(LISTING_VERSION_HEADER, Long.toString(listing.version())),
+                listing.body(), gzip);
     }
 
+    // Busca por termos no nome e na descrição, do mais ao menos relevante; responde só da memória
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductSearchHit>> searchProducts(@RequestParam String q,
+                                                                 @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(productService.searchProducts(q, limit == null ? DEFAULT_SEARCH_RESULTS : limit));
+    }
+
+    // O 304 e o 200 saem da mesma entrada do cache, então anunciam a mesma variante (com ou sem gzip)
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Product product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        EncodedJson body = productService.getProductJsonById(id);
+        boolean gzip = body.hasGzip() && acceptsGzip(acceptEncoding);
+        if (matchesAny(ifNoneMatch, body.etag())) {
+            return notModified(body.etag(), gzip);
+        }
+        return encodedJson(ResponseEntity.ok(), body, gzip);
+    }
+
+    // Os bytes vão como estão (conversor de byte[]); o gzip pré-comprimido só é usado se o cliente aceitar
+    private static ResponseEntity<byte[]> encodedJson(ResponseEntity.BodyBuilder builder, EncodedJson body, boolean gzip) {
+        builder.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").eTag(body.gzipETag()).body(body.gzip());
+        }
+        return builder.eTag(body.etag()).body(body.json());
+    }
+
+    private static ResponseEntity<byte[]> notModified(String etag, boolean gzip) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(gzip ? EncodedJson.gzipVariant(etag) : etag)
+                .build();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                boolean refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+                return !refused;
+            }
+        }
+        return false;
+    }
+
+    // Comparação fraca (If-None-Match): ignora W/ e aceita tanto a variante gzip quanto a sem compressão
+    static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals(EncodedJson.gzipVariant(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versão esperada pelo If-Match, pela comparação forte (tags W/ nunca casam). Null para ausente ou
+     * {@code *}; -1 quando nenhuma tag corresponde a uma versão, o que sempre falha a pré-condição.
+     */
+    static void checkBatchSize(List<Long> ids, int maxIds) {
+        if (ids.size() > maxIds) {
+            throw new BadRequestException("Batch has " + ids.size() + " ids, the maximum is " + maxIds);
+        }
+    }
+
+    static Long expectedVersion(String ifMatch, LongSupplier currentVersion) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            Matcher matcher = VERSION_ETAG.matcher(candidate.trim());
+            if (matcher.matches()) {
+                versions.add(Long.parseLong(matcher.group(1)));
+            }
+        }
+        if (versions.size() <= 1) {
+            return versions.isEmpty() ? -1L : versions.getFirst();
+        }
+        long current = currentVersion.getAsLong();
+        return versions.contains(current) ? current : -1L;
+    }
+
+    // Carga em lote: array JSON ou NDJSON, lido em streaming. Cada linha da resposta é o resultado de um
+    // chunk, enviado assim que ele é confirmado; o status é sempre 200 e as falhas vêm por item.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_MEDIA_TYPE}, produces = NDJSON_MEDIA_TYPE)
+    public void bulkUpsertProducts(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        OutputStream out = response.getOutputStream();
+        try (MappingIterator<ProductUpsertRequest> items = objectMapper.readerFor(ProductUpsertRequest.class)
+                .readValues(request.getInputStream())) {
+            productService.bulkUpsert(items, (BulkChunkResult result) -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(result));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // O lote inteiro vira um único WHERE id IN (...); acima de catalog.batch.max-ids a requisição é recusada
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestBody List<Long> ids) {
+        checkBatchSize(ids, maxBatchIds);
+        ProductBatchResponse response = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(response);
+    }
+
+    // Um produto JSON por linha, escrito à medida que o cursor avança; a versão do snapshot vai no cabeçalho
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public void exportProducts(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        OutputStream out = response.getOutputStream();
+        productService.exportProducts(
+                version -> {
+                    response.setHeader(CATALOG_VERSION_HEADER, Long.toString(version));
+                    // Envia os cabeçalhos já: o primeiro byte não espera o buffer do container encher
+                    try {
+                        response.flushBuffer();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                product -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(product));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        out.flush();
     }
 
+    // If-Match evita a atualização perdida sem lock pessimista: versão divergente responde 412
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductRequest productRequest) {
-        Product updatedProduct = productService.updateProduct(id, productRequest);
-        return ResponseEntity.ok(updatedProduct);
+    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductRequest productRequest,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product updatedProduct = productService.updateProduct(id, productRequest, expectedVersion(ifMatch, () -> productService.getProductVersion(id)));
+        return ResponseEntity.ok()
+                .eTag(EncodedJson.versionETag(updatedProduct.getVersion()))
+                .body(updatedProduct);
     }
 
     @DeleteMapping("/{id}")
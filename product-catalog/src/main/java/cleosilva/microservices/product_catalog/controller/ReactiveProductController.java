@@ -0,0 +1,139 @@
+package cleosilva.microservices.product_catalog.controller;
+
+import cleosilva.microservices.product_catalog.cache.EncodedJson;
+import cleosilva.microservices.product_catalog.dto.ProductBatchResponse;
+import cleosilva.microservices.product_catalog.dto.ProductPage;
+import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.dto.ProductSearchHit;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.exceptions.ResourceNotFoundException;
+import cleosilva.microservices.product_catalog.repository.ReactiveProductReader;
+import cleosilva.microservices.product_catalog.service.ProductService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * {@code /products} no perfil reactive (WebFlux + R2DBC). As leituras vão ao banco pelo
+ * {@link ReactiveProductReader}, sem bloquear o event loop e sem os caches da pilha padrão; as escritas
+ * reaproveitam o {@link ProductService} (JPA, eventos, invalidação) em {@code boundedElastic}.
+ * {@code /products/export} e {@code /products/bulk} só existem na pilha padrão.
+ */
+@RestController
+@RequestMapping("/products")
+@Profile("reactive")
+public class ReactiveProductController {
+
+    @Autowired
+    private ReactiveProductReader productReader;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${catalog.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${catalog.batch.max-ids:1000}")
+    private int maxBatchIds;
+
+    @PostMapping
+    public Mono<ResponseEntity<Product>> createProduct(@Valid @RequestBody ProductRequest productRequest,
+                                                       UriComponentsBuilder uriBuilder) {
+        return blocking(() -> productService.createProduct(productRequest))
+                .map(newProduct -> ResponseEntity.created(uriBuilder.path("/products/{id}")
+                                .buildAndExpand(newProduct.getId())
+                                .toUri())
+                        .body(newProduct));
+    }
+
+    // Sem parâmetros, a lista completa sai em streaming (array JSON ou NDJSON) conforme a demanda do cliente:
+    // o banco só é lido à medida que a resposta é escrita. Com after ou limit, paginação por cursor
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, ProductController.NDJSON_MEDIA_TYPE})
+    public Mono<ResponseEntity<?>> listProducts(@RequestParam(required = false) Long after,
+                                                @RequestParam(required = false) Integer limit) {
+        if (after != null || limit != null) {
+            int pageSize = Math.clamp(limit == null ? ProductController.DEFAULT_PAGE_SIZE : limit, 1, maxPageSize);
+            return productReader.findAfter(after == null ? 0 : after, pageSize + 1)
+                    .collectList()
+                    .map(rows -> ResponseEntity.ok(ProductPage.of(rows, pageSize)));
+        }
+        return productReader.existsAny().map(any -> any
+                ? ResponseEntity.ok(productReader.findAll())
+                : ResponseEntity.noContent().build());
+    }
+
+    // Busca por termos no nome e na descrição. O índice fica em memória, mas a leitura espera pelo lock
+    // enquanto uma escrita o atualiza: roda fora do event loop
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<ProductSearchHit>>> searchProducts(@RequestParam String q,
+                                                                       @RequestParam(required = false) Integer limit) {
+        return blocking(() -> ResponseEntity.ok(productService.searchProducts(q,
+                limit == null ? ProductController.DEFAULT_SEARCH_RESULTS : limit)));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductView>> getProductById(@PathVariable Long id,
+                                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productReader.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product with Id " + id + " not found!")))
+                .map(product -> {
+                    String etag = EncodedJson.versionETag(product.version());
+                    if (ProductController.matchesAny(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<ProductView>build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(product);
+                });
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<ProductBatchResponse>> getProductsByIds(@RequestBody List<Long> ids) {
+        ProductController.checkBatchSize(ids, maxBatchIds);
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            return Mono.just(ResponseEntity.ok(new ProductBatchResponse(List.of(), List.of())));
+        }
+        // Uma única consulta (WHERE id IN (...)) para todo o lote
+        return productReader.findAllById(uniqueIds)
+                .collectList()
+                .map(products -> ResponseEntity.ok(ProductBatchResponse.of(uniqueIds, products)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Product>> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductRequest productRequest,
+                                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return blocking(() -> productService.updateProduct(id, productRequest,
+                        ProductController.expectedVersion(ifMatch, () -> productService.getProductVersion(id))))
+                .map(updatedProduct -> ResponseEntity.ok()
+                        .eTag(EncodedJson.versionETag(updatedProduct.getVersion()))
+                        .body(updatedProduct));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable Long id) {
+        return blocking(() -> {
+            productService.deleteProduct(id);
+            return ResponseEntity.noContent().<Void>build();
+        });
+    }
+
+    // JPA, RabbitMQ e o lock do índice de busca bloqueiam: rodam fora do event loop
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
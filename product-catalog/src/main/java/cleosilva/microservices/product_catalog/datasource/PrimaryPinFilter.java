@@ -0,0 +1,68 @@
+package cleosilva.microservices.product_catalog.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Leitura das próprias escritas com réplicas atrasadas: depois de uma requisição de escrita, o cliente lê
+ * do primário por {@code pin-after-write}. O cliente é identificado só pelo header {@value #CLIENT_ID_HEADER},
+ * que o api-gateway preenche: atrás dele o endereço de origem é o do gateway, e uma escrita fixaria todo mundo.
+ * Sem o header, apenas a própria escrita lê do primário. A marca é gravada antes de processar a escrita, para
+ * que uma leitura disparada assim que a resposta chega já a encontre, e renovada ao final.
+ */
+public class PrimaryPinFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final Cache<String, Boolean> pinnedClients;
+
+    public PrimaryPinFilter(Duration pinAfterWrite, long maxClients) {
+        this(pinAfterWrite, maxClients, Ticker.systemTicker());
+    }
+
+    PrimaryPinFilter(Duration pinAfterWrite, long maxClients, Ticker ticker) {
+        this.pinnedClients = Caffeine.newBuilder()
+                .expireAfterWrite(pinAfterWrite)
+                .maximumSize(maxClients)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = request.getHeader(CLIENT_ID_HEADER);
+        boolean identified = client != null && !client.isBlank();
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (write && identified) {
+            pinnedClients.put(client, Boolean.TRUE);
+        }
+        if (write || identified && pinnedClients.getIfPresent(client) != null) {
+            ReadRouting.pinToPrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.clear();
+            if (write && identified) {
+                pinnedClients.put(client, Boolean.TRUE);
+            }
+        }
+    }
+
+    boolean isPinned(String client) {
+        return pinnedClients.getIfPresent(client) != null;
+    }
+}
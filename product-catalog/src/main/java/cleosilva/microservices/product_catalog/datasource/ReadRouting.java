@@ -0,0 +1,25 @@
+package cleosilva.microservices.product_catalog.datasource;
+
+/**
+ * Marca a thread da requisição corrente para ler do primário, mesmo em transações somente leitura.
+ * Quem liga e desliga a marca é o {@link PrimaryPinFilter}; trabalho entregue a outras threads não a herda.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,14 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de um chunk da carga em lote, emitido logo após o seu commit. {@code firstItem} é a posição
+ * (a partir de 0) do primeiro item do chunk na entrada; os erros apontam a posição do item recusado.
+ * Se o chunk inteiro for desfeito, todos os seus itens aparecem em {@code errors}.
+ */
+public record BulkChunkResult(int chunk, long firstItem, int items, int created, int updated,
+                              List<ItemError> errors, long elapsedMillis) {
+
+    public record ItemError(long item, String message) {}
+}
@@ -0,0 +1,24 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public record ProductBatchResponse(List<ProductView> products, List<Long> missingIds) {
+
+    /** Resposta para os ids pedidos (já sem repetição); os que não vieram na consulta vão em {@code missingIds}. */
+    public static ProductBatchResponse of(Collection<Long> requestedIds, List<ProductView> products) {
+        Set<Long> foundIds = new HashSet<>();
+        products.forEach(product -> foundIds.add(product.id()));
+
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (!foundIds.contains(id)) {
+                missingIds.add(id);
+            }
+        }
+        return new ProductBatchResponse(products, missingIds);
+    }
+}
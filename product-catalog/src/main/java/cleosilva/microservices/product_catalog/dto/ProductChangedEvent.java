@@ -0,0 +1,25 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import cleosilva.microservices.product_catalog.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Alteração de um produto. {@code version} é a versão do catálogo após a alteração; os dados do
+ * produto vão junto para que réplicas do catálogo possam se atualizar sem consultar o serviço.
+ * Em {@link ChangeType#DELETED} somente o id é preenchido.
+ */
+public record ProductChangedEvent(long productId, ChangeType type, long version,
+                                  String name, String description, BigDecimal price) {
+
+    public enum ChangeType { CREATED, UPDATED, DELETED }
+
+    public static ProductChangedEvent of(Product product, ChangeType type, long version) {
+        return new ProductChangedEvent(product.getId(), type, version,
+                product.getName(), product.getDescription(), product.getPrice());
+    }
+
+    public static ProductChangedEvent deleted(long productId, long version) {
+        return new ProductChangedEvent(productId, ChangeType.DELETED, version, null, null, null);
+    }
+}
@@ -0,0 +1,16 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import java.util.List;
+
+/** Página por cursor: {@code nextAfter} é o valor de {@code after} da próxima página, ou null na última. */
+public record ProductPage(List<ProductView> products, Long nextAfter) {
+
+    /** Monta a página a partir de até {@code pageSize + 1} linhas; a linha extra só indica que há próxima. */
+    public static ProductPage of(List<ProductView> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new ProductPage(rows, null);
+        }
+        List<ProductView> page = rows.subList(0, pageSize);
+        return new ProductPage(List.copyOf(page), page.get(pageSize - 1).id());
+    }
+}
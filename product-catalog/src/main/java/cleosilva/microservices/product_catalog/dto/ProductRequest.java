@@ -3,6 +3,7 @@ package cleosilva.microservices.product_catalog.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 
 import java.math.BigDecimal;
 
@@ -14,6 +15,9 @@ public class ProductRequest {
     @NotNull(message = "Product price is required.")
     @DecimalMin(value = "0.01", message = "Price must be greater than zero.")
     private BigDecimal price;
+    // Opcional: na criação vale 0 se ausente, na atualização mantém o estoque atual
+    @PositiveOrZero(message = "Stock cannot be negative.")
+    private Long stock;
 
     public ProductRequest() {
     }
@@ -41,4 +45,12 @@ public class ProductRequest {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public Long getStock() {
+        return stock;
+    }
+
+    public void setStock(Long stock) {
+        this.stock = stock;
+    }
 }
@@ -0,0 +1,6 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import java.math.BigDecimal;
+
+/** Resultado de {@code GET /products/search}, montado só com o que o índice guarda em memória. */
+public record ProductSearchHit(long id, String name, BigDecimal price, double score) {}
@@ -0,0 +1,17 @@
+package cleosilva.microservices.product_catalog.dto;
+
+/** Item da carga em lote: sem {@code id} cria um produto, com {@code id} atualiza o existente. */
+public class ProductUpsertRequest extends ProductRequest {
+    private Long id;
+
+    public ProductUpsertRequest() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,18 @@
+package cleosilva.microservices.product_catalog.dto;
+
+import cleosilva.microservices.product_catalog.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Produto somente leitura, com o mesmo JSON da entidade. As leituras o montam direto da consulta
+ * ({@code select new ...}), sem instância gerenciada nem snapshot para dirty checking; por ser imutável,
+ * pode ser compartilhado entre caches e requisições sem cópia.
+ */
+public record ProductView(long id, String name, String description, BigDecimal price, long stock, long version) {
+
+    public static ProductView of(Product product) {
+        return new ProductView(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getStock(), product.getVersion());
+    }
+}
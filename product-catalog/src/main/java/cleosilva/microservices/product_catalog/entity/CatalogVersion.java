@@ -0,0 +1,35 @@
+package cleosilva.microservices.product_catalog.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Contador único da versão do catálogo. Cada escrita em produtos incrementa a linha na mesma
+ * transação, então as versões são monotônicas e sem buracos na ordem de commit.
+ */
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion {
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private long id;
+    private long version;
+
+    public CatalogVersion() {
+    }
+
+    public CatalogVersion(long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
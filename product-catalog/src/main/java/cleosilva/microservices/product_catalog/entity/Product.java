@@ -1,19 +1,34 @@
 package cleosilva.microservices.product_catalog.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "products")
 public class Product {
+    // Sequência com otimizador pooled: o id sai da memória a cada 50 inserts, o que permite ao Hibernate
+    // agrupar os INSERTs em lotes JDBC (IDENTITY desliga o batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private long id;
     private String name;
     private String description;
     private BigDecimal price;
 
+    // Unidades disponíveis; só é decrementado por UPDATE condicional (ver InventoryReservationService)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long stock;
+
+    // Controle otimista: o Hibernate incrementa a cada alteração e é a base do ETag de /products/{id}
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     public Product() {
     }
 
@@ -54,4 +69,20 @@ public class Product {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public long getStock() {
+        return stock;
+    }
+
+    public void setStock(long stock) {
+        this.stock = stock;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
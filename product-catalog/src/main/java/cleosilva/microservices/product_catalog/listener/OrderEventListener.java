@@ -1,21 +1,44 @@
 package cleosilva.microservices.product_catalog.listener;
 
-import cleosilva.microservices.product_catalog.config.RabbitMQConfig;
+import cleosilva.microservices.product_catalog.service.OrderEventProcessor;
+import cleosilva.order_events.OrderCreatedEvent;
+import cleosilva.order_events.OrderEventTopology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
+/**
+ * Consumidor de {@code order.created.queue}. Em {@code order.events.consumer.mode=batch} (padrão) os eventos
+ * chegam em lotes, com vários consumidores concorrentes; em {@code single} um a um, como antes. Só o
+ * container do modo escolhido é iniciado.
+ */
 @Component
 public class OrderEventListener {
 
-    @RabbitListener(queues = RabbitMQConfig.QUEUE_NAME)
-    public void receiveOrderCreatedEvent(String orderDetails) {
-        System.out.println("--------------------------------------------------");
-        System.out.println("Microsserviço Product Catalog recebeu evento de pedido:");
-        System.out.println("Detalhes do Pedido: " + orderDetails);
-        // Aqui você adicionaria a lógica de negócio real, como:
-        // - Parsar o JSON 'orderDetails' para um objeto de Pedido
-        // - Atualizar o estoque dos produtos envolvidos
-        // - Logar o evento em um banco de dados de auditoria
-        System.out.println("--------------------------------------------------");
+    private static final Logger log = LoggerFactory.getLogger(OrderEventListener.class);
+
+    @Autowired
+    private OrderEventProcessor orderEventProcessor;
+
+    // O converter entrega o evento já decodificado, seja binário, JSON ou o JSON legado em texto
+    @RabbitListener(queues = OrderEventTopology.QUEUE_NAME,
+            autoStartup = "#{'${order.events.consumer.mode:batch}' == 'single'}")
+    public void receiveOrderCreatedEvent(OrderCreatedEvent orderCreatedEvent) {
+        log.debug("Product Catalog recebeu evento de pedido: {} itens, total {}",
+                orderCreatedEvent.items().size(), orderCreatedEvent.totalAmount());
+        orderEventProcessor.process(List.of(orderCreatedEvent));
+    }
+
+    // Um ack por lote, e as reservas do lote numa única transação; se o processamento falhar nada foi gravado
+    // e o recoverer encaminha cada mensagem
+    @RabbitListener(queues = OrderEventTopology.QUEUE_NAME, containerFactory = "orderEventBatchContainerFactory",
+            autoStartup = "#{'${order.events.consumer.mode:batch}' == 'batch'}")
+    public void receiveOrderCreatedEvents(List<OrderCreatedEvent> orderCreatedEvents) {
+        log.debug("Product Catalog recebeu lote de {} eventos de pedido", orderCreatedEvents.size());
+        orderEventProcessor.process(orderCreatedEvents);
     }
 }
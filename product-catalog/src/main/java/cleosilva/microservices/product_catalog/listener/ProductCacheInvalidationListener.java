@@ -0,0 +1,41 @@
+package cleosilva.microservices.product_catalog.listener;
+
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida o cache local com as alterações feitas por outras réplicas do catálogo. Reaproveita os eventos
+ * {@code product.changed}, que já saem após o commit; os eventos da própria instância só repetem uma
+ * invalidação já feita.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.cache.broadcast.enabled", havingValue = "true")
+public class ProductCacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheInvalidationListener.class);
+
+    private final ProductCache productCache;
+    private final ObjectMapper objectMapper;
+
+    public ProductCacheInvalidationListener(ProductCache productCache, ObjectMapper objectMapper) {
+        this.productCache = productCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = "#{productCacheInvalidationQueue.name}")
+    public void onProductChanged(String payload) {
+        try {
+            productCache.invalidate(objectMapper.readValue(payload, ProductChangedEvent.class).productId());
+        } catch (Exception e) {
+            // Sem saber qual produto mudou, a única resposta segura é esvaziar o cache
+            log.warn("Unreadable product event, clearing the product cache: {}", e.getMessage());
+            productCache.invalidateAll();
+        }
+    }
+}
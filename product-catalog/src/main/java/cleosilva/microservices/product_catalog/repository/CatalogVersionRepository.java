@@ -0,0 +1,19 @@
+package cleosilva.microservices.product_catalog.repository;
+
+import cleosilva.microservices.product_catalog.entity.CatalogVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersion, Long> {
+
+    @Modifying
+    @Query("update CatalogVersion c set c.version = c.version + :count where c.id = :id")
+    int increment(@Param("id") long id, @Param("count") long count);
+
+    @Query("select c.version from CatalogVersion c where c.id = :id")
+    Optional<Long> findVersion(@Param("id") long id);
+}
@@ -1,7 +1,64 @@
 package cleosilva.microservices.product_catalog.repository;
 
+import cleosilva.microservices.product_catalog.dto.ProductView;
 import cleosilva.microservices.product_catalog.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Leituras por projeção: o Hibernate monta o record direto do ResultSet, sem entidade gerenciada nem
+    // snapshot no contexto de persistência. As escritas continuam carregando a entidade
+    String SELECT_VIEW = "select new cleosilva.microservices.product_catalog.dto.ProductView("
+            + "p.id, p.name, p.description, p.price, p.stock, p.version) from Product p ";
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where p.id = :id")
+    Optional<ProductView> findViewById(@Param("id") long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where p.id in :ids")
+    List<ProductView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "order by p.id")
+    List<ProductView> findAllViews();
+
+    // Keyset: usa o índice da chave primária, custo constante qualquer que seja a profundidade da página
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + "where p.id > :after order by p.id")
+    List<ProductView> findViewsAfter(@Param("after") long after, Limit limit);
+
+    // Cursor somente-avanço: o driver traz as linhas em lotes de fetch size, sem materializar a tabela.
+    // O Stream precisa de uma transação aberta por quem consome
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_VIEW + "order by p.id")
+    Stream<ProductView> streamAllViews();
+
+    // Baixa atômica e condicional: retorna 0 (nada muda) se o estoque não cobre a quantidade.
+    // Update em massa não passa pelo @Version, então a versão é incrementada aqui
+    @Modifying
+    @Query("update Product p set p.stock = p.stock - :quantity, p.version = p.version + 1 "
+            + "where p.id = :id and p.stock >= :quantity")
+    int reserveStock(@Param("id") long id, @Param("quantity") long quantity);
+
+    @Query("select p.stock from Product p where p.id = :id")
+    Optional<Long> findStockById(@Param("id") long id);
+
+    // Só a versão: validar um ETag não exige carregar a entidade
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
 }
@@ -0,0 +1,77 @@
+package cleosilva.microservices.product_catalog.repository;
+
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Leituras de produto por R2DBC, usadas só no perfil reactive. São as mesmas consultas das projeções do
+ * {@link ProductRepository}, em SQL sobre a tabela {@code products}; as escritas continuam no JPA.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveProductReader {
+
+    private static final String SELECT_VIEW = "SELECT id, name, description, price, stock, version FROM products ";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public ReactiveProductReader(DatabaseClient databaseClient,
+                                 @Value("${catalog.reactive.fetch-size:500}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    public Mono<ProductView> findById(long id) {
+        return databaseClient.sql(SELECT_VIEW + "WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductReader::view)
+                .one();
+    }
+
+    public Flux<ProductView> findAllById(Collection<Long> ids) {
+        return databaseClient.sql(SELECT_VIEW + "WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveProductReader::view)
+                .all();
+    }
+
+    // Keyset, como o findViewsAfter: custo constante qualquer que seja a profundidade da página
+    public Flux<ProductView> findAfter(long after, int limit) {
+        return databaseClient.sql(SELECT_VIEW + "WHERE id > :after ORDER BY id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveProductReader::view)
+                .all();
+    }
+
+    // As linhas saem conforme a demanda de quem assina: o driver busca no máximo fetchSize por vez
+    public Flux<ProductView> findAll() {
+        return databaseClient.sql(SELECT_VIEW + "ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveProductReader::view)
+                .all();
+    }
+
+    public Mono<Boolean> existsAny() {
+        return databaseClient.sql("SELECT 1 FROM products LIMIT 1")
+                .map(row -> Boolean.TRUE)
+                .first()
+                .hasElement();
+    }
+
+    private static ProductView view(Readable row) {
+        return new ProductView(row.get("id", Long.class), row.get("name", String.class),
+                row.get("description", String.class), row.get("price", BigDecimal.class),
+                row.get("stock", Long.class), row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,162 @@
+package cleosilva.microservices.product_catalog.search;
+
+import java.util.Arrays;
+
+/**
+ * Lista de documentos de um termo, comprimida: cada entrada é o delta para o documento anterior seguido
+ * da frequência do termo, ambos em varint. Documentos novos sempre recebem número maior, então
+ * indexar é só acrescentar bytes no fim; documentos removidos continuam aqui até a compactação.
+ * <p>
+ * As entradas formam blocos de {@value #BLOCK_SIZE}. Cada bloco guarda onde começa, seu último documento
+ * e a maior frequência e o menor tamanho de documento que contém: com isso a busca calcula um teto de
+ * score para o bloco e pula os que não alcançam o top-k sem decodificá-los.
+ */
+final class PostingList {
+
+    static final int BLOCK_SIZE = 128;
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int lastDoc = -1;
+    private int docCount;
+
+    // Metadados dos blocos num único array, BLOCK_FIELDS ints por bloco: há um PostingList por termo
+    private static final int BLOCK_FIELDS = 5;
+    private static final int OFFSET = 0;
+    private static final int BASE_DOC = 1;
+    private static final int LAST_DOC = 2;
+    private static final int MAX_FREQUENCY = 3;
+    private static final int MIN_LENGTH = 4;
+
+    private int[] blockMeta = new int[BLOCK_FIELDS];
+    private int blocks;
+
+    void add(int doc, int frequency, int docLength) {
+        if (docCount % BLOCK_SIZE == 0) {
+            startBlock();
+        }
+        ensureCapacity(10);
+        writeVarint(doc - lastDoc);
+        writeVarint(frequency);
+        lastDoc = doc;
+        docCount++;
+        int block = (blocks - 1) * BLOCK_FIELDS;
+        blockMeta[block + LAST_DOC] = doc;
+        blockMeta[block + MAX_FREQUENCY] = Math.max(blockMeta[block + MAX_FREQUENCY], frequency);
+        blockMeta[block + MIN_LENGTH] = Math.min(blockMeta[block + MIN_LENGTH], docLength);
+    }
+
+    /** Documentos na lista, incluindo os removidos ainda não compactados. */
+    int docCount() {
+        return docCount;
+    }
+
+    int sizeInBytes() {
+        return length + blocks * BLOCK_FIELDS * Integer.BYTES;
+    }
+
+    int blockMaxFrequency(int block) {
+        return blockMeta[block * BLOCK_FIELDS + MAX_FREQUENCY];
+    }
+
+    int blockMinLength(int block) {
+        return blockMeta[block * BLOCK_FIELDS + MIN_LENGTH];
+    }
+
+    int blockLastDoc(int block) {
+        return blockMeta[block * BLOCK_FIELDS + LAST_DOC];
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    void trim() {
+        data = Arrays.copyOf(data, Math.max(length, 1));
+        blockMeta = Arrays.copyOf(blockMeta, Math.max(blocks, 1) * BLOCK_FIELDS);
+    }
+
+    final class Cursor {
+        private int position;
+        private int ordinal = -1;
+        private int doc = -1;
+        private int frequency;
+
+        boolean next() {
+            if (position >= length) {
+                return false;
+            }
+            doc += readVarint();
+            frequency = readVarint();
+            ordinal++;
+            return true;
+        }
+
+        /** Avança até o primeiro documento maior que {@code target}, saltando blocos inteiros sem decodificar. */
+        boolean advancePast(int target) {
+            int block = block();
+            while (block + 1 < blocks && blockLastDoc(block) <= target) {
+                block++;
+                position = blockMeta[block * BLOCK_FIELDS + OFFSET];
+                doc = blockMeta[block * BLOCK_FIELDS + BASE_DOC];
+                ordinal = block * BLOCK_SIZE - 1;
+            }
+            while (doc <= target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int block() {
+            return Math.max(ordinal, 0) / BLOCK_SIZE;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    private void startBlock() {
+        int block = blocks * BLOCK_FIELDS;
+        if (block == blockMeta.length) {
+            blockMeta = Arrays.copyOf(blockMeta, block * 2);
+        }
+        blockMeta[block + OFFSET] = length;
+        blockMeta[block + BASE_DOC] = lastDoc;
+        blockMeta[block + MAX_FREQUENCY] = 0;
+        blockMeta[block + MIN_LENGTH] = Integer.MAX_VALUE;
+        blocks++;
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package cleosilva.microservices.product_catalog.search;
+
+import cleosilva.microservices.product_catalog.dto.ProductSearchHit;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido em memória sobre nome e descrição dos produtos, ranqueado por BM25 (o nome conta em
+ * dobro). É montado na inicialização a partir do cursor de {@code streamAllViews} e atualizado
+ * pelas escritas do {@code ProductService} após o commit; a consulta nunca vai ao banco.
+ * <p>
+ * Cada versão de um produto vira um documento novo e a anterior é marcada como removida. Quando as
+ * removidas passam de um quarto das vivas o índice é compactado em background. Enquanto a compactação
+ * roda, as escritas ficam numa fila e entram na busca logo depois da troca. A frequência de documentos do BM25
+ * conta as removidas até a compactação, uma aproximação que só afeta a ordem entre termos.
+ */
+@Component
+public class ProductSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 2;
+    private static final int COMPACTION_MIN_DELETED = 1_024;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Executor compactor;
+
+    private Segment segment = new Segment();
+    // Alterações que chegam durante um rebuild são reaplicadas no índice novo antes da troca
+    private List<Entry> pendingDuringRebuild;
+    // Não nulo durante uma compactação: o segmento atual não muda e as alterações esperam aqui
+    private List<Entry> pendingDuringCompaction;
+
+    @Autowired
+    public ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this(productRepository, transactionManager, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-index-compaction");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ProductSearchIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager, Executor compactor) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.compactor = compactor;
+    }
+
+    /** Dados indexados de um produto; {@code name} null representa a remoção. */
+    public record Entry(long productId, String name, String description, BigDecimal price) {
+
+        public static Entry of(Product product) {
+            return new Entry(product.getId(), product.getName(), product.getDescription(), product.getPrice());
+        }
+
+        public static Entry of(ProductView product) {
+            return new Entry(product.id(), product.name(), product.description(), product.price());
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (compactor instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Relê o catálogo inteiro e troca o índice; buscas seguem respondendo pelo índice antigo enquanto isso. */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long start = System.nanoTime();
+        Segment fresh = new Segment();
+        boolean built = false;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<ProductView> products = productRepository.streamAllViews()) {
+                    products.forEach(product -> fresh.put(Entry.of(product)));
+                }
+            });
+            fresh.trim();
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    pendingDuringRebuild.forEach(fresh::apply);
+                    segment = fresh;
+                }
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Search index built with {} products and {} terms in {} ms",
+                fresh.liveDocs, fresh.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Indexa (ou reindexa) o produto depois do commit da transação corrente. */
+    public void indexAfterCommit(Product product) {
+        afterCommit(Entry.of(product));
+    }
+
+    public void removeAfterCommit(long productId) {
+        afterCommit(new Entry(productId, null, null, null));
+    }
+
+    private void afterCommit(Entry entry) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(entry);
+                }
+            });
+        } else {
+            apply(entry);
+        }
+    }
+
+    public void apply(Entry entry) {
+        Segment toCompact = null;
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringCompaction != null) {
+                pendingDuringCompaction.add(entry);
+            } else {
+                segment.apply(entry);
+                if (segment.deletedDocs > COMPACTION_MIN_DELETED && segment.deletedDocs > segment.liveDocs / 4) {
+                    pendingDuringCompaction = new ArrayList<>();
+                    toCompact = segment;
+                }
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (toCompact != null) {
+            Segment source = toCompact;
+            try {
+                compactor.execute(() -> compact(source));
+            } catch (RejectedExecutionException e) {
+                finishCompaction(source, null);
+            }
+        }
+    }
+
+    // Fora do lock: ninguém altera source enquanto pendingDuringCompaction existir, e as buscas só o leem
+    private void compact(Segment source) {
+        Segment compacted = null;
+        try {
+            long start = System.nanoTime();
+            compacted = source.compacted();
+            log.debug("Search index compacted to {} products in {} ms", compacted.liveDocs, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            finishCompaction(source, compacted);
+        }
+    }
+
+    private void finishCompaction(Segment source, Segment compacted) {
+        lock.writeLock().lock();
+        try {
+            // Um rebuild pode ter trocado o segmento nesse meio tempo; reaplicar uma entrada é idempotente
+            Segment target = compacted != null && segment == source ? compacted : segment;
+            pendingDuringCompaction.forEach(target::apply);
+            segment = target;
+            pendingDuringCompaction = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Os {@code limit} produtos mais relevantes para {@code query}; qualquer termo conta (OR). */
+    public List<ProductSearchHit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(ProductTokenizer.tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Bytes ocupados pelas listas de postings comprimidas. */
+    public long postingsSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return segment.postings.values().stream().mapToLong(PostingList::sizeInBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Termo K1·(1 − B + B·tamanho/média) do BM25, calculado uma vez por tamanho de documento na consulta
+    private static final class LengthNorms {
+        private final double averageLength;
+        private final double[] cache = new double[256];
+
+        LengthNorms(double averageLength) {
+            this.averageLength = averageLength;
+        }
+
+        double of(int length) {
+            if (length >= cache.length) {
+                return K1 * (1 - B + B * length / averageLength);
+            }
+            double norm = cache[length];
+            if (norm == 0) {
+                norm = K1 * (1 - B + B * length / averageLength);
+                cache[length] = norm;
+            }
+            return norm;
+        }
+    }
+
+    private record ScoredDoc(int doc, double score) {}
+
+    // Empate no score: o documento mais novo é o pior, o mesmo critério do salto de blocos
+    private static final Comparator<ScoredDoc> WORST_FIRST = Comparator.comparingDouble(ScoredDoc::score)
+            .thenComparing(Comparator.comparingInt(ScoredDoc::doc).reversed());
+
+    private static final class Segment {
+        private final Map<String, PostingList> postings = new HashMap<>();
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final BitSet deleted = new BitSet();
+        private long[] productIds = new long[1024];
+        private String[] names = new String[1024];
+        private BigDecimal[] prices = new BigDecimal[1024];
+        private int[] lengths = new int[1024];
+        private int docs;
+        private int liveDocs;
+        private int deletedDocs;
+        private long liveLength;
+
+        void apply(Entry entry) {
+            if (entry.name() == null) {
+                remove(entry.productId());
+            } else {
+                put(entry);
+            }
+        }
+
+        void put(Entry entry) {
+            remove(entry.productId());
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : ProductTokenizer.tokenize(entry.name())) {
+                frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+                length += NAME_WEIGHT;
+            }
+            for (String term : ProductTokenizer.tokenize(entry.description())) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            int doc = addDoc(entry.productId(), entry.name(), entry.price(), length);
+            int docLength = length;
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new PostingList())
+                    .add(doc, frequency, docLength));
+        }
+
+        void remove(long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc != null) {
+                deleted.set(doc);
+                names[doc] = null;
+                prices[doc] = null;
+                liveDocs--;
+                deletedDocs++;
+                liveLength -= lengths[doc];
+            }
+        }
+
+        private int addDoc(long productId, String name, BigDecimal price, int length) {
+            if (docs == productIds.length) {
+                int capacity = docs * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            int doc = docs++;
+            productIds[doc] = productId;
+            names[doc] = name;
+            prices[doc] = price;
+            lengths[doc] = length;
+            docByProduct.put(productId, doc);
+            liveDocs++;
+            liveLength += length;
+            return doc;
+        }
+
+        /*
+         * Documento a documento: as listas estão ordenadas, então basta avançar sempre o menor cursor.
+         * Com o top-k cheio, antes de pontuar calcula-se o teto da região até o fim do bloco mais curto
+         * entre os cursores; se nem a soma dos tetos supera o pior resultado mantido, a região inteira
+         * é pulada sem decodificar. Empates ficam com o documento indexado antes.
+         */
+        List<ProductSearchHit> search(List<String> terms, int limit) {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            PostingList[] lists = new PostingList[terms.size()];
+            PostingList.Cursor[] cursors = new PostingList.Cursor[terms.size()];
+            double[] idfs = new double[terms.size()];
+            int active = 0;
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list != null) {
+                    PostingList.Cursor cursor = list.cursor();
+                    if (cursor.next()) {
+                        int documentFrequency = Math.min(list.docCount(), liveDocs);
+                        lists[active] = list;
+                        cursors[active] = cursor;
+                        idfs[active] = Math.log(1 + (liveDocs - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                        active++;
+                    }
+                }
+            }
+            LengthNorms norms = new LengthNorms((double) liveLength / liveDocs);
+            // Heap dos k melhores: a cabeça é o pior resultado mantido até agora
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+            int regionEnd = -1;
+            double regionBound = 0;
+            while (active > 0) {
+                int doc = Integer.MAX_VALUE;
+                for (int i = 0; i < active; i++) {
+                    doc = Math.min(doc, cursors[i].doc());
+                }
+                if (top.size() == limit) {
+                    // O teto vale até o fim da região: nenhum cursor troca de bloco antes de passar dela
+                    if (doc > regionEnd) {
+                        regionEnd = Integer.MAX_VALUE;
+                        for (int i = 0; i < active; i++) {
+                            regionEnd = Math.min(regionEnd, lists[i].blockLastDoc(cursors[i].block()));
+                        }
+                        regionBound = 0;
+                        for (int i = 0; i < active; i++) {
+                            if (cursors[i].doc() <= regionEnd) {
+                                int block = cursors[i].block();
+                                regionBound += bm25(idfs[i], lists[i].blockMaxFrequency(block), norms.of(lists[i].blockMinLength(block)));
+                            }
+                        }
+                    }
+                    if (regionBound <= top.peek().score()) {
+                        for (int i = active - 1; i >= 0; i--) {
+                            if (!cursors[i].advancePast(regionEnd)) {
+                                active = removeCursor(lists, cursors, idfs, i, active);
+                            }
+                        }
+                        continue;
+                    }
+                }
+                double score = 0;
+                for (int i = active - 1; i >= 0; i--) {
+                    if (cursors[i].doc() == doc) {
+                        score += bm25(idfs[i], cursors[i].frequency(), norms.of(lengths[doc]));
+                        if (!cursors[i].next()) {
+                            active = removeCursor(lists, cursors, idfs, i, active);
+                        }
+                    }
+                }
+                if (deleted.get(doc)) {
+                    continue;
+                }
+                if (top.size() < limit) {
+                    top.add(new ScoredDoc(doc, score));
+                } else if (score > top.peek().score()) {
+                    top.poll();
+                    top.add(new ScoredDoc(doc, score));
+                }
+            }
+            List<ProductSearchHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ScoredDoc scored = top.poll();
+                hits.add(new ProductSearchHit(productIds[scored.doc()], names[scored.doc()], prices[scored.doc()], scored.score()));
+            }
+            return hits.reversed();
+        }
+
+        // Mantém os cursores ativos contíguos: o último ocupa a posição do que terminou
+        private static int removeCursor(PostingList[] lists, PostingList.Cursor[] cursors, double[] idfs, int i, int active) {
+            int last = active - 1;
+            lists[i] = lists[last];
+            cursors[i] = cursors[last];
+            idfs[i] = idfs[last];
+            return last;
+        }
+
+        private static double bm25(double idf, int frequency, double lengthNorm) {
+            return idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+        }
+
+        void trim() {
+            postings.values().forEach(PostingList::trim);
+        }
+
+        // Renumera só os documentos vivos, mantendo a ordem (e com ela o delta crescente das listas)
+        Segment compacted() {
+            Segment compacted = new Segment();
+            int[] remap = new int[docs];
+            for (int doc = 0; doc < docs; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = compacted.addDoc(productIds[doc], names[doc], prices[doc], lengths[doc]);
+                }
+            }
+            postings.forEach((term, list) -> {
+                PostingList live = null;
+                PostingList.Cursor cursor = list.cursor();
+                while (cursor.next()) {
+                    int doc = remap[cursor.doc()];
+                    if (doc >= 0) {
+                        if (live == null) {
+                            live = new PostingList();
+                        }
+                        live.add(doc, cursor.frequency(), compacted.lengths[doc]);
+                    }
+                }
+                if (live != null) {
+                    live.trim();
+                    compacted.postings.put(term, live);
+                }
+            });
+            return compacted;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cleosilva.microservices.product_catalog.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Quebra texto em termos de busca: remove acentos ("Cadeirão" e "cadeirao" viram o mesmo termo), passa
+ * para minúsculas, descarta stopwords do português e reduz o plural regular ("cadeiras" → "cadeira").
+ * Índice e consulta usam a mesma normalização.
+ */
+final class ProductTokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "da", "do", "das", "dos", "e", "em", "na",
+            "no", "nas", "nos", "para", "por", "com", "sem", "que", "ou", "ao", "aos", "se", "the", "and", "of");
+
+    private ProductTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                tokens.add(singular(token));
+            }
+        }
+        return tokens;
+    }
+
+    // Só o plural com "s" final; palavras curtas e terminadas em "ss" ficam como estão
+    private static String singular(String token) {
+        if (token.length() > 4 && token.endsWith("s") && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
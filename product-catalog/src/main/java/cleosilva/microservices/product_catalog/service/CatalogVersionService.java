@@ -0,0 +1,41 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.entity.CatalogVersion;
+import cleosilva.microservices.product_catalog.repository.CatalogVersionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class CatalogVersionService {
+    @Autowired
+    private CatalogVersionRepository catalogVersionRepository;
+
+    /**
+     * Incrementa a versão do catálogo dentro da transação da escrita. O lock da linha é mantido
+     * até o commit, então as escritas recebem versões na mesma ordem em que são confirmadas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextVersion() {
+        return nextVersions(1);
+    }
+
+    /**
+     * Reserva {@code count} versões consecutivas com um único incremento e devolve a primeira. Uma escrita
+     * em lote dá uma versão a cada produto alterado: a réplica aplica exatamente um evento por versão.
+     * A linha vem do {@code data.sql}; sem ela a escrita falha em vez de criá-la.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextVersions(int count) {
+        if (catalogVersionRepository.increment(CatalogVersion.SINGLETON_ID, count) == 0) {
+            throw new IllegalStateException("Missing catalog_version row " + CatalogVersion.SINGLETON_ID
+                    + "; it is created by data.sql");
+        }
+        return currentVersion() - count + 1;
+    }
+
+    public long currentVersion() {
+        return catalogVersionRepository.findVersion(CatalogVersion.SINGLETON_ID).orElse(0L);
+    }
+}
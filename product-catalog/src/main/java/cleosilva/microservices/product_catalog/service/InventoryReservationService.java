@@ -0,0 +1,237 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reserva de estoque com coalescência. Os lotes de reservas que chegam dentro da janela
+ * {@code coalesce-window} são aplicados juntos, em uma única transação: cada produto recebe um único
+ * {@code UPDATE ... SET stock = stock - total WHERE stock >= total} com a soma da janela, sempre na mesma
+ * ordem de id. Assim um produto muito disputado custa um lock de linha por janela, e não um por pedido.
+ * <p>
+ * A janela é tudo ou nada: se o banco falhar, nenhuma reserva dela é gravada e todos os lotes falham, para
+ * que a reentrega de um lote não reserve de novo o que já tinha sido confirmado.
+ * <p>
+ * Se o estoque não cobre o total, as reservas são atendidas em ordem de chegada, pulando as que não cabem
+ * no estoque lido, e a baixa parcial é aplicada pelo mesmo UPDATE condicional; o estoque nunca fica
+ * negativo, mesmo com outras instâncias disputando a linha.
+ * <p>
+ * Cada produto com estoque baixado na janela publica um {@code ProductChangedEvent} com uma versão do
+ * catálogo após o commit, como as escritas do {@link ProductService}: as outras instâncias invalidam o seu
+ * cache (estoque e ETag) e a réplica do order-simulator não vê buraco de versão. Um produto disputado gera
+ * um evento por janela, não um por pedido.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    // Tentativas da baixa parcial quando outra transação altera o estoque entre a leitura e o UPDATE
+    private static final int MAX_PARTIAL_ATTEMPTS = 5;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final CatalogVersionService catalogVersionService;
+    private final ProductEventPublisher productEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration coalesceWindow;
+    private final ScheduledExecutorService flusher;
+    private final Object windowLock = new Object();
+    private List<Batch> window; // guardado por windowLock; null sem janela aberta
+    private final AtomicLong flushes = new AtomicLong();
+
+    public InventoryReservationService(ProductRepository productRepository,
+                                       ProductCache productCache,
+                                       CatalogVersionService catalogVersionService,
+                                       ProductEventPublisher productEventPublisher,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${inventory.reservation.coalesce-window:PT0.002S}") Duration coalesceWindow,
+                                       @Value("${inventory.reservation.flush-threads:4}") int flushThreads) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.catalogVersionService = catalogVersionService;
+        this.productEventPublisher = productEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coalesceWindow = coalesceWindow;
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-flush-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Ao desligar, as janelas abertas são aplicadas por stop() em vez de esperar o agendamento
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.flusher = executor;
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        flushPending();
+    }
+
+    /**
+     * Agenda a reserva de {@code quantity} unidades de um produto. O futuro completa com {@code true} se a
+     * reserva foi aplicada, {@code false} se faltou estoque (ou o produto não existe), e excepcionalmente se
+     * o banco falhou.
+     */
+    public CompletableFuture<Boolean> reserve(long productId, long quantity) {
+        return reserve(Map.of(productId, quantity)).thenApply(granted -> granted.get(productId));
+    }
+
+    /**
+     * Agenda as reservas de um lote, quantidade por produto. O futuro completa com o resultado de cada
+     * produto depois do commit, ou excepcionalmente se o banco falhou; nesse caso nada do lote foi gravado.
+     */
+    public CompletableFuture<Map<Long, Boolean>> reserve(Map<Long, Long> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Reservation quantity must be positive: " + quantity);
+            }
+        });
+        Batch batch = new Batch(quantities, new TreeMap<>(), new CompletableFuture<>());
+        synchronized (windowLock) {
+            if (window == null) {
+                List<Batch> opened = new ArrayList<>();
+                window = opened;
+                flusher.schedule(() -> flush(opened), coalesceWindow.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            window.add(batch);
+        }
+        return batch.result();
+    }
+
+    /** Quantidade de lotes aplicados no banco desde a subida; cada lote é um UPDATE no caminho feliz. */
+    long flushes() {
+        return flushes.get();
+    }
+
+    /** Aplica agora a janela aberta, sem esperar o fim dela. */
+    void flushPending() {
+        List<Batch> open;
+        synchronized (windowLock) {
+            open = window;
+        }
+        if (open != null) {
+            flush(open);
+        }
+    }
+
+    private void flush(List<Batch> batches) {
+        synchronized (windowLock) {
+            // Já aplicada por flushPending(); quem chegar depois da troca abre uma nova janela
+            if (window != batches) {
+                return;
+            }
+            window = null;
+        }
+        flushes.incrementAndGet();
+        Map<Long, List<Reservation>> byProduct = new TreeMap<>();
+        for (Batch batch : batches) {
+            batch.quantities().forEach((productId, quantity) ->
+                    byProduct.computeIfAbsent(productId, id -> new ArrayList<>()).add(new Reservation(batch, quantity)));
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Long> changed = new TreeSet<>();
+                byProduct.forEach((productId, reservations) -> {
+                    if (apply(productId, reservations)) {
+                        changed.add(productId);
+                    }
+                });
+                publishChanged(changed);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not apply the stock reservations of {} batches: {}", batches.size(), e.getMessage());
+            batches.forEach(batch -> batch.result().completeExceptionally(e));
+            return;
+        }
+        batches.forEach(batch -> batch.result().complete(batch.granted()));
+    }
+
+    // Roda dentro da transação da janela; o resultado de cada reserva fica no seu lote. Diz se o estoque mudou
+    private boolean apply(long productId, List<Reservation> reservations) {
+        long total = reservations.stream().mapToLong(Reservation::quantity).sum();
+        if (decrement(productId, total)) {
+            reservations.forEach(reservation -> reservation.grant(productId, true));
+            return true;
+        }
+        for (int attempt = 0; attempt < MAX_PARTIAL_ATTEMPTS; attempt++) {
+            long available = productRepository.findStockById(productId).orElse(0L);
+            boolean[] granted = new boolean[reservations.size()];
+            long grantedTotal = 0;
+            for (int i = 0; i < granted.length; i++) {
+                long quantity = reservations.get(i).quantity();
+                if (grantedTotal + quantity <= available) {
+                    granted[i] = true;
+                    grantedTotal += quantity;
+                }
+            }
+            if (grantedTotal == 0 || decrement(productId, grantedTotal)) {
+                for (int i = 0; i < granted.length; i++) {
+                    reservations.get(i).grant(productId, granted[i]);
+                }
+                return grantedTotal > 0;
+            }
+        }
+        log.warn("Stock of product {} kept changing; rejecting {} reservations", productId, reservations.size());
+        reservations.forEach(reservation -> reservation.grant(productId, false));
+        return false;
+    }
+
+    private boolean decrement(long productId, long quantity) {
+        if (productRepository.reserveStock(productId, quantity) == 1) {
+            productCache.invalidateAfterCommit(productId);
+            return true;
+        }
+        return false;
+    }
+
+    // Uma versão por produto alterado, em ordem de id; os eventos saem após o commit
+    private void publishChanged(Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        // As linhas seguem travadas pelo UPDATE desta transação: nenhuma some entre a baixa e a leitura
+        List<Product> products = new ArrayList<>(productRepository.findAllById(productIds));
+        products.sort(Comparator.comparingLong(Product::getId));
+        long version = catalogVersionService.nextVersions(products.size());
+        for (Product product : products) {
+            productEventPublisher.publishProductChanged(
+                    ProductChangedEvent.of(product, ProductChangedEvent.ChangeType.UPDATED, version++));
+        }
+    }
+
+    private record Batch(Map<Long, Long> quantities, Map<Long, Boolean> granted,
+                         CompletableFuture<Map<Long, Boolean>> result) { }
+
+    private record Reservation(Batch batch, long quantity) {
+        void grant(long productId, boolean granted) {
+            batch.granted().put(productId, granted);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.order_events.OrderCreatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Processa eventos de pedido em lote: as quantidades dos itens são somadas por produto e o lote inteiro vai
+ * ao {@link InventoryReservationService}, que o aplica em uma única transação (junto com os lotes que
+ * chegarem na mesma janela). O método só retorna (e o lote só é confirmado) depois do commit; uma falha de
+ * banco desfaz todas as reservas do lote, propaga, e o lote segue para o retry sem ter reservado nada.
+ * <p>
+ * A entrega é at-least-once e o evento não tem identificador: um lote gravado cujo ack se perde (queda entre
+ * o commit e o ack) é reservado de novo.
+ */
+@Service
+public class OrderEventProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventProcessor.class);
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    public void process(List<OrderCreatedEvent> events) {
+        Map<Long, Long> quantities = quantitiesByProduct(events);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Boolean> granted = inventoryReservationService.reserve(quantities).join();
+
+        List<Long> outOfStock = new ArrayList<>();
+        granted.forEach((productId, reserved) -> {
+            if (!reserved) {
+                outOfStock.add(productId);
+            }
+        });
+        if (!outOfStock.isEmpty()) {
+            log.warn("Insufficient stock for products {} in a batch of {} order events", outOfStock, events.size());
+        }
+    }
+
+    // TreeMap: reservas sempre na mesma ordem de id
+    static Map<Long, Long> quantitiesByProduct(List<OrderCreatedEvent> events) {
+        Map<Long, Long> quantities = new TreeMap<>();
+        for (OrderCreatedEvent event : events) {
+            for (OrderCreatedEvent.Item item : event.items()) {
+                if (item.quantity() > 0) {
+                    quantities.merge(item.productId(), (long) item.quantity(), Long::sum);
+                }
+            }
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,181 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.datasource.ReadRouting;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrupa buscas concorrentes de produto por id (no estilo DataLoader). As chaves pedidas dentro da janela
+ * {@code catalog.batching.window}, ou até {@code max-batch-size} chaves, viram um único
+ * {@code SELECT ... WHERE id IN (...)}; quem pede um id que já está em voo espera o mesmo resultado, sem
+ * nova consulta. Desligado por padrão: aí cada chamada é um {@code findViewById} direto, sem espera.
+ * <p>
+ * Todos que esperaram pelo id recebem a mesma {@link ProductView}, que é imutável. As métricas {@code catalog.products.loader.batch.size} e
+ * {@code catalog.products.loader.wait} (espera da chave mais antiga do lote) servem para ajustar a janela.
+ */
+@Component
+public class ProductBatchLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductBatchLoader.class);
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService dispatcher;
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<ProductView>>> inFlight = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final Timer queryTime;
+    private final AtomicLong batches = new AtomicLong();
+    private Batch open;
+
+    public ProductBatchLoader(ProductRepository productRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${catalog.batching.enabled:false}") boolean enabled,
+                              @Value("${catalog.batching.window:PT0.0002S}") Duration window,
+                              @Value("${catalog.batching.max-batch-size:100}") int maxBatchSize,
+                              @Value("${catalog.batching.threads:4}") int threads) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "product-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.batchSize = DistributionSummary.builder("catalog.products.loader.batch.size")
+                .description("Distinct product ids per SELECT ... WHERE id IN")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("catalog.products.loader.wait")
+                .description("Time the oldest lookup of a batch waited before the query started")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.queryTime = Timer.builder("catalog.products.loader.query")
+                .description("Duration of the batched product query")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdown();
+    }
+
+    /** Produto com o id, ou vazio se não existe. Bloqueia até o lote da chave ser consultado. */
+    public Optional<ProductView> load(long id) {
+        // Um cliente fixado no primário não pode entrar no lote, que é consultado em outra thread
+        if (!enabled || ReadRouting.isPinnedToPrimary()) {
+            return productRepository.findViewById(id);
+        }
+        CompletableFuture<Optional<ProductView>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<ProductView>> shared = inFlight.putIfAbsent(id, created);
+        if (shared == null) {
+            enqueue(id, created);
+            shared = created;
+        }
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** Quantidade de consultas em lote feitas desde a subida. */
+    long batches() {
+        return batches.get();
+    }
+
+    private void enqueue(long id, CompletableFuture<Optional<ProductView>> result) {
+        Batch full = null;
+        synchronized (this) {
+            if (open == null) {
+                Batch batch = new Batch(System.nanoTime());
+                open = batch;
+                dispatcher.schedule(() -> dispatch(batch), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            open.keys.put(id, result);
+            if (open.keys.size() >= maxBatchSize) {
+                full = open;
+                open = null;
+            }
+        }
+        if (full != null) {
+            Batch batch = full;
+            dispatcher.execute(() -> dispatch(batch));
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        synchronized (this) {
+            // Quem chegar depois daqui abre um novo lote
+            if (open == batch) {
+                open = null;
+            }
+        }
+        // O lote cheio é despachado na hora; o agendamento da janela ainda dispara e não deve repetir a consulta
+        if (!batch.dispatched.compareAndSet(false, true)) {
+            return;
+        }
+        batches.incrementAndGet();
+        batchSize.record(batch.keys.size());
+        batchWait.record(System.nanoTime() - batch.openedAt, TimeUnit.NANOSECONDS);
+        try {
+            List<ProductView> products = queryTime.record(() -> productRepository.findViewsByIdIn(new ArrayList<>(batch.keys.keySet())));
+            Map<Long, ProductView> byId = new HashMap<>();
+            products.forEach(product -> byId.put(product.id(), product));
+            batch.keys.forEach((id, result) -> {
+                inFlight.remove(id, result);
+                result.complete(Optional.ofNullable(byId.get(id)));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not load a batch of {} products: {}", batch.keys.size(), e.getMessage());
+            batch.keys.forEach((id, result) -> {
+                inFlight.remove(id, result);
+                result.completeExceptionally(e);
+            });
+        }
+    }
+
+    private static final class Batch {
+        private final long openedAt;
+        private final Map<Long, CompletableFuture<Optional<ProductView>>> keys = new HashMap<>();
+        private final AtomicBoolean dispatched = new AtomicBoolean();
+
+        private Batch(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.config.RabbitMQConfig;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class ProductEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ProductEventPublisher(RabbitTemplate rabbitTemplate, ObjectMapper objectMapper) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Publica a alteração de um produto para que os caches e réplicas do catálogo em outros serviços
+     * sejam atualizados. Dentro de uma transação o envio acontece só após o commit, para nunca anunciar
+     * uma escrita que foi desfeita. Uma falha no broker não desfaz a escrita: o cache remoto expira pelo
+     * TTL e a réplica detecta o buraco de versão no próximo evento.
+     */
+    public void publishProductChanged(ProductChangedEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(event);
+                }
+            });
+        } else {
+            send(event);
+        }
+    }
+
+    private void send(ProductChangedEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            rabbitTemplate.convertAndSend(RabbitMQConfig.PRODUCT_EXCHANGE_NAME, RabbitMQConfig.PRODUCT_CHANGED_ROUTING_KEY, payload);
+        } catch (Exception e) {
+            log.warn("Could not publish {} event for product {}: {}", event.type(), event.productId(), e.getMessage());
+        }
+    }
+}
@@ -1,52 +1,330 @@
 package cleosilva.microservices.product_catalog.service;
 
+import cleosilva.microservices.product_catalog.cache.EncodedJson;
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.cache.ProductListingCache;
+import cleosilva.microservices.product_catalog.dto.BulkChunkResult;
+import cleosilva.microservices.product_catalog.dto.ProductBatchResponse;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import cleosilva.microservices.product_catalog.dto.ProductPage;
 import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.dto.ProductSearchHit;
+import cleosilva.microservices.product_catalog.dto.ProductUpsertRequest;
+import cleosilva.microservices.product_catalog.dto.ProductView;
 import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.exceptions.PreconditionFailedException;
 import cleosilva.microservices.product_catalog.exceptions.ResourceNotFoundException;
 import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import cleosilva.microservices.product_catalog.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
+    private static final Logger log = LoggerFactory.getLogger(ProductService.class);
+
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductEventPublisher productEventPublisher;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductListingCache productListingCache;
+
+    @Autowired
+    private ProductBatchLoader productBatchLoader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${catalog.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${catalog.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @Value("${catalog.search.max-results:100}")
+    private int maxSearchResults;
+
+    @Transactional
     public Product createProduct(ProductRequest productRequest) {
         Product product = new Product();
-        product.setName(productRequest.getName());
-        product.setDescription(productRequest.getDescription());
-        product.setPrice(productRequest.getPrice());
-        return productRepository.save(product);
+        applyRequest(product, productRequest);
+        Product saved = productRepository.save(product);
+        productCache.invalidateAfterCommit(saved.getId());
+        productSearchIndex.indexAfterCommit(saved);
+        long version = catalogVersionService.nextVersion();
+        productEventPublisher.publishProductChanged(ProductChangedEvent.of(saved, ProductChangedEvent.ChangeType.CREATED, version));
+        return saved;
     }
 
-    public List<Product> listProducts(){
-        return productRepository.findAll();
+    /**
+     * Cria ou atualiza produtos lidos de {@code items} em chunks de {@code catalog.bulk.chunk-size}, cada
+     * um na sua transação: com o id vindo da sequência pooled, os INSERTs/UPDATEs do chunk saem em lotes
+     * JDBC. Itens inválidos ou com id inexistente são recusados sem afetar os demais; uma falha no banco
+     * desfaz apenas o seu chunk. {@code progress} recebe o resultado de cada chunk após o commit. Uma
+     * entrada malformada encerra a leitura, mantendo o que já foi gravado.
+     */
+    public void bulkUpsert(Iterator<? extends ProductUpsertRequest> items, Consumer<BulkChunkResult> progress) {
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        long position = 0;
+        int chunk = 0;
+        boolean more = true;
+        while (more) {
+            long firstItem = position;
+            List<Indexed> valid = new ArrayList<>(bulkChunkSize);
+            List<BulkChunkResult.ItemError> errors = new ArrayList<>();
+            while (position - firstItem < bulkChunkSize) {
+                ProductUpsertRequest item;
+                try {
+                    if (!items.hasNext()) {
+                        more = false;
+                        break;
+                    }
+                    item = items.next();
+                } catch (RuntimeException e) {
+                    errors.add(new BulkChunkResult.ItemError(position++, "Malformed input: " + e.getMessage()));
+                    more = false;
+                    break;
+                }
+                Set<ConstraintViolation<ProductUpsertRequest>> violations = validator.validate(item);
+                if (violations.isEmpty()) {
+                    valid.add(new Indexed(position, item));
+                } else {
+                    errors.add(new BulkChunkResult.ItemError(position, violations.stream()
+                            .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(" "))));
+                }
+                position++;
+            }
+            if (position == firstItem) {
+                break;
+            }
+            progress.accept(writeChunk(chunkTransaction, ++chunk, firstItem, (int) (position - firstItem), valid, errors));
+        }
     }
 
-    public Product getProductById(Long id){
-        return productRepository.findById(id)
+    private record Indexed(long position, ProductUpsertRequest request) {}
+
+    private record ChunkOutcome(int created, int updated, List<BulkChunkResult.ItemError> missing) {}
+
+    private BulkChunkResult writeChunk(TransactionTemplate chunkTransaction, int chunk, long firstItem, int size,
+                                       List<Indexed> valid, List<BulkChunkResult.ItemError> errors) {
+        long start = System.nanoTime();
+        int created = 0;
+        int updated = 0;
+        if (!valid.isEmpty()) {
+            try {
+                ChunkOutcome outcome = chunkTransaction.execute(status -> upsertChunk(valid));
+                created = outcome.created();
+                updated = outcome.updated();
+                errors.addAll(outcome.missing());
+            } catch (RuntimeException e) {
+                log.warn("Bulk chunk {} (items {}..{}) rolled back: {}", chunk, firstItem, firstItem + size - 1, e.getMessage());
+                valid.forEach(item -> errors.add(new BulkChunkResult.ItemError(item.position(),
+                        "Chunk rolled back: " + e.getMessage())));
+            }
+        }
+        errors.sort((a, b) -> Long.compare(a.item(), b.item()));
+        return new BulkChunkResult(chunk, firstItem, size, created, updated, errors,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private ChunkOutcome upsertChunk(List<Indexed> items) {
+        // Uma consulta para todos os ids atualizados do chunk
+        Set<Long> ids = items.stream().map(item -> item.request().getId())
+                .filter(id -> id != null).collect(Collectors.toSet());
+        Map<Long, Product> existing = ids.isEmpty() ? Map.of() : productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Product> created = new ArrayList<>();
+        List<Product> updated = new ArrayList<>();
+        List<BulkChunkResult.ItemError> missing = new ArrayList<>();
+        for (Indexed item : items) {
+            Long id = item.request().getId();
+            if (id == null) {
+                Product product = new Product();
+                applyRequest(product, item.request());
+                created.add(product);
+            } else if (existing.containsKey(id)) {
+                applyRequest(existing.get(id), item.request());
+                updated.add(existing.get(id));
+            } else {
+                missing.add(new BulkChunkResult.ItemError(item.position(), "Product with Id " + id + " not found!"));
+            }
+        }
+        productRepository.saveAll(created);
+        entityManager.flush();
+
+        if (!created.isEmpty() || !updated.isEmpty()) {
+            long version = catalogVersionService.nextVersions(created.size() + updated.size());
+            for (Product product : created) {
+                changed(product, ProductChangedEvent.ChangeType.CREATED, version++);
+            }
+            for (Product product : updated) {
+                changed(product, ProductChangedEvent.ChangeType.UPDATED, version++);
+            }
+        }
+        // Libera o contexto de persistência: a memória fica limitada ao tamanho do chunk
+        entityManager.clear();
+        return new ChunkOutcome(created.size(), updated.size(), missing);
+    }
+
+    private void changed(Product product, ProductChangedEvent.ChangeType type, long version) {
+        productCache.invalidateAfterCommit(product.getId());
+        productSearchIndex.indexAfterCommit(product);
+        productEventPublisher.publishProductChanged(ProductChangedEvent.of(product, type, version));
+    }
+
+    private static void applyRequest(Product product, ProductRequest request) {
+        product.setName(request.getName());
+        product.setDescription(request.getDescription());
+        product.setPrice(request.getPrice());
+        if (request.getStock() != null) {
+            product.setStock(request.getStock());
+        }
+    }
+
+    /** Busca textual no índice em memória; o número de resultados é limitado a {@code catalog.search.max-results}. */
+    public List<ProductSearchHit> searchProducts(String query, int limit) {
+        return productSearchIndex.search(query, Math.clamp(limit, 1, maxSearchResults));
+    }
+
+    /** Listagem completa já serializada; só os produtos alterados desde a última leitura são relidos. */
+    public ProductListingCache.Listing listProductsJson() {
+        return productListingCache.listing();
+    }
+
+    /**
+     * Página de produtos com id maior que {@code after}, em ordem de id. O tamanho é limitado a
+     * {@code catalog.page.max-size}; uma linha extra é lida só para saber se existe próxima página.
+     */
+    @Transactional(readOnly = true)
+    public ProductPage listProductsAfter(long after, int limit) {
+        int pageSize = Math.clamp(limit, 1, maxPageSize);
+        return ProductPage.of(productRepository.findViewsAfter(after, Limit.of(pageSize + 1)), pageSize);
+    }
+
+    /** Leitura pelo cache; as faltas concorrentes são agrupadas pelo {@link ProductBatchLoader}, se ligado. */
+    public ProductView getProductById(Long id){
+        return productCache.get(id, productBatchLoader::load)
                 .orElseThrow(() -> new ResourceNotFoundException("Product with Id " +id + " not found!" ));
     }
 
+    public EncodedJson getProductJsonById(Long id) {
+        return productCache.getEncoded(id, productBatchLoader::load)
+                .orElseThrow(() -> new ResourceNotFoundException("Product with Id " +id + " not found!" ));
+    }
+
+    /** Versão atual do produto, do cache ou de uma consulta só da coluna; usada para validar ETags. */
+    @Transactional(readOnly = true)
+    public long getProductVersion(Long id) {
+        return productCache.cachedVersion(id).orElseGet(() -> productRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product with Id " +id + " not found!" )));
+    }
+
+    @Transactional(readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            return new ProductBatchResponse(List.of(), List.of());
+        }
+
+        // Uma única consulta (WHERE id IN (...)) para todo o lote
+        return ProductBatchResponse.of(uniqueIds, productRepository.findViewsByIdIn(uniqueIds));
+    }
+
+    /**
+     * Exporta o catálogo inteiro em ordem de id. A versão do catálogo e os produtos são lidos no mesmo
+     * snapshot (REPEATABLE READ), então quem importa sabe exatamente a partir de qual versão aplicar os
+     * eventos de alteração. Os produtos são projeções, nada fica no contexto de persistência: a memória é constante.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void exportProducts(LongConsumer versionConsumer, Consumer<ProductView> productConsumer) {
+        versionConsumer.accept(catalogVersionService.currentVersion());
+        try (Stream<ProductView> products = productRepository.streamAllViews()) {
+            products.forEach(productConsumer);
+        }
+    }
+
+    @Transactional
     public Product updateProduct(Long id, ProductRequest productRequest){
+        return updateProduct(id, productRequest, null);
+    }
+
+    /**
+     * Atualiza só se o produto ainda estiver em {@code expectedVersion} (null dispensa a checagem).
+     * Uma escrita concorrente depois da leitura é barrada no flush pelo {@code @Version}.
+     */
+    @Transactional
+    public Product updateProduct(Long id, ProductRequest productRequest, Long expectedVersion){
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product with Id " +id + " not found!" ));
-        product.setName(productRequest.getName());
-        product.setDescription(productRequest.getDescription());
-        product.setPrice(productRequest.getPrice());
+        if (expectedVersion != null && expectedVersion != product.getVersion()) {
+            throw new PreconditionFailedException("Product with Id " + id + " is at version " + product.getVersion()
+                    + ", not " + expectedVersion);
+        }
+        applyRequest(product, productRequest);
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productCache.invalidateAfterCommit(id);
+        productSearchIndex.indexAfterCommit(saved);
+        long version = catalogVersionService.nextVersion();
+        productEventPublisher.publishProductChanged(ProductChangedEvent.of(saved, ProductChangedEvent.ChangeType.UPDATED, version));
+        return saved;
     }
 
+    @Transactional
     public  void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResourceNotFoundException("Product with Id " + id + " not found!");
         }
         productRepository.deleteById(id);
+        productCache.invalidateAfterCommit(id);
+        productSearchIndex.removeAfterCommit(id);
+        long version = catalogVersionService.nextVersion();
+        productEventPublisher.publishProductChanged(ProductChangedEvent.deleted(id, version));
 
     }
 }
@@ -0,0 +1,6 @@
+-- Linha única da versão do catálogo (CatalogVersion). Roda a cada subida, depois que o Hibernate cria as
+-- tabelas; as escritas só incrementam a linha, nunca a inserem, para que duas escritas concorrentes não
+-- disputem o mesmo INSERT.
+INSERT INTO catalog_version (id, version)
+SELECT 1, 0
+WHERE NOT EXISTS (SELECT 1 FROM catalog_version WHERE id = 1);
@@ -0,0 +1,182 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import cleosilva.microservices.product_catalog.datasource.PrimaryPinFilter;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class ProductCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ProductJsonEncoder encoder = new ProductJsonEncoder(new ObjectMapper(), true);
+    private final ProductListingCache listing = mock(ProductListingCache.class);
+
+    private Optional<ProductView> load(long id) {
+        loads.incrementAndGet();
+        if (id == 404L) {
+            return Optional.empty();
+        }
+        return Optional.of(new ProductView(id, "Laptop", "Powerful laptop", new BigDecimal("1200.00"), 3, 0));
+    }
+
+    @Test
+    @DisplayName("Should load a product once and serve later reads from memory")
+    void shouldReadThrough() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, registry, encoder, listing);
+
+        assertEquals("Laptop", cache.get(1L, this::load).orElseThrow().name());
+        assertEquals(3, cache.get(1L, this::load).orElseThrow().stock());
+
+        assertEquals(1, loads.get());
+        assertEquals(0.5, registry.get("catalog.products.cache.hit.ratio").gauge().value());
+        assertEquals(1, cache.stats().loadCount());
+    }
+
+    @Test
+    @DisplayName("Should not cache missing products")
+    void shouldNotCacheMissingProducts() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+
+        assertTrue(cache.get(404L, this::load).isEmpty());
+        assertTrue(cache.get(404L, this::load).isEmpty());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should share the immutable cached view instead of copying it")
+    void shouldShareImmutableView() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+
+        assertSame(cache.get(1L, this::load).orElseThrow(), cache.get(1L, this::load).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should bypass the cache when disabled")
+    void shouldBypassWhenDisabled() {
+        ProductCache cache = new ProductCache(false, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should invalidate only after the surrounding transaction commits")
+    void shouldInvalidateAfterCommit() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+        cache.get(1L, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAfterCommit(1L);
+            cache.get(1L, this::load);
+            assertEquals(1, loads.get());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        cache.get(1L, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should keep the encoded JSON and gzip bytes with the cached entry")
+    void shouldCacheEncodedJson() throws IOException {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+
+        EncodedJson first = cache.getEncoded(1L, this::load).orElseThrow();
+        EncodedJson second = cache.getEncoded(1L, this::load).orElseThrow();
+
+        assertSame(first.json(), second.json());
+        assertEquals(1, loads.get());
+        assertTrue(new String(first.json(), StandardCharsets.UTF_8).contains("\"name\":\"Laptop\""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first.gzip()))) {
+            assertArrayEquals(first.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should mark the product in the materialized listing when invalidated")
+    void shouldMarkListingOnInvalidate() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+
+        cache.invalidate(7L);
+        cache.invalidateAll();
+
+        verify(listing).markChanged(7L);
+        verify(listing).markAllChanged();
+    }
+
+    @Test
+    @DisplayName("Should invalidate again after the replica lag")
+    void shouldRepeatInvalidationAfterReplicaLag() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ofMillis(50), false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+        cache.get(1L, this::load);
+
+        cache.invalidate(1L);
+        // Recarga vinda de uma réplica ainda sem a escrita
+        cache.get(1L, this::load);
+        assertTrue(cache.cachedVersion(1L).isPresent());
+
+        verify(listing, timeout(5000).times(2)).markChanged(1L);
+        assertTrue(cache.cachedVersion(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should use the pin window as replica lag when read routing is on")
+    void shouldRepeatInvalidationForPinWindowWithRouting() {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, true, Duration.ofMillis(50), new SimpleMeterRegistry(), encoder, listing);
+        cache.get(1L, this::load);
+
+        cache.invalidate(1L);
+        cache.get(1L, this::load);
+
+        verify(listing, timeout(5000).times(2)).markChanged(1L);
+        assertTrue(cache.cachedVersion(1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should neither read nor fill the cache for a client pinned to the primary")
+    void shouldBypassCacheWhilePinned() throws Exception {
+        ProductCache cache = new ProductCache(true, 100, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(), encoder, listing);
+        cache.get(1L, this::load);
+        PrimaryPinFilter pinFilter = new PrimaryPinFilter(Duration.ofMinutes(1), 100);
+        MockHttpServletRequest write = new MockHttpServletRequest("PUT", "/products/1");
+        write.addHeader(PrimaryPinFilter.CLIENT_ID_HEADER, "alice");
+
+        pinFilter.doFilter(write, new MockHttpServletResponse(), (request, response) -> {
+            assertTrue(cache.get(1L, this::load).isPresent());
+            assertTrue(cache.getEncoded(1L, this::load).isPresent());
+            assertTrue(cache.cachedVersion(1L).isEmpty());
+        });
+
+        assertEquals(3, loads.get());
+        cache.get(1L, this::load);
+        assertEquals(3, loads.get());
+    }
+}
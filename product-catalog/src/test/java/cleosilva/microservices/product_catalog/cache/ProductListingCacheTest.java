@@ -0,0 +1,100 @@
+package cleosilva.microservices.product_catalog.cache;
+
+import cleosilva.microservices.product_catalog.datasource.PrimaryPinFilter;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductListingCacheTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductListingCache cache = new ProductListingCache(productRepository,
+            new ProductJsonEncoder(new ObjectMapper(), false), mock(PlatformTransactionManager.class), true,
+            Duration.ofMinutes(10));
+
+    private static ProductView product(long id, String name) {
+        return new ProductView(id, name, "desc", new BigDecimal("10.00"), 0, 0);
+    }
+
+    private static String json(ProductListingCache.Listing listing) {
+        return new String(listing.body().json(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Should build the listing once and reuse it while nothing changes")
+    void shouldReuseListing() {
+        when(productRepository.streamAllViews()).thenAnswer(invocation -> Stream.of(product(1, "A"), product(2, "B")));
+
+        ProductListingCache.Listing first = cache.listing();
+        ProductListingCache.Listing second = cache.listing();
+
+        assertSame(first, second);
+        assertEquals(2, first.size());
+        assertTrue(json(first).startsWith("[{") && json(first).endsWith("}]"));
+        verify(productRepository, times(1)).streamAllViews();
+    }
+
+    @Test
+    @DisplayName("Should reload only the changed products and drop deleted ones")
+    void shouldApplyChangesIncrementally() {
+        when(productRepository.streamAllViews()).thenAnswer(invocation -> Stream.of(product(1, "A"), product(2, "B"), product(3, "C")));
+        ProductListingCache.Listing first = cache.listing();
+
+        when(productRepository.findViewsByIdIn(any())).thenReturn(List.of(product(1, "A2"), product(4, "D")));
+        cache.markChanged(1);
+        cache.markChanged(3);
+        cache.markChanged(4);
+        ProductListingCache.Listing second = cache.listing();
+
+        assertEquals(first.version() + 1, second.version());
+        assertEquals(3, second.size());
+        String json = json(second);
+        assertTrue(json.indexOf("\"A2\"") < json.indexOf("\"B\"") && json.indexOf("\"B\"") < json.indexOf("\"D\""));
+        assertFalse(json.contains("\"C\""));
+        verify(productRepository, times(1)).streamAllViews();
+    }
+
+    @Test
+    @DisplayName("Should rebuild from scratch after invalidating everything")
+    void shouldRebuildAfterMarkAll() {
+        when(productRepository.streamAllViews()).thenAnswer(invocation -> Stream.of(product(1, "A")));
+        cache.listing();
+
+        cache.markAllChanged();
+        cache.listing();
+
+        verify(productRepository, times(2)).streamAllViews();
+        verify(productRepository, never()).findViewsByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("Should load a fresh listing for a pinned client without replacing the cached one")
+    void shouldBypassListingWhilePinned() throws Exception {
+        when(productRepository.streamAllViews()).thenAnswer(invocation -> Stream.of(product(1, "A")));
+        ProductListingCache.Listing cached = cache.listing();
+        when(productRepository.streamAllViews()).thenAnswer(invocation -> Stream.of(product(1, "A2")));
+        MockHttpServletRequest write = new MockHttpServletRequest("PUT", "/products/1");
+        write.addHeader(PrimaryPinFilter.CLIENT_ID_HEADER, "alice");
+
+        new PrimaryPinFilter(Duration.ofMinutes(1), 100).doFilter(write, new MockHttpServletResponse(),
+                (request, response) -> assertTrue(json(cache.listing()).contains("\"A2\"")));
+
+        assertSame(cached, cache.listing());
+        verify(productRepository, times(2)).streamAllViews();
+    }
+}
@@ -1,8 +1,11 @@
 package cleosilva.microservices.product_catalog.controller;
 
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.BulkChunkResult;
 import cleosilva.microservices.product_catalog.dto.ProductRequest;
 import cleosilva.microservices.product_catalog.entity.Product;
 import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import cleosilva.microservices.product_catalog.search.ProductSearchIndex;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,7 +17,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPInputStream;
+
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -34,6 +43,12 @@ public class ProductControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
     private Product product1;
     private Product product2;
     private ProductRequest validProductRequest;
@@ -47,6 +62,9 @@ public class ProductControllerIntegrationTest {
 
         product2 = new Product("Headphones", "Noise-cancelling headphones", new BigDecimal("150.00"));
         product2= productRepository.save(product2);
+        // Escritas direto no repositório não passam pelo serviço
+        productCache.invalidateAll();
+        productSearchIndex.rebuild();
 
         validProductRequest = new ProductRequest();
         validProductRequest.setName("Smartwatch");
@@ -98,12 +116,89 @@ public class ProductControllerIntegrationTest {
     @DisplayName("GET /products - Should return 204 No Content if no products exist")
     void shouldReturnNoContentIfNoProductsExist() throws Exception {
         productRepository.deleteAll();
+        productCache.invalidateAll();
 
         mockMvc.perform(get("/products")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    @DisplayName("GET /products - Should reflect writes in the materialized listing")
+    void shouldRefreshListingAfterWrites() throws Exception {
+        String version = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(ProductController.LISTING_VERSION_HEADER);
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/products/{id}", product2.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isCreated());
+
+        String refreshed = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is((int) product1.getId())))
+                .andExpect(jsonPath("$[0].name", is("Smartwatch")))
+                .andExpect(jsonPath("$[1].name", is("Smartwatch")))
+                .andReturn().getResponse().getHeader(ProductController.LISTING_VERSION_HEADER);
+        assertTrue(Long.parseLong(refreshed) > Long.parseLong(version));
+    }
+
+    @Test
+    @DisplayName("GET /products?limit= - Should walk the catalog in keyset pages")
+    void shouldPaginateByKeyset() throws Exception {
+        Product product3 = productRepository.save(new Product("Keyboard", "Mechanical keyboard", new BigDecimal("90.00")));
+
+        mockMvc.perform(get("/products").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.products[0].id", is((int) product1.getId())))
+                .andExpect(jsonPath("$.products[1].id", is((int) product2.getId())))
+                .andExpect(jsonPath("$.nextAfter", is((int) product2.getId())));
+
+        mockMvc.perform(get("/products").param("after", Long.toString(product2.getId())).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(1)))
+                .andExpect(jsonPath("$.products[0].id", is((int) product3.getId())))
+                .andExpect(jsonPath("$.nextAfter").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /products?limit= - Should cap the page size")
+    void shouldCapPageSize() throws Exception {
+        mockMvc.perform(get("/products").param("limit", "1000000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)));
+
+        mockMvc.perform(get("/products").param("limit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(1)))
+                .andExpect(jsonPath("$.nextAfter", is((int) product1.getId())));
+    }
+
+    @Test
+    @DisplayName("GET /products/{id} - Should not serve a cached product after it was updated")
+    void shouldNotServeStaleProductAfterUpdate() throws Exception {
+        mockMvc.perform(get("/products/{id}", product1.getId()))
+                .andExpect(jsonPath("$.name", is("Smartphone X")));
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/{id}", product1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Smartwatch")));
+    }
+
     @Test
     @DisplayName("GET /products/{id} - Should return product by ID and 200 OK")
     void shouldReturnProductById() throws Exception {
@@ -114,6 +209,104 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.name", is(product1.getName())));
     }
 
+    @Test
+    @DisplayName("GET /products/{id} - Should serve the pre-compressed body only when gzip is accepted")
+    void shouldNegotiateGzip() throws Exception {
+        byte[] gzipped = mockMvc.perform(get("/products/{id}", product1.getId()).header("Accept-Encoding", "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            Product product = objectMapper.readValue(new String(in.readAllBytes(), StandardCharsets.UTF_8), Product.class);
+            assertEquals(product1.getName(), product.getName());
+        }
+
+        mockMvc.perform(get("/products/{id}", product1.getId()).header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.name", is(product1.getName())));
+    }
+
+    @Test
+    @DisplayName("POST /products/bulk - Should upsert a JSON array and report each item that failed")
+    void shouldBulkUpsertJsonArray() throws Exception {
+        String body = "[" +
+                "{\"name\":\"Mouse\",\"description\":\"Wireless\",\"price\":50.00,\"stock\":10}," +
+                "{\"id\":" + product1.getId() + ",\"name\":\"Smartphone Y\",\"description\":\"Newer\",\"price\":900.00}," +
+                "{\"name\":\"\",\"description\":\"No name\",\"price\":10.00}," +
+                "{\"id\":999999,\"name\":\"Ghost\",\"description\":\"Missing\",\"price\":1.00}" +
+                "]";
+
+        String report = mockMvc.perform(post("/products/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProductController.NDJSON_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString();
+
+        BulkChunkResult result = objectMapper.readValue(report.trim(), BulkChunkResult.class);
+        assertEquals(4, result.items());
+        assertEquals(1, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(List.of(2L, 3L), result.errors().stream().map(BulkChunkResult.ItemError::item).toList());
+
+        assertEquals("Smartphone Y", productRepository.findById(product1.getId()).orElseThrow().getName());
+        assertEquals(3, productRepository.count());
+    }
+
+    @Test
+    @DisplayName("POST /products/bulk - Should commit NDJSON in chunks and keep chunks read before malformed input")
+    void shouldBulkInsertNdjsonInChunks() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            body.append("{\"name\":\"Item ").append(i).append("\",\"description\":\"Bulk\",\"price\":1.00}\n");
+        }
+        body.append("{\"name\": oops}\n");
+
+        String report = mockMvc.perform(post("/products/bulk")
+                        .contentType(ProductController.NDJSON_MEDIA_TYPE).content(body.toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<BulkChunkResult> chunks = report.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, BulkChunkResult.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+        assertEquals(List.of(1000, 1000, 501), chunks.stream().map(BulkChunkResult::items).toList());
+        assertEquals(2500, chunks.stream().mapToInt(BulkChunkResult::created).sum());
+        assertEquals(2500L, chunks.get(2).errors().getFirst().item());
+        assertEquals(2502, productRepository.count());
+
+        mockMvc.perform(get("/products"))
+                .andExpect(jsonPath("$", hasSize(2502)));
+    }
+
+    @Test
+    @DisplayName("GET /products/search - Should find products ignoring accents and follow later writes")
+    void shouldSearchProducts() throws Exception {
+        mockMvc.perform(get("/products/search").param("q", "smártphone"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is((int) product1.getId())))
+                .andExpect(jsonPath("$[0].name", is("Smartphone X")));
+
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(delete("/products/{id}", product2.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products/search").param("q", "smartwatch headphones"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Smartwatch")));
+    }
+
     @Test
     @DisplayName("GET /products/{id} - Should return 404 Not Found for non-existent product")
     void shouldReturnNotFoundForNonExistentProduct() throws Exception {
@@ -122,6 +315,62 @@ public class ProductControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("POST /products/batch - Should return found products and missing ids")
+    void shouldReturnProductsInBatch() throws Exception {
+        List<Long> ids = List.of(product1.getId(), 999L, product2.getId());
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.missingIds", hasSize(1)))
+                .andExpect(jsonPath("$.missingIds[0]", is(999)));
+    }
+
+    @Test
+    @DisplayName("POST /products/batch - Should return 400 Bad Request when the batch exceeds the maximum ids")
+    void shouldRejectOversizedBatch() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Batch has 1001 ids, the maximum is 1000"));
+    }
+
+    @Test
+    @DisplayName("GET /products/export - Should stream every product as NDJSON with the catalog version")
+    void shouldExportProductsAsNdjson() throws Exception {
+        String body = mockMvc.perform(get("/products/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(ProductController.CATALOG_VERSION_HEADER))
+                .andExpect(content().contentTypeCompatibleWith(ProductController.NDJSON_MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.strip().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(product1.getName(), objectMapper.readTree(lines[0]).get("name").asText());
+        assertEquals(product2.getName(), objectMapper.readTree(lines[1]).get("name").asText());
+    }
+
+    @Test
+    @DisplayName("PUT /products/{id} - Should bump the catalog version seen by the export")
+    void shouldBumpCatalogVersionOnUpdate() throws Exception {
+        long before = Long.parseLong(mockMvc.perform(get("/products/export"))
+                .andReturn().getResponse().getHeader(ProductController.CATALOG_VERSION_HEADER));
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/export"))
+                .andExpect(header().string(ProductController.CATALOG_VERSION_HEADER, Long.toString(before + 1)));
+    }
+
     @Test
     @DisplayName("PUT /products/{id} - Should update an existing product and return 200 OK")
     void shouldUpdateExistingProduct() throws Exception {
@@ -139,6 +388,90 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.price", is(updateRequest.getPrice().doubleValue())));
     }
 
+    @Test
+    @DisplayName("GET /products/{id} - Should answer 304 while the ETag still matches")
+    void shouldAnswerNotModifiedForCurrentETag() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", product1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v" + product1.getVersion() + "\""))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products/{id}", product1.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/{id}", product1.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Smartwatch")));
+    }
+
+    @Test
+    @DisplayName("GET /products/{id} - Should answer 304 with the same gzip ETag variant as the 200")
+    void shouldAnswerNotModifiedWithNegotiatedVariant() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", product1.getId()).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertEquals("\"v" + product1.getVersion() + "-gzip\"", etag);
+
+        mockMvc.perform(get("/products/{id}", product1.getId())
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag));
+    }
+
+    @Test
+    @DisplayName("GET /products - Should answer 304 for an unchanged listing")
+    void shouldAnswerNotModifiedForListing() throws Exception {
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/products").header("If-None-Match", "W/" + etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/products/{id}", product2.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("PUT /products/{id} - Should reject a stale If-Match with 412 and accept the current one")
+    void shouldHonourIfMatchOnUpdate() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", product1.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        String newEtag = mockMvc.perform(put("/products/{id}", product1.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/products/{id}", product1.getId())
+                        .header("If-Match", "W/" + newEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(validProductRequest)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     @DisplayName("PUT /products/{id} - Should return 404 Not Found for updating non-existent product")
     void shouldReturnNotFoundForUpdatingNonExistentProduct() throws Exception {
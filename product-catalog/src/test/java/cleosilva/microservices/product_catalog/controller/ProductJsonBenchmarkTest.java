@@ -0,0 +1,134 @@
+package cleosilva.microservices.product_catalog.controller;
+
+import cleosilva.microservices.product_catalog.cache.EncodedJson;
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.cache.ProductJsonEncoder;
+import cleosilva.microservices.product_catalog.cache.ProductListingCache;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compara o caminho anterior ({@code ResponseEntity<Product>}: objeto do cache + conversor Jackson) com
+ * os bytes pré-serializados escritos pelo conversor de {@code byte[]}. O resto da requisição é igual
+ * nos dois caminhos e fica de fora. Requisições/s são apenas indicativas (sem JMH) e não são
+ * verificadas; a alocação por requisição vem do contador da própria thread e inclui os cabeçalhos,
+ * comuns aos dois caminhos.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class ProductJsonBenchmarkTest {
+
+    private static final int ITERATIONS = 50_000;
+    private static final int LISTING_ITERATIONS = 500;
+    private static final int LISTING_SIZE = 1_000;
+
+    @Test
+    @DisplayName("Pre-serialized bytes should allocate less per request than serializing the entity")
+    void comparePreSerializedAndJacksonPaths() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ProductJsonEncoder encoder = new ProductJsonEncoder(objectMapper, true);
+        ProductCache cache = new ProductCache(true, 10_000, Duration.ofMinutes(10), Duration.ZERO, false, Duration.ZERO, new SimpleMeterRegistry(),
+                encoder, mock(ProductListingCache.class));
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter(objectMapper);
+        ByteArrayHttpMessageConverter bytes = new ByteArrayHttpMessageConverter();
+
+        List<ProductView> products = new ArrayList<>();
+        for (long id = 1; id <= LISTING_SIZE; id++) {
+            products.add(new ProductView(id, "Product " + id, "Description of product " + id,
+                    BigDecimal.valueOf(1999 + id, 2), id % 50, 0));
+        }
+        ProductView stored = products.getFirst();
+
+        ByteArrayOutputStream listing = new ByteArrayOutputStream();
+        listing.write('[');
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                listing.write(',');
+            }
+            listing.writeBytes(encoder.json(products.get(i)));
+        }
+        listing.write(']');
+        byte[] listingJson = listing.toByteArray();
+
+        Result legacyById = measure(ITERATIONS, () -> jackson.write(
+                cache.get(1L, id -> Optional.of(stored)).orElseThrow(), MediaType.APPLICATION_JSON, new NullResponse()));
+        Result cachedById = measure(ITERATIONS, () -> bytes.write(
+                cache.getEncoded(1L, id -> Optional.of(stored)).map(EncodedJson::json).orElseThrow(),
+                MediaType.APPLICATION_JSON, new NullResponse()));
+        Result legacyListing = measure(LISTING_ITERATIONS, () -> jackson.write(products, MediaType.APPLICATION_JSON, new NullResponse()));
+        Result cachedListing = measure(LISTING_ITERATIONS, () -> bytes.write(listingJson, MediaType.APPLICATION_JSON, new NullResponse()));
+
+        System.out.printf("GET /products/{id}: ResponseEntity<Product> %s; pre-serialized %s%n", legacyById, cachedById);
+        System.out.printf("GET /products (%d products, %d bytes): List<Product> %s; materialized %s%n",
+                LISTING_SIZE, listingJson.length, legacyListing, cachedListing);
+
+        assertTrue(cachedById.bytesPerRequest() < legacyById.bytesPerRequest(),
+                "legacy=" + legacyById + " cached=" + cachedById);
+        assertTrue(cachedListing.bytesPerRequest() * 10 < legacyListing.bytesPerRequest(),
+                "legacy=" + legacyListing + " cached=" + cachedListing);
+    }
+
+    // Resposta que descarta o corpo: só o custo de produzir os bytes é medido
+    private static final class NullResponse implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public OutputStream getBody() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private record Result(long requestsPerSecond, long bytesPerRequest) {
+        @Override
+        public String toString() {
+            return requestsPerSecond + " req/s, " + bytesPerRequest + " B/req";
+        }
+    }
+
+    private static Result measure(int iterations, ThrowingRunnable request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < iterations; i++) {
+            request.run();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            request.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(iterations * 1_000_000_000L / Math.max(elapsed, 1), allocated / iterations);
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,242 @@
+package cleosilva.microservices.product_catalog.controller;
+
+import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import cleosilva.microservices.product_catalog.repository.ReactiveProductReader;
+import cleosilva.microservices.product_catalog.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Perfil reactive sobre H2: o JPA (escritas) e o R2DBC (leituras) apontam para o mesmo banco em memória.
+ */
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-products;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-products;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+class ReactiveProductControllerIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReactiveProductReader productReader;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    private Product product1;
+    private Product product2;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        product1 = productRepository.save(new Product("Smartphone X", "High-end smartphone", new BigDecimal("800.00")));
+        product2 = productRepository.save(new Product("Headphones", "Noise-cancelling headphones", new BigDecimal("150.00")));
+    }
+
+    @Test
+    @DisplayName("GET /products - Should stream all products as a JSON array")
+    void shouldStreamAllProducts() {
+        webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].name").isEqualTo(product1.getName())
+                .jsonPath("$[1].name").isEqualTo(product2.getName());
+    }
+
+    @Test
+    @DisplayName("GET /products - Should stream one product per line as NDJSON")
+    void shouldStreamProductsAsNdjson() {
+        List<ProductView> products = webTestClient.get().uri("/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(ProductView.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of(product1.getId(), product2.getId()), products.stream().map(ProductView::id).toList());
+    }
+
+    @Test
+    @DisplayName("GET /products - Should return 204 No Content if no products exist")
+    void shouldReturnNoContentIfNoProductsExist() {
+        productRepository.deleteAll();
+
+        webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    @DisplayName("GET /products?limit= - Should walk the catalog in keyset pages")
+    void shouldPageByCursor() {
+        webTestClient.get().uri("/products?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products.length()").isEqualTo(1)
+                .jsonPath("$.products[0].id").isEqualTo(product1.getId())
+                .jsonPath("$.nextAfter").isEqualTo(product1.getId());
+
+        webTestClient.get().uri("/products?after={after}&limit=1", product1.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products[0].id").isEqualTo(product2.getId())
+                .jsonPath("$.nextAfter").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Listing should only read as many products as the subscriber requested")
+    void shouldHonourDemand() {
+        StepVerifier.create(productReader.findAll(), 1)
+                .expectNextMatches(product -> product.id() == product1.getId())
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .expectNextMatches(product -> product.id() == product2.getId())
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("GET /products/{id} - Should return the product with its ETag and answer 304 while it matches")
+    void shouldReturnProductWithETag() {
+        String etag = webTestClient.get().uri("/products/{id}", product1.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"v0\"")
+                .expectBody()
+                .jsonPath("$.name").isEqualTo(product1.getName())
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get().uri("/products/{id}", product1.getId())
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("GET /products/{id} - Should return 404 Not Found for non-existent product")
+    void shouldReturnNotFoundForNonExistentProduct() {
+        webTestClient.get().uri("/products/{id}", 999L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class).isEqualTo("Product with Id 999 not found!");
+    }
+
+    @Test
+    @DisplayName("POST /products/batch - Should return found products and missing ids")
+    void shouldReturnProductsInBatch() {
+        webTestClient.post().uri("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(product1.getId(), 999L, product2.getId(), product1.getId()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products.length()").isEqualTo(2)
+                .jsonPath("$.missingIds.length()").isEqualTo(1)
+                .jsonPath("$.missingIds[0]").isEqualTo(999);
+    }
+
+    @Test
+    @DisplayName("POST /products/batch - Should return 400 Bad Request when the batch exceeds the maximum ids")
+    void shouldRejectOversizedBatch() {
+        webTestClient.post().uri("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LongStream.rangeClosed(1, 1001).boxed().toList())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("POST /products - Should return 400 Bad Request with the same field errors as the blocking stack")
+    void shouldReturnBadRequestForInvalidProductData() {
+        ProductRequest invalid = new ProductRequest();
+        invalid.setName("");
+        invalid.setDescription("Missing name");
+        invalid.setPrice(new BigDecimal("-10.00"));
+
+        webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(invalid)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.name").exists()
+                .jsonPath("$.price").exists();
+    }
+
+    @Test
+    @DisplayName("POST /products - Should create through the blocking service and read it back over R2DBC")
+    void shouldCreateNewProduct() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Smartwatch");
+        request.setDescription("Fitness tracker smartwatch");
+        request.setPrice(new BigDecimal("299.99"));
+
+        String location = webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Smartwatch")
+                .returnResult()
+                .getResponseHeaders()
+                .getLocation()
+                .getPath();
+
+        webTestClient.get().uri(location)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Fitness tracker smartwatch");
+    }
+
+    @Test
+    @DisplayName("GET /products/search - Should find products in the in-memory index")
+    void shouldSearchProducts() {
+        productSearchIndex.rebuild();
+
+        webTestClient.get().uri(uri -> uri.path("/products/search").queryParam("q", "headphones").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(product2.getId())
+                .jsonPath("$[0].name").isEqualTo(product2.getName());
+    }
+}
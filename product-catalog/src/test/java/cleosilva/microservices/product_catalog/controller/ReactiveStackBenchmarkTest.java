@@ -0,0 +1,168 @@
+package cleosilva.microservices.product_catalog.controller;
+
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@code GET /products/{id}} com muitas requisições simultâneas, na pilha padrão (Tomcat + JPA) e no perfil
+ * reactive (Netty + R2DBC), contra o mesmo H2 e sem cache: cada requisição vai ao banco. Mostra quantas
+ * threads cada servidor cria para atender a carga e a latência p99. Os números são apenas indicativos (cliente
+ * e servidor na mesma JVM, sem JMH) e não são verificados; só se verifica que todas as requisições tiveram 200.
+ * <p>
+ * O r2dbc-h2 executa a consulta na própria thread que assina, ou seja, no event loop: a cauda de latência do
+ * perfil reactive aqui é do H2, não do r2dbc-postgresql, que não bloqueia. A contagem de threads não depende disso.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class ReactiveStackBenchmarkTest {
+
+    private static final int PRODUCTS = 1_000;
+    private static final int CONCURRENCY = 256;
+    private static final int WARMUP = 1_000;
+    private static final int REQUESTS = 5_000;
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:stack-benchmark-blocking;DB_CLOSE_DELAY=-1",
+            "spring.jpa.show-sql=false",
+            "catalog.cache.enabled=false"
+    })
+    @DirtiesContext
+    class Blocking {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        @DisplayName("Blocking stack should answer every concurrent lookup")
+        void measure() throws Exception {
+            run("blocking (Tomcat + JPA)", port, productRepository);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @ActiveProfiles({"test", "reactive"})
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:stack-benchmark-reactive;DB_CLOSE_DELAY=-1",
+            "spring.r2dbc.url=r2dbc:h2:mem:///stack-benchmark-reactive;DB_CLOSE_DELAY=-1",
+            "spring.r2dbc.username=sa",
+            "spring.r2dbc.password=",
+            "spring.jpa.show-sql=false"
+    })
+    @DirtiesContext
+    class Reactive {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Test
+        @DisplayName("Reactive stack should answer every concurrent lookup")
+        void measure() throws Exception {
+            run("reactive (Netty + R2DBC)", port, productRepository);
+        }
+    }
+
+    private static void run(String stack, int port, ProductRepository productRepository) throws Exception {
+        productRepository.deleteAll();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product("Product " + i, "Description of product " + i, BigDecimal.valueOf(1999 + i, 2)));
+        }
+        long[] ids = productRepository.saveAll(products).stream().mapToLong(Product::getId).toArray();
+
+        // O cliente usa sempre as mesmas 4 threads, então o que cresce durante a carga é o servidor
+        ExecutorService clientThreads = Executors.newFixedThreadPool(4);
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientThreads)
+                    .build();
+            fire(client, port, ids, WARMUP);
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            int before = threads.getThreadCount();
+            threads.resetPeakThreadCount();
+            long started = System.nanoTime();
+            long[] latencies = fire(client, port, ids, REQUESTS);
+            long elapsed = System.nanoTime() - started;
+            int peak = threads.getPeakThreadCount();
+
+            Arrays.sort(latencies);
+            System.out.printf("%s: %d requests at concurrency %d: p50 %.2f ms, p99 %.2f ms, %.0f req/s, "
+                            + "live threads %d before, peak %d (+%d)%n",
+                    stack, REQUESTS, CONCURRENCY, millis(latencies, 0.50), millis(latencies, 0.99),
+                    REQUESTS / (elapsed / 1e9), before, peak, peak - before);
+        } finally {
+            clientThreads.shutdownNow();
+        }
+    }
+
+    // Até CONCURRENCY requisições em voo; devolve a latência de cada uma, em nanos
+    private static long[] fire(HttpClient client, int port, long[] ids, int requests) throws Exception {
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        long[] latencies = new long[requests];
+        AtomicInteger ok = new AtomicInteger();
+        List<CompletableFuture<?>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/products/" + id)).build();
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (response != null && response.statusCode() == 200) {
+                            ok.incrementAndGet();
+                        }
+                        inFlight.release();
+                    }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+        assertEquals(requests, ok.get());
+        return latencies;
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
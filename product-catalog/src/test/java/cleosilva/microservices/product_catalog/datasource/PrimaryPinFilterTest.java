@@ -0,0 +1,56 @@
+package cleosilva.microservices.product_catalog.datasource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimaryPinFilterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final PrimaryPinFilter filter = new PrimaryPinFilter(Duration.ofSeconds(5), 1000, now::get);
+
+    @Test
+    @DisplayName("Should pin only the writing client, and only for the configured time")
+    void shouldPinWritingClientUntilExpiry() throws Exception {
+        assertFalse(pinnedDuring("GET", "alice"));
+
+        pinnedDuring("PUT", "alice");
+
+        assertTrue(pinnedDuring("GET", "alice"));
+        assertFalse(pinnedDuring("GET", "bob"));
+
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+        assertFalse(pinnedDuring("GET", "alice"));
+        assertFalse(filter.isPinned("alice"));
+    }
+
+    @Test
+    @DisplayName("Should pin only the write itself when the request has no client id")
+    void shouldNotPinRemoteAddressWithoutClientId() throws Exception {
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/products");
+        write.setRemoteAddr("10.0.0.7");
+        AtomicBoolean pinned = new AtomicBoolean();
+        filter.doFilter(write, new MockHttpServletResponse(), (request, response) -> pinned.set(ReadRouting.isPinnedToPrimary()));
+
+        assertTrue(pinned.get());
+        assertFalse(filter.isPinned("10.0.0.7"));
+        assertFalse(ReadRouting.isPinnedToPrimary());
+        assertFalse(pinnedDuring("GET", "10.0.0.7"));
+    }
+
+    private boolean pinnedDuring(String method, String client) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/products/1");
+        request.addHeader(PrimaryPinFilter.CLIENT_ID_HEADER, client);
+        AtomicBoolean pinned = new AtomicBoolean();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> pinned.set(ReadRouting.isPinnedToPrimary()));
+        return pinned.get();
+    }
+}
@@ -0,0 +1,113 @@
+package cleosilva.microservices.product_catalog.datasource;
+
+import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Dois H2 em memória fazem o papel de primário e réplica. A réplica não recebe nada do primário: cada teste
+ * grava nela uma cópia atrasada do produto, então o nome devolvido mostra de qual banco veio a leitura.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "catalog.datasource.routing.enabled=true",
+        "catalog.datasource.routing.pin-after-write=PT1M",
+        "catalog.datasource.replicas[0].url=" + ReadReplicaRoutingIntegrationTest.REPLICA_URL
+                + ";INIT=RUNSCRIPT FROM 'classpath:db/replica-schema.sql'",
+        "catalog.cache.enabled=false"
+})
+class ReadReplicaRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        replica.update("DELETE FROM products");
+        product = productRepository.save(new Product("Smartphone X", "High-end smartphone", new BigDecimal("800.00")));
+        replica.update("INSERT INTO products (id, name, description, price, stock, version) VALUES (?, ?, ?, ?, 0, 0)",
+                product.getId(), "Smartphone (stale)", "High-end smartphone", new BigDecimal("800.00"));
+    }
+
+    @Test
+    @DisplayName("Should read from the replica and write to the primary")
+    void shouldRouteReadsToReplicaAndWritesToPrimary() throws Exception {
+        mockMvc.perform(get("/products/{id}", product.getId()).header(PrimaryPinFilter.CLIENT_ID_HEADER, "bob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Smartphone (stale)")));
+
+        mockMvc.perform(post("/products")
+                        .header(PrimaryPinFilter.CLIENT_ID_HEADER, "carol")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("Smartwatch"))))
+                .andExpect(status().isCreated());
+
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        assertEquals(2, primary.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+        assertEquals(1, replica.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should pin a client to the primary after it writes")
+    void shouldPinWritingClientToPrimary() throws Exception {
+        mockMvc.perform(put("/products/{id}", product.getId())
+                        .header(PrimaryPinFilter.CLIENT_ID_HEADER, "alice")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("Smartphone X2"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/{id}", product.getId()).header(PrimaryPinFilter.CLIENT_ID_HEADER, "alice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Smartphone X2")));
+        mockMvc.perform(get("/products/{id}", product.getId()).header(PrimaryPinFilter.CLIENT_ID_HEADER, "bob"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Smartphone (stale)")));
+    }
+
+    private static ProductRequest request(String name) {
+        ProductRequest request = new ProductRequest();
+        request.setName(name);
+        request.setDescription("High-end smartphone");
+        request.setPrice(new BigDecimal("850.00"));
+        return request;
+    }
+}
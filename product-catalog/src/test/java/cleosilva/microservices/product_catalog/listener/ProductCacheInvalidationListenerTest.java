@@ -0,0 +1,33 @@
+package cleosilva.microservices.product_catalog.listener;
+
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class ProductCacheInvalidationListenerTest {
+
+    private final ProductCache productCache = mock(ProductCache.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductCacheInvalidationListener listener = new ProductCacheInvalidationListener(productCache, objectMapper);
+
+    @Test
+    @DisplayName("Should invalidate the product changed on another replica")
+    void shouldInvalidateChangedProduct() throws Exception {
+        listener.onProductChanged(objectMapper.writeValueAsString(ProductChangedEvent.deleted(42L, 9L)));
+
+        verify(productCache).invalidate(42L);
+        verifyNoMoreInteractions(productCache);
+    }
+
+    @Test
+    @DisplayName("Should clear the whole cache when the event cannot be read")
+    void shouldClearCacheOnUnreadableEvent() {
+        listener.onProductChanged("not json");
+
+        verify(productCache).invalidateAll();
+    }
+}
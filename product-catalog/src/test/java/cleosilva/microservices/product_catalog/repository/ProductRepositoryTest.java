@@ -116,4 +116,17 @@ public class ProductRepositoryTest {
         assertFalse(productRepository.existsById(99L));
     }
 
+
+    @Test
+    @DisplayName("Should bump the version on a conditional stock reservation")
+    void shouldBumpVersionOnReserveStock() {
+        product.setStock(5);
+        Product savedProduct = productRepository.saveAndFlush(product);
+        long version = productRepository.findVersionById(savedProduct.getId()).orElseThrow();
+
+        assertEquals(1, productRepository.reserveStock(savedProduct.getId(), 2));
+        assertEquals(0, productRepository.reserveStock(savedProduct.getId(), 10));
+
+        assertEquals(version + 1, productRepository.findVersionById(savedProduct.getId()).orElseThrow());
+    }
 }
@@ -0,0 +1,73 @@
+package cleosilva.microservices.product_catalog.search;
+
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latência de consulta com 1M de produtos sintéticos (vocabulário em português com acentos e códigos de
+ * modelo únicos). Os tempos são apenas indicativos (sem JMH) e não são verificados; o índice é
+ * alimentado direto, sem banco, como faria o rebuild.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int QUERIES = 2_000;
+
+    private static final String[] NOUNS = {"Cadeira", "Mesa", "Sofá", "Notebook", "Geladeira", "Fogão", "Ventilador",
+            "Luminária", "Cafeteira", "Liquidificador", "Tênis", "Camiseta", "Mochila", "Relógio", "Fone", "Monitor",
+            "Teclado", "Mouse", "Impressora", "Colchão"};
+    private static final String[] ADJECTIVES = {"Ergonômica", "Compacto", "Elétrico", "Portátil", "Premium", "Básico",
+            "Inteligente", "Silencioso", "Reforçado", "Dobrável"};
+    private static final String[] DESCRIPTIONS = {"ideal para escritório", "acabamento em madeira", "garantia de um ano",
+            "com controle remoto", "alta eficiência energética", "design moderno", "para uso diário",
+            "produto nacional", "bivolt", "fácil instalação"};
+
+    @Test
+    @DisplayName("Should answer queries over 1M products from memory")
+    void measureQueryLatency() {
+        ProductSearchIndex index = new ProductSearchIndex(mock(ProductRepository.class), mock(PlatformTransactionManager.class));
+        Random random = new Random(42);
+        BigDecimal price = new BigDecimal("99.90");
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            String name = NOUNS[random.nextInt(NOUNS.length)] + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)]
+                    + " MX" + id;
+            String description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)] + ", "
+                    + DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+            index.apply(new ProductSearchIndex.Entry(id, name, description, price));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<String> queries = List.of("mx123456", "relogio mx777", "cadeira ergonomica", "notebook", "fogao bivolt");
+        for (String query : queries) {
+            assertFalse(index.search(query, 20).isEmpty(), query);
+        }
+        System.out.printf("search index: %d products, %d MB of postings, built in %d ms%n",
+                index.size(), index.postingsSizeInBytes() / (1024 * 1024), buildMillis);
+        for (String query : queries) {
+            long[] nanos = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                long queryStart = System.nanoTime();
+                index.search(query, 20);
+                nanos[i] = System.nanoTime() - queryStart;
+            }
+            Arrays.sort(nanos);
+            System.out.printf("  q=\"%s\": p50 %d us, p99 %d us%n", query,
+                    nanos[QUERIES / 2] / 1_000, nanos[QUERIES * 99 / 100] / 1_000);
+        }
+    }
+}
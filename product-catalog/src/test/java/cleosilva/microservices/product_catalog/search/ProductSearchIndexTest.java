@@ -0,0 +1,122 @@
+package cleosilva.microservices.product_catalog.search;
+
+import cleosilva.microservices.product_catalog.dto.ProductSearchHit;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProductSearchIndexTest {
+
+    // A compactação roda quando o teste manda, na própria thread
+    private final List<Runnable> compactions = new ArrayList<>();
+    private final ProductSearchIndex index = new ProductSearchIndex(mock(ProductRepository.class),
+            mock(PlatformTransactionManager.class), compactions::add);
+
+    private void put(long id, String name, String description) {
+        index.apply(new ProductSearchIndex.Entry(id, name, description, new BigDecimal("10.00")));
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, 10).stream().map(ProductSearchHit::id).toList();
+    }
+
+    @Test
+    @DisplayName("Should tokenize ignoring accents, case, stopwords and regular plurals")
+    void shouldNormalizeTokens() {
+        assertEquals(List.of("cadeira", "escritorio", "acucar"),
+                ProductTokenizer.tokenize("Cadeiras de ESCRITÓRIO, açúcar"));
+    }
+
+    @Test
+    @DisplayName("Should match accented queries and rank name matches above description matches")
+    void shouldRankNameAboveDescription() {
+        put(1, "Mesa de jantar", "Acompanha cadeira estofada");
+        put(2, "Cadeira gamer", "Encosto reclinável");
+        put(3, "Sofá", "Três lugares");
+
+        assertEquals(List.of(2L, 1L), ids("cadeíras"));
+        assertEquals(List.of(3L), ids("sofa"));
+        assertEquals(List.of(), ids("geladeira"));
+    }
+
+    @Test
+    @DisplayName("Should rank products matching more query terms first")
+    void shouldRankByMatchedTerms() {
+        put(1, "Notebook gamer", "Placa de vídeo dedicada");
+        put(2, "Notebook", "Leve para trabalho");
+        put(3, "Mouse gamer", "RGB");
+
+        assertEquals(List.of(1L), ids("notebook gamer").subList(0, 1));
+        assertEquals(3, ids("notebook gamer").size());
+    }
+
+    @Test
+    @DisplayName("Should forget old text on update and drop removed products")
+    void shouldApplyUpdatesAndRemovals() {
+        put(1, "Cafeteira", "Elétrica");
+        put(1, "Chaleira", "Elétrica");
+        put(2, "Torradeira", "Elétrica");
+        index.apply(new ProductSearchIndex.Entry(2, null, null, null));
+
+        assertEquals(List.of(), ids("cafeteira"));
+        assertEquals(List.of(1L), ids("chaleira"));
+        assertEquals(List.of(1L), ids("eletrica"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Should keep results intact after compacting many removed documents")
+    void shouldCompact() {
+        for (long id = 1; id <= 5_000; id++) {
+            put(id, "Produto " + id, "Genérico");
+        }
+        for (long id = 1; id <= 4_000; id++) {
+            put(id, "Item " + id, "Genérico renovado");
+        }
+
+        runCompactions();
+
+        assertEquals(5_000, index.size());
+        assertEquals(List.of(4_000L), ids("item 4000").subList(0, 1));
+        assertEquals(List.of(4_001L), ids("produto 4001").subList(0, 1));
+        assertEquals(10, ids("renovado").size());
+    }
+
+    @Test
+    @DisplayName("Should compact off the writing thread and apply writes queued meanwhile")
+    void shouldQueueWritesWhileCompacting() {
+        for (long id = 1; id <= 5_000; id++) {
+            put(id, "Produto " + id, "Genérico");
+        }
+        for (long id = 1; id <= 1_300; id++) {
+            put(id, "Item " + id, "Genérico renovado");
+        }
+        assertEquals(1, compactions.size());
+
+        // Compactação agendada mas ainda não executada: a escrita espera e a busca segue no segmento antigo
+        put(9_999, "Console portátil", "Novo");
+        index.apply(new ProductSearchIndex.Entry(1, null, null, null));
+        assertEquals(List.of(), ids("console"));
+        assertEquals(List.of(1L), ids("item 1").subList(0, 1));
+
+        runCompactions();
+
+        assertEquals(List.of(9_999L), ids("console"));
+        assertFalse(ids("item 1").contains(1L));
+        assertEquals(5_000, index.size());
+    }
+
+    private void runCompactions() {
+        while (!compactions.isEmpty()) {
+            compactions.removeFirst().run();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryReservationServiceTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    private final ProductEventPublisher productEventPublisher = mock(ProductEventPublisher.class);
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    private Product productWithStock(long stock) {
+        Product product = new Product("Flash sale console", "Limited batch", new BigDecimal("499.00"));
+        product.setStock(stock);
+        return productRepository.save(product);
+    }
+
+    @Test
+    @DisplayName("Should never oversell a hot product and apply concurrent reservations in one flush")
+    void shouldNotOversellUnderContention() throws Exception {
+        Product product = productWithStock(5_000);
+        int reservations = 8_000;
+        // Janela que nunca fecha sozinha: o teste decide quando o lote sai
+        InventoryReservationService service = service();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(reservations);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<CompletableFuture<Boolean>>> submitted = new ArrayList<>(reservations);
+            for (int i = 0; i < reservations; i++) {
+                submitted.add(CompletableFuture.supplyAsync(() -> {
+                    awaitQuietly(start);
+                    return service.reserve(product.getId(), 1);
+                }, executor));
+            }
+            start.countDown();
+            for (CompletableFuture<CompletableFuture<Boolean>> future : submitted) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        service.flushPending();
+
+        long granted = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                granted++;
+            }
+        }
+
+        assertEquals(5_000, granted);
+        assertEquals(0L, productRepository.findStockById(product.getId()).orElseThrow());
+        assertEquals(1, service.flushes());
+        verify(productEventPublisher, times(1)).publishProductChanged(any());
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Should grant what fits in arrival order when the window total exceeds the stock")
+    void shouldGrantPartiallyWhenStockIsShort() throws Exception {
+        Product product = productWithStock(5);
+        InventoryReservationService service = service();
+        try {
+            CompletableFuture<Boolean> first = service.reserve(product.getId(), 3);
+            CompletableFuture<Boolean> second = service.reserve(product.getId(), 3);
+            CompletableFuture<Boolean> third = service.reserve(product.getId(), 2);
+            service.flushPending();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertFalse(second.get(5, TimeUnit.SECONDS));
+            assertTrue(third.get(5, TimeUnit.SECONDS));
+            assertEquals(0L, productRepository.findStockById(product.getId()).orElseThrow());
+            assertEquals(1, service.flushes());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should open a new window for reservations arriving after a flush")
+    void shouldOpenNewWindowAfterFlush() throws Exception {
+        Product product = productWithStock(10);
+        InventoryReservationService service = service();
+        try {
+            CompletableFuture<Boolean> first = service.reserve(product.getId(), 4);
+            service.flushPending();
+            CompletableFuture<Boolean> second = service.reserve(product.getId(), 4);
+            assertFalse(second.isDone());
+            service.flushPending();
+
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertEquals(2, service.flushes());
+            assertEquals(2L, productRepository.findStockById(product.getId()).orElseThrow());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply open windows when stopped")
+    void shouldFlushOnStop() throws Exception {
+        Product product = productWithStock(1);
+        InventoryReservationService service = service();
+
+        CompletableFuture<Boolean> reservation = service.reserve(product.getId(), 1);
+        service.stop();
+
+        assertTrue(reservation.get(5, TimeUnit.SECONDS));
+        assertEquals(1, service.flushes());
+    }
+
+    @Test
+    @DisplayName("Should reject reservations for a product that does not exist")
+    void shouldRejectUnknownProduct() throws Exception {
+        InventoryReservationService service = service();
+        CompletableFuture<Boolean> reservation = service.reserve(987_654L, 1);
+        service.stop();
+
+        assertFalse(reservation.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should roll back every reservation of the window when one of them fails")
+    void shouldApplyWindowAtomically() throws Exception {
+        Product first = productWithStock(10);
+        Product second = productWithStock(10);
+        ProductRepository failing = mock(ProductRepository.class, delegatesTo(productRepository));
+        doThrow(new IllegalStateException("database down")).when(failing).reserveStock(eq(second.getId()), anyLong());
+        InventoryReservationService service = service(failing);
+        try {
+            CompletableFuture<Map<Long, Boolean>> batch = service.reserve(Map.of(first.getId(), 2L, second.getId(), 3L));
+            CompletableFuture<Boolean> other = service.reserve(first.getId(), 1);
+            service.flushPending();
+
+            assertThrows(ExecutionException.class, () -> batch.get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> other.get(5, TimeUnit.SECONDS));
+            assertEquals(10L, productRepository.findStockById(first.getId()).orElseThrow());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should report each product of a batch on its own")
+    void shouldReportEachProductOfBatch() throws Exception {
+        Product available = productWithStock(5);
+        Product scarce = productWithStock(1);
+        InventoryReservationService service = service();
+        try {
+            CompletableFuture<Map<Long, Boolean>> batch = service.reserve(Map.of(available.getId(), 2L, scarce.getId(), 3L));
+            service.flushPending();
+
+            assertEquals(Map.of(available.getId(), true, scarce.getId(), false), batch.get(5, TimeUnit.SECONDS));
+            assertEquals(3L, productRepository.findStockById(available.getId()).orElseThrow());
+            assertEquals(1L, productRepository.findStockById(scarce.getId()).orElseThrow());
+            // Só o produto baixado muda de versão e é anunciado às outras instâncias
+            ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+            verify(productEventPublisher).publishProductChanged(event.capture());
+            assertEquals(available.getId(), event.getValue().productId());
+            assertEquals(ProductChangedEvent.ChangeType.UPDATED, event.getValue().type());
+            assertEquals(catalogVersionService.currentVersion(), event.getValue().version());
+        } finally {
+            service.stop();
+        }
+    }
+
+    private InventoryReservationService service() {
+        return service(productRepository);
+    }
+
+    private InventoryReservationService service(ProductRepository repository) {
+        return new InventoryReservationService(repository, productCache, catalogVersionService, productEventPublisher,
+                transactionManager, Duration.ofHours(1), 1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
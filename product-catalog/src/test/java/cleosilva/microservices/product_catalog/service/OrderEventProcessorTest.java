@@ -0,0 +1,83 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.order_events.OrderCreatedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventProcessorTest {
+
+    @Mock
+    private InventoryReservationService inventoryReservationService;
+
+    @InjectMocks
+    private OrderEventProcessor orderEventProcessor;
+
+    private static OrderCreatedEvent order(OrderCreatedEvent.Item... items) {
+        return new OrderCreatedEvent(List.of(items), BigDecimal.ZERO, List.of(), List.of());
+    }
+
+    private static OrderCreatedEvent.Item item(long productId, int quantity) {
+        return new OrderCreatedEvent.Item(productId, quantity, BigDecimal.TEN);
+    }
+
+    @Test
+    @DisplayName("Should aggregate the quantities of a batch into one delta per product, ordered by id")
+    void shouldAggregateQuantitiesPerProduct() {
+        Map<Long, Long> quantities = OrderEventProcessor.quantitiesByProduct(List.of(
+                order(item(3L, 1), item(1L, 2)),
+                order(item(1L, 5)),
+                order(item(2L, 0), item(3L, 4))));
+
+        assertEquals(Map.of(1L, 7L, 3L, 5L), quantities);
+        assertEquals(List.of(1L, 3L), List.copyOf(quantities.keySet()));
+    }
+
+    @Test
+    @DisplayName("Should produce no deltas for an empty batch")
+    void shouldHandleEmptyBatch() {
+        assertTrue(OrderEventProcessor.quantitiesByProduct(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reserve the whole batch at once and tolerate products without stock")
+    void shouldReserveBatchAtOnce() {
+        when(inventoryReservationService.reserve(Map.of(1L, 3L, 2L, 1L)))
+                .thenReturn(CompletableFuture.completedFuture(Map.of(1L, true, 2L, false)));
+
+        orderEventProcessor.process(List.of(order(item(1L, 1), item(2L, 1)), order(item(1L, 2))));
+
+        verify(inventoryReservationService).reserve(Map.of(1L, 3L, 2L, 1L));
+        verifyNoMoreInteractions(inventoryReservationService);
+    }
+
+    @Test
+    @DisplayName("Should fail the batch when its reservations could not be applied")
+    void shouldFailBatchOnDatabaseError() {
+        when(inventoryReservationService.reserve(Map.of(1L, 1L)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("database down")));
+
+        assertThrows(CompletionException.class, () -> orderEventProcessor.process(List.of(order(item(1L, 1)))));
+    }
+
+    @Test
+    @DisplayName("Should not reserve anything for a batch without quantities")
+    void shouldSkipEmptyBatch() {
+        orderEventProcessor.process(List.of(order(item(1L, 0))));
+
+        verifyNoInteractions(inventoryReservationService);
+    }
+}
@@ -0,0 +1,151 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.dto.ProductView;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductBatchLoaderTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(64);
+    private ProductBatchLoader loader;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (loader != null) {
+            loader.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve concurrent lookups of distinct ids with a few IN queries")
+    void shouldBatchConcurrentLookups() throws Exception {
+        loader = new ProductBatchLoader(productRepository, meterRegistry, true, Duration.ofMillis(20), 100, 2);
+        when(productRepository.findViewsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            List<ProductView> found = new ArrayList<>();
+            invocation.<Collection<Long>>getArgument(0).forEach(id -> found.add(product(id)));
+            return found;
+        });
+
+        List<Future<Optional<ProductView>>> results = loadConcurrently(64, i -> (long) i + 1);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1L, results.get(i).get(5, TimeUnit.SECONDS).orElseThrow().id());
+        }
+        DistributionSummary batchSize = meterRegistry.get("catalog.products.loader.batch.size").summary();
+        Timer wait = meterRegistry.get("catalog.products.loader.wait").timer();
+
+        assertTrue(loader.batches() < 64, "batches=" + loader.batches());
+        assertEquals(loader.batches(), batchSize.count());
+        assertEquals(loader.batches(), wait.count());
+        assertEquals(64.0, batchSize.totalAmount());
+        verify(productRepository, never()).findViewById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should share one query result between lookups of the same id")
+    void shouldShareInFlightLookups() throws Exception {
+        loader = new ProductBatchLoader(productRepository, meterRegistry, true, Duration.ofMillis(50), 100, 2);
+        when(productRepository.findViewsByIdIn(anyCollection())).thenReturn(List.of(product(7L)));
+
+        List<Future<Optional<ProductView>>> results = loadConcurrently(32, i -> 7L);
+
+        ProductView first = results.getFirst().get(5, TimeUnit.SECONDS).orElseThrow();
+        for (Future<Optional<ProductView>> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        verify(productRepository, times(1)).findViewsByIdIn(List.of(7L));
+    }
+
+    @Test
+    @DisplayName("Should dispatch a full batch without waiting for the window")
+    void shouldDispatchFullBatchImmediately() throws Exception {
+        loader = new ProductBatchLoader(productRepository, meterRegistry, true, Duration.ofMinutes(1), 10, 2);
+        when(productRepository.findViewsByIdIn(anyCollection())).thenReturn(List.of());
+
+        List<Future<Optional<ProductView>>> results = loadConcurrently(10, i -> (long) i + 1);
+
+        for (Future<Optional<ProductView>> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isEmpty());
+        }
+        assertEquals(1, loader.batches());
+    }
+
+    @Test
+    @DisplayName("Should propagate a query failure to every waiting lookup")
+    void shouldPropagateFailure() throws Exception {
+        loader = new ProductBatchLoader(productRepository, meterRegistry, true, Duration.ofMillis(20), 100, 2);
+        when(productRepository.findViewsByIdIn(anyCollection())).thenThrow(new IllegalStateException("database down"));
+
+        List<Future<Optional<ProductView>>> results = loadConcurrently(8, i -> (long) i + 1);
+
+        for (Future<Optional<ProductView>> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Should query by id directly when batching is disabled")
+    void shouldLoadDirectlyWhenDisabled() {
+        loader = new ProductBatchLoader(productRepository, meterRegistry, false, Duration.ofMillis(20), 100, 2);
+        when(productRepository.findViewById(3L)).thenReturn(Optional.of(product(3L)));
+
+        assertEquals(3L, loader.load(3L).orElseThrow().id());
+
+        verify(productRepository, never()).findViewsByIdIn(anyCollection());
+        assertEquals(0, loader.batches());
+    }
+
+    private List<Future<Optional<ProductView>>> loadConcurrently(int lookups, IntToLongFunction id)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(lookups);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<ProductView>>> results = new ArrayList<>();
+        for (int i = 0; i < lookups; i++) {
+            long productId = id.applyAsLong(i);
+            results.add(callers.submit(() -> {
+                ready.countDown();
+                start.await();
+                return loader.load(productId);
+            }));
+        }
+        ready.await();
+        start.countDown();
+        return results;
+    }
+
+    private static ProductView product(long id) {
+        return new ProductView(id, "Product " + id, "Description", BigDecimal.TEN, 0, 0);
+    }
+}
@@ -0,0 +1,122 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.dto.BulkChunkResult;
+import cleosilva.microservices.product_catalog.dto.ProductUpsertRequest;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vazão (linhas/s) da carga em lote comparada à criação de um produto por chamada, no H2 e no H2 em modo
+ * PostgreSQL. Os tempos são apenas indicativos e não são verificados; o que se verifica é que os INSERTs
+ * saíram em lotes JDBC (contagem de lotes da estatística do Hibernate). O publisher de eventos é mockado
+ * para medir só o banco.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+class ProductBulkBenchmarkTest {
+
+    private static final int BULK_ROWS = 20_000;
+    private static final int SINGLE_ROWS = 1_000;
+
+    abstract static class Scenario {
+        @Autowired
+        private ProductService productService;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        @MockBean
+        private ProductEventPublisher productEventPublisher;
+
+        abstract String database();
+
+        @Test
+        @DisplayName("Bulk upsert should batch inserts and outpace one insert per call")
+        void compareBulkAndSingleInserts() {
+            productRepository.deleteAll();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < SINGLE_ROWS; i++) {
+                productService.createProduct(request("Single " + i));
+            }
+            long singleRowsPerSecond = SINGLE_ROWS * 1_000_000_000L / (System.nanoTime() - start);
+
+            statistics.clear();
+            List<BulkChunkResult> chunks = new ArrayList<>();
+            start = System.nanoTime();
+            productService.bulkUpsert(IntStream.range(0, BULK_ROWS).mapToObj(i -> request("Bulk " + i)).iterator(),
+                    chunks::add);
+            long bulkRowsPerSecond = BULK_ROWS * 1_000_000_000L / (System.nanoTime() - start);
+            long batches = statistics.getPrepareStatementCount();
+
+            System.out.printf("%s: one per call %d rows/s; bulk %d rows/s (%d chunks, %d statements prepared)%n",
+                    database(), singleRowsPerSecond, bulkRowsPerSecond, chunks.size(), batches);
+
+            assertEquals(BULK_ROWS, chunks.stream().mapToInt(BulkChunkResult::created).sum());
+            assertTrue(chunks.stream().allMatch(chunk -> chunk.errors().isEmpty()));
+            assertEquals(SINGLE_ROWS + BULK_ROWS, productRepository.count());
+            assertTrue(batches < BULK_ROWS / 10, "statements prepared: " + batches);
+        }
+
+        private static ProductUpsertRequest request(String name) {
+            ProductUpsertRequest request = new ProductUpsertRequest();
+            request.setName(name);
+            request.setDescription("Benchmark product");
+            request.setPrice(new BigDecimal("9.99"));
+            request.setStock(100L);
+            return request;
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:bulk-h2;DB_CLOSE_DELAY=-1",
+            "spring.jpa.show-sql=false"
+    })
+    class H2 extends Scenario {
+        @Override
+        String database() {
+            return "H2";
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @ActiveProfiles("test")
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:bulk-pg;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+            "spring.jpa.show-sql=false"
+    })
+    class PostgresMode extends Scenario {
+        @Override
+        String database() {
+            return "H2 (PostgreSQL mode)";
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package cleosilva.microservices.product_catalog.service;
+
+import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap alocado por produto listado: entidades numa transação de escrita (com snapshot para dirty checking),
+ * entidades numa transação somente leitura (o {@code findAll} usado antes) e a projeção
+ * {@link cleosilva.microservices.product_catalog.dto.ProductView}. A alocação vem do contador da própria
+ * thread e é apenas indicativa (sem JMH); o que se verifica é que a projeção aloca menos e não deixa
+ * nenhuma entidade no contexto de persistência.
+ * Fora do build padrão (tag {@code benchmark}).
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:projection-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false"
+})
+class ProductReadProjectionBenchmarkTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int ITERATIONS = 5;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Projections should allocate less per listed product and keep nothing in the persistence context")
+    void compareEntitiesAndProjections() {
+        productRepository.deleteAll();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product("Product " + i, "Description of product " + i, BigDecimal.valueOf(1999 + i, 2));
+            product.setStock(i % 50);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Result writableEntities = measure(() -> readWrite.execute(status -> listed(productRepository.findAll().size())));
+        Result readOnlyEntities = measure(() -> readOnly.execute(status -> listed(productRepository.findAll().size())));
+        Result views = measure(() -> readOnly.execute(status -> listed(productRepository.findAllViews().size())));
+
+        System.out.printf("listing %d products: entities (read-write tx) %s; entities (read-only tx) %s; views %s%n",
+                PRODUCTS, writableEntities, readOnlyEntities, views);
+
+        assertEquals(PRODUCTS, readOnlyEntities.managed());
+        assertEquals(0, views.managed());
+        assertTrue(views.bytesPerProduct() < readOnlyEntities.bytesPerProduct(),
+                "views=" + views.bytesPerProduct() + " entities=" + readOnlyEntities.bytesPerProduct());
+    }
+
+    // Entidades ainda gerenciadas no fim da leitura, antes do commit
+    private Listed listed(int size) {
+        int managed = entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        return new Listed(size, managed);
+    }
+
+    private record Listed(int size, int managed) { }
+
+    private record Result(long bytesPerProduct, int managed) {
+        @Override
+        public String toString() {
+            return bytesPerProduct + " B/product, " + managed + " managed";
+        }
+    }
+
+    private static Result measure(Supplier<Listed> listing) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            listing.get();
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        Listed listed = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            listed = listing.get();
+            assertEquals(PRODUCTS, listed.size());
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return new Result(allocated / ((long) ITERATIONS * PRODUCTS), listed.managed());
+    }
+}
@@ -1,22 +1,40 @@
 package cleosilva.microservices.product_catalog.service;
 
+import cleosilva.microservices.product_catalog.cache.ProductCache;
+import cleosilva.microservices.product_catalog.dto.ProductBatchResponse;
+import cleosilva.microservices.product_catalog.dto.ProductChangedEvent;
+import cleosilva.microservices.product_catalog.dto.ProductPage;
 import cleosilva.microservices.product_catalog.dto.ProductRequest;
+import cleosilva.microservices.product_catalog.dto.ProductUpsertRequest;
+import cleosilva.microservices.product_catalog.dto.ProductView;
 import cleosilva.microservices.product_catalog.entity.Product;
+import cleosilva.microservices.product_catalog.exceptions.PreconditionFailedException;
 import cleosilva.microservices.product_catalog.exceptions.ResourceNotFoundException;
 import cleosilva.microservices.product_catalog.repository.ProductRepository;
+import cleosilva.microservices.product_catalog.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.LongFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +45,23 @@ public class ProductServiceTest {
 
     @Mock
     private ProductRepository productRepository;
+    @Mock
+    private ProductEventPublisher productEventPublisher;
+    @Mock
+    private CatalogVersionService catalogVersionService;
+    @Mock
+    private ProductCache productCache;
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    @Mock
+    private ProductBatchLoader productBatchLoader;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Validator validator;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private ProductService productService;
 
@@ -35,6 +70,11 @@ public class ProductServiceTest {
 
     @BeforeEach
     void setUp(){
+        lenient().when(productCache.get(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<LongFunction<Optional<ProductView>>>getArgument(1).apply(invocation.getArgument(0)));
+        lenient().when(productBatchLoader.load(anyLong()))
+                .thenAnswer(invocation -> productRepository.findViewById(invocation.getArgument(0)));
+
         product = new Product("Laptop", "Powerful laptop", new BigDecimal("1200.00"));
         product.setId(1L);
 
@@ -57,6 +97,7 @@ public class ProductServiceTest {
         expectedSaveProduct.setId(10L);
 
         when(productRepository.save(any(Product.class))).thenReturn(expectedSaveProduct);
+        when(catalogVersionService.nextVersion()).thenReturn(5L);
 
         Product createProduct = productService.createProduct(requestToCreate);
 
@@ -66,47 +107,58 @@ public class ProductServiceTest {
         assertEquals(expectedSaveProduct.getPrice(), createProduct.getPrice());
 
         verify(productRepository, times(1)).save(any(Product.class));
-    }
-    @Test
-    @DisplayName("Should list all products")
-    void shouldListAllProducts() {
-        Product product2 = new Product("Mouse", "Wireless mouse", new BigDecimal("50.00"));
-        product2.setId(2L);
-        List<Product> productList = Arrays.asList(product, product2);
-
-        when(productRepository.findAll()).thenReturn(productList);
-
-        List<Product> foundProducts = productService.listProducts();
-
-        assertNotNull(foundProducts);
-        assertEquals(2, foundProducts.size());
-        assertEquals("Laptop", foundProducts.getFirst().getName());
-        assertEquals("Mouse", foundProducts.get(1).getName());
-
-        verify(productRepository, times(1)).findAll();
+        verify(productEventPublisher, times(1)).publishProductChanged(
+                new ProductChangedEvent(10L, ProductChangedEvent.ChangeType.CREATED, 5L,
+                        "New Product Name", "New Product Desc", new BigDecimal("100.00")));
     }
     @Test
     @DisplayName("Should get product by ID when found")
     void shouldGetProductByIdWhenFound() {
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.findViewById(1L)).thenReturn(Optional.of(ProductView.of(product)));
 
-        Product foundProduct = productService.getProductById(1L);
+        ProductView foundProduct = productService.getProductById(1L);
 
         assertNotNull(foundProduct);
-        assertEquals("Laptop", foundProduct.getName());
-        assertEquals(1L, foundProduct.getId());
+        assertEquals("Laptop", foundProduct.name());
+        assertEquals(1L, foundProduct.id());
 
-        verify(productRepository, times(1)).findById(1L);
+        verify(productRepository, times(1)).findViewById(1L);
+        verify(productRepository, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("Should throw ResourceNotFoundException when product by ID is not found")
     void shouldThrowResourceNotFoundExceptionWhenProductByIdNotFound() {
-        when(productRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(productRepository.findViewById(anyLong())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> productService.getProductById(99L));
 
-        verify(productRepository, times(1)).findById(99L);
+        verify(productRepository, times(1)).findViewById(99L);
+    }
+
+    @Test
+    @DisplayName("Should return found products and missing ids for a batch lookup")
+    void shouldReturnFoundAndMissingIdsForBatchLookup() {
+        when(productRepository.findViewsByIdIn(anyCollection())).thenReturn(List.of(ProductView.of(product)));
+
+        ProductBatchResponse response = productService.getProductsByIds(Arrays.asList(1L, 99L, 1L));
+
+        assertEquals(1, response.products().size());
+        assertEquals("Laptop", response.products().getFirst().name());
+        assertEquals(List.of(99L), response.missingIds());
+
+        verify(productRepository, times(1)).findViewsByIdIn(Set.of(1L, 99L));
+    }
+
+    @Test
+    @DisplayName("Should not query the repository for an empty batch lookup")
+    void shouldNotQueryRepositoryForEmptyBatchLookup() {
+        ProductBatchResponse response = productService.getProductsByIds(List.of());
+
+        assertTrue(response.products().isEmpty());
+        assertTrue(response.missingIds().isEmpty());
+
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -114,6 +166,7 @@ public class ProductServiceTest {
     void shouldUpdateExistingProduct(){
         when(productRepository.findById(1L)).thenReturn(Optional.of(product));
         when(productRepository.save(any(Product.class))).thenReturn(product);
+        when(catalogVersionService.nextVersion()).thenReturn(6L);
 
         Product updatedProduct = productService.updateProduct(1L, productRequest);
         updatedProduct.setId(1L);
@@ -125,6 +178,60 @@ public class ProductServiceTest {
 
         verify(productRepository, times(1)).findById(1L);
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(productCache).invalidateAfterCommit(1L);
+        verify(productEventPublisher, times(1)).publishProductChanged(
+                new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.UPDATED, 6L,
+                        "Updated Laptop", "Updated description", new BigDecimal("1300.00")));
+    }
+
+    @Test
+    @DisplayName("Should read one extra row to find the next keyset page and never exceed the max page size")
+    void shouldPageByKeysetWithBoundedSize(){
+        ReflectionTestUtils.setField(productService, "maxPageSize", 2);
+        ProductView first = ProductView.of(product);
+        ProductView second = new ProductView(2L, "Mouse", "Wireless mouse", new BigDecimal("50.00"), 0, 0);
+        ProductView third = new ProductView(3L, "Monitor", "4K monitor", new BigDecimal("400.00"), 0, 0);
+        when(productRepository.findViewsAfter(0L, Limit.of(3))).thenReturn(List.of(first, second, third));
+
+        ProductPage page = productService.listProductsAfter(0L, 100);
+
+        assertEquals(List.of(first, second), page.products());
+        assertEquals(2L, page.nextAfter());
+    }
+
+    @Test
+    @DisplayName("Should keep the current stock when the update request omits it")
+    void shouldKeepStockWhenUpdateOmitsIt(){
+        product.setStock(40);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(40, productService.updateProduct(1L, productRequest).getStock());
+
+        productRequest.setStock(7L);
+        assertEquals(7, productService.updateProduct(1L, productRequest).getStock());
+    }
+
+    @Test
+    @DisplayName("Should refuse an update when the expected version is stale")
+    void shouldRefuseUpdateWithStaleVersion(){
+        product.setVersion(3L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        assertThrows(PreconditionFailedException.class, () ->
+                productService.updateProduct(1L, productRequest, 2L));
+
+        verify(productRepository, never()).save(any(Product.class));
+        verifyNoInteractions(productEventPublisher);
+    }
+
+    @Test
+    @DisplayName("Should answer the version from the cache without querying the repository")
+    void shouldReadVersionFromCache(){
+        when(productCache.cachedVersion(1L)).thenReturn(OptionalLong.of(4L));
+
+        assertEquals(4L, productService.getProductVersion(1L));
+        verifyNoInteractions(productRepository);
     }
 
     @Test
@@ -138,6 +245,7 @@ public class ProductServiceTest {
 
         verify(productRepository, times(1)).findById(99L);
         verify(productRepository, never()).save(any(Product.class));
+        verifyNoInteractions(productEventPublisher);
     }
 
     @Test
@@ -145,11 +253,14 @@ public class ProductServiceTest {
     void shouldDeleteProductSuccessfully() {
         when(productRepository.existsById(1L)).thenReturn(true);
         doNothing().when(productRepository).deleteById(1L);
+        when(catalogVersionService.nextVersion()).thenReturn(7L);
 
         assertDoesNotThrow(() -> productService.deleteProduct(1L));
 
         verify(productRepository, times(1)).existsById(1L);
         verify(productRepository, times(1)).deleteById(1L);
+        verify(productCache).invalidateAfterCommit(1L);
+        verify(productEventPublisher, times(1)).publishProductChanged(ProductChangedEvent.deleted(1L, 7L));
     }
 
     @Test
@@ -161,5 +272,42 @@ public class ProductServiceTest {
 
         verify(productRepository, times(1)).existsById(99L);
         verify(productRepository, never()).deleteById(anyLong());
+        verifyNoInteractions(catalogVersionService);
+    }
+
+    @Test
+    @DisplayName("Should give each product of a bulk chunk its own catalog version")
+    void shouldGiveEachBulkProductItsOwnVersion() {
+        ReflectionTestUtils.setField(productService, "bulkChunkSize", 1000);
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(product));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            long id = 10;
+            for (Product created : invocation.<List<Product>>getArgument(0)) {
+                created.setId(id++);
+            }
+            return invocation.getArgument(0);
+        });
+        when(catalogVersionService.nextVersions(3)).thenReturn(8L);
+
+        List<ProductUpsertRequest> items = new ArrayList<>();
+        items.add(upsert(null, "Mouse"));
+        items.add(upsert(1L, "Laptop Pro"));
+        items.add(upsert(null, "Keyboard"));
+        productService.bulkUpsert(items.iterator(), result -> assertEquals(3, result.created() + result.updated()));
+
+        ArgumentCaptor<ProductChangedEvent> events = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(productEventPublisher, times(3)).publishProductChanged(events.capture());
+        assertEquals(List.of(8L, 9L, 10L), events.getAllValues().stream().map(ProductChangedEvent::version).toList());
+        assertEquals(List.of(10L, 11L, 1L), events.getAllValues().stream().map(ProductChangedEvent::productId).toList());
+        verify(catalogVersionService, never()).nextVersion();
+    }
+
+    private static ProductUpsertRequest upsert(Long id, String name) {
+        ProductUpsertRequest request = new ProductUpsertRequest();
+        request.setId(id);
+        request.setName(name);
+        request.setDescription("Bulk");
+        request.setPrice(new BigDecimal("10.00"));
+        return request;
     }
 }
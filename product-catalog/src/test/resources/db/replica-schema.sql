@@ -0,0 +1,13 @@
+-- Esquema da réplica H2 usada nos testes de roteamento; o primário é criado pelo Hibernate
+CREATE TABLE IF NOT EXISTS products (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(255),
+    price NUMERIC(38, 2),
+    stock BIGINT DEFAULT 0 NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL
+);
+CREATE TABLE IF NOT EXISTS catalog_version (
+    id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);